@@ -0,0 +1,112 @@
+package com.ragpgvector.benchmarks;
+
+import com.ragpgvector.model.TimesheetRecord;
+import com.ragpgvector.model.TimesheetRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded generators for benchmark datasets, shaped like hoursheets/Hoursheets.csv and the CV PDFs
+ */
+public final class SyntheticData {
+
+    public static final String[] MONTHS = {"January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"};
+
+    public static final String[][] ASSIGNMENTS = {
+            {"Devops ClientReporting", "DEV"},
+            {"Standby ClientReporting", "STBL"},
+            {"Standby ClientReporting", "STBH"},
+            {"Devops Payments", "DEV"},
+            {"Consultancy Onboarding", "CONS"},
+            {"Training Internal", "TRN"}
+    };
+
+    public static final String[] QUERIES = {
+            "How many hours for Devops ClientReporting in October 2021?",
+            "standby high hours 2023",
+            "Show me everything for March",
+            "total DEV hours",
+            "what did I work on last year",
+            "STBL in december 2022"
+    };
+
+    private static final String[] CV_WORDS = {
+            "experience", "developer", "java", "spring", "boot", "microservices", "kubernetes", "docker",
+            "team", "lead", "architect", "project", "client", "delivered", "platform", "migration",
+            "university", "degree", "bachelor", "skills", "technical", "programming", "postgresql",
+            "hobbies", "cycling", "chess", "reading", "travel", "contact", "email", "linkedin", "github",
+            "agile", "scrum", "testing", "junit", "mockito", "maven", "gradle", "cloud", "gcp", "aws",
+            "the", "and", "with", "for", "in", "of", "a", "on", "responsible", "designed", "built"
+    };
+
+    private SyntheticData() {
+    }
+
+    public static List<TimesheetRecord> timesheets(int rows, long seed) {
+        Random random = new Random(seed);
+        List<TimesheetRecord> records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String[] assignment = ASSIGNMENTS[random.nextInt(ASSIGNMENTS.length)];
+            String monthYear = MONTHS[i % 12] + " " + (2015 + (i / 12) % 11);
+            records.add(new TimesheetRecord((long) i, monthYear, assignment[0], assignment[1],
+                    8 + random.nextInt(160), null, null));
+        }
+        return records;
+    }
+
+    public static List<TimesheetRow> timesheetRows(int rows, long seed) {
+        return timesheets(rows, seed).stream()
+                .map(record -> new TimesheetRow(record.getId(), record.getMonthYear(), record.getAssignmentName(),
+                        record.getTypecode(), record.getHours()))
+                .toList();
+    }
+
+    /**
+     * Write an hour sheet CSV of about the given size: BOM, header, CRLF line endings, some quoted
+     * assignment names and one invalid row per thousand
+     */
+    public static void timesheetCsv(Path file, long bytes, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("\uFEFFMonth Year;Assignment Name;Typecode;Hours\r\n");
+            long written = 0;
+            for (long i = 0; written < bytes; i++) {
+                String[] assignment = ASSIGNMENTS[random.nextInt(ASSIGNMENTS.length)];
+                String name = random.nextInt(10) == 0 ? "\"" + assignment[0] + "; \"\"team\"\"\"" : assignment[0];
+                String hours = i % 1000 == 999 ? "n/a" : Integer.toString(8 + random.nextInt(160));
+                String line = MONTHS[(int) (i % 12)] + " " + (2015 + (i / 12) % 11) + ";" + name + ";" + assignment[1] + ";" + hours + "\r\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+    }
+
+    public static String cvText(int chars, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(chars + 32);
+        int sentenceLength = 0;
+        while (text.length() < chars) {
+            String word = CV_WORDS[random.nextInt(CV_WORDS.length)];
+            if (sentenceLength == 0) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                text.append(word);
+            }
+            if (++sentenceLength > 8 + random.nextInt(10)) {
+                text.append(".\n");
+                sentenceLength = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+}
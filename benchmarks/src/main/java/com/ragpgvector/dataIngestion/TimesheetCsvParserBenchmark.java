@@ -0,0 +1,100 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.benchmarks.SyntheticData;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hour sheet parsing throughput on multi-GB files, streaming parser against the former
+ * BufferedReader + String.split(";") approach. The "bytes" counter is the throughput in bytes/s.
+ * The file is generated once per trial in java.io.tmpdir, which needs room for the largest size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class TimesheetCsvParserBenchmark {
+
+    @Param({"256", "2048", "4096"})
+    public int megabytes;
+
+    private Path file;
+    private long size;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Throughput {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("hoursheets-" + megabytes + "mb-", ".csv");
+        SyntheticData.timesheetCsv(file, megabytes * 1024L * 1024L, 42L);
+        size = Files.size(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TimesheetCsvParser.Result streamingParser(Throughput throughput, Blackhole blackhole) throws IOException {
+        TimesheetCsvParser parser = new TimesheetCsvParser(1000, blackhole::consume,
+                (line, reason, record) -> blackhole.consume(line));
+        TimesheetCsvParser.Result result = parser.parse(file);
+        throughput.bytes += size;
+        return result;
+    }
+
+    @Benchmark
+    public long splitBaseline(Throughput throughput, Blackhole blackhole) throws IOException {
+        long parsed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length != 4) {
+                    continue;
+                }
+                try {
+                    blackhole.consume(new Object[] {parts[0].trim(), parts[1].trim(), parts[2].trim(), Integer.parseInt(parts[3].trim())});
+                    parsed++;
+                } catch (NumberFormatException e) {
+                    blackhole.consume(e);
+                }
+            }
+        }
+        throughput.bytes += size;
+        return parsed;
+    }
+}
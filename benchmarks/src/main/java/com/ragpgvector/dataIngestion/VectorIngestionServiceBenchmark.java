@@ -0,0 +1,56 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.benchmarks.SyntheticData;
+import com.ragpgvector.config.CvMetadataProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CV metadata tagging per page/chunk, which runs for every document before embedding
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorIngestionServiceBenchmark {
+
+    @Param({"2000", "20000", "200000"})
+    public int documentChars;
+
+    private VectorIngestionService service;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        // The tagging methods do not touch the vector store
+        service = new VectorIngestionService(null, null, null, null, null, null, null, new CvMetadataProperties());
+        content = SyntheticData.cvText(documentChars, 7L);
+    }
+
+    @Benchmark
+    public Map<String, Object> extractCvMetadata() {
+        Map<String, Object> metadata = new HashMap<>();
+        service.extractCvMetadata(content, metadata);
+        return metadata;
+    }
+
+    @Benchmark
+    public String determineCvChunkType() {
+        return service.determineCvChunkType(content);
+    }
+}
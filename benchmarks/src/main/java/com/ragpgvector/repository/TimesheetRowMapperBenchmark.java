@@ -0,0 +1,78 @@
+package com.ragpgvector.repository;
+
+import com.ragpgvector.benchmarks.SyntheticData;
+import com.ragpgvector.model.TimesheetRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost of TimesheetRepository over an in-memory result set with the columns it selects
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimesheetRowMapperBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private CachedRowSet resultSet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        resultSet = RowSetProvider.newFactory().createCachedRowSet();
+
+        String[] columns = {"id", "month_year", "assignment_name", "typecode", "hours"};
+        int[] types = {Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            metaData.setColumnName(i + 1, columns[i]);
+            metaData.setColumnType(i + 1, types[i]);
+        }
+        resultSet.setMetaData(metaData);
+
+        List<TimesheetRecord> records = SyntheticData.timesheets(rows, 42L);
+        for (TimesheetRecord record : records) {
+            resultSet.moveToInsertRow();
+            resultSet.updateLong(1, record.getId());
+            resultSet.updateString(2, record.getMonthYear());
+            resultSet.updateString(3, record.getAssignmentName());
+            resultSet.updateString(4, record.getTypecode());
+            resultSet.updateInt(5, record.getHours());
+            resultSet.insertRow();
+        }
+        resultSet.moveToCurrentRow();
+    }
+
+    // The streamed queries map immutable rows by column position
+    @Benchmark
+    public void streamAllRows(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(TimesheetRepository.toTimesheetRow(resultSet));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ragpgvector.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragpgvector.benchmarks.SyntheticData;
+import com.ragpgvector.config.CvResponseProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fitting CV chunks into the response budget and writing them as JSON, the post-processing
+ * stage of the CV tools
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CvResponseBuilderBenchmark {
+
+    // searchCVInformation and getCVSummary
+    @Param({"6", "20"})
+    public int chunks;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CvResponseBuilder builder;
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        builder = new CvResponseBuilder(new CvResponseProperties());
+        documents = new ArrayList<>();
+        String previous = "";
+        for (int i = 0; i < chunks; i++) {
+            // About 800 tokens per chunk, starting with the end of the previous one
+            String text = previous.substring(Math.max(0, previous.length() - 300)) + SyntheticData.cvText(3000, i);
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source_file", "BENCHMARK-CV.pdf");
+            metadata.put("chunk_index", i);
+            metadata.put("chunk_type", i % 2 == 0 ? "experience" : "skills");
+            metadata.put("distance", 0.2 + 0.02 * i);
+            documents.add(Document.builder().id("chunk-" + i).text(text).metadata(metadata).build());
+            previous = text;
+        }
+    }
+
+    @Benchmark
+    public byte[] searchResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(builder.forSearch(documents));
+    }
+
+    @Benchmark
+    public byte[] summaryResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(builder.forSummary(documents).byType());
+    }
+}
@@ -0,0 +1,66 @@
+package com.ragpgvector.service;
+
+import com.ragpgvector.benchmarks.SyntheticData;
+import com.ragpgvector.dataIngestion.TimesheetDictionary;
+import com.ragpgvector.model.TimesheetRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query parsing and response shaping of the timesheet MCP tools, without the database round trip
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelationalHoursMcpServiceBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private RelationalHoursMcpService service;
+    private List<TimesheetRow> records;
+
+    @Setup
+    public void setUp() {
+        service = new RelationalHoursMcpService();
+        service.timesheetDictionary = new TimesheetDictionary();
+        service.timesheetDictionary.rebuild(
+                Arrays.stream(SyntheticData.ASSIGNMENTS).map(assignment -> assignment[0]).distinct().toList(),
+                Arrays.stream(SyntheticData.ASSIGNMENTS).map(assignment -> assignment[1]).distinct().toList());
+        records = SyntheticData.timesheetRows(rows, 42L);
+    }
+
+    @Benchmark
+    public void parseQuery(Blackhole blackhole) {
+        for (String query : SyntheticData.QUERIES) {
+            blackhole.consume(service.parseQuery(query));
+        }
+    }
+
+    @Benchmark
+    public Object generateSummary() {
+        return service.generateSummary(records, "benchmark");
+    }
+
+    @Benchmark
+    public Object formatResults() {
+        return service.formatResults(records);
+    }
+}
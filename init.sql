@@ -1,5 +1,10 @@
 CREATE EXTENSION IF NOT EXISTS vector;
 
+-- Diagnostics (see /actuator/dbdiagnostics)
+CREATE EXTENSION IF NOT EXISTS pg_stat_statements;
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+CREATE EXTENSION IF NOT EXISTS pg_buffercache;
+
 CREATE TABLE IF NOT EXISTS vector_store (
                                             id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
     content TEXT,
@@ -15,7 +20,9 @@ CREATE TABLE IF NOT EXISTS timesheets (
     typecode VARCHAR(10) NOT NULL,
     hours INTEGER NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    source_file TEXT,          -- hour sheet the row came from, replaced as a whole on re-ingest
+    period DATE                -- first day of month_year; the partition key when ragpgvector.timesheets.partitioning is set
 );
 
 -- Create indexes for better query performance
@@ -23,3 +30,22 @@ CREATE INDEX IF NOT EXISTS idx_timesheets_month_year ON timesheets(month_year);
 CREATE INDEX IF NOT EXISTS idx_timesheets_assignment ON timesheets(assignment_name);
 CREATE INDEX IF NOT EXISTS idx_timesheets_typecode ON timesheets(typecode);
 CREATE INDEX IF NOT EXISTS idx_timesheets_composite ON timesheets(month_year, assignment_name, typecode);
+CREATE INDEX IF NOT EXISTS idx_timesheets_source_file ON timesheets(source_file);
+CREATE INDEX IF NOT EXISTS idx_timesheets_period ON timesheets(period);
+
+-- Streaming replication user for the pgvector-replica service in docker-compose-postgres.yml
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_roles WHERE rolname = 'replicator') THEN
+        CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD 'replicasecret';
+    END IF;
+END $$;
+
+-- The image's pg_hba.conf only admits remote connections to databases, not replication ones; the
+-- entrypoint restarts the server after the init scripts, which loads the new line
+DO $$
+BEGIN
+    EXECUTE format('COPY (SELECT %L) TO PROGRAM %L',
+                   'host replication replicator all scram-sha-256',
+                   'cat >> ' || current_setting('hba_file'));
+END $$;
@@ -0,0 +1,97 @@
+package com.ragpgvector.loadtest;
+
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.HttpClientStreamableHttpTransport;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs closed-loop virtual agents against the MCP server: every agent owns an MCP client
+ * session and issues the next call as soon as the previous one returns.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final ToolMix mix;
+
+    public LoadGenerator(LoadTestSettings settings, String baseUrl) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.mix = new ToolMix(settings.mix());
+    }
+
+    public LoadReport run() throws Exception {
+        Map<String, ToolStats> stats = new LinkedHashMap<>();
+        for (String tool : mix.tools()) {
+            stats.put(tool, new ToolStats(tool, settings.timeout()));
+        }
+
+        List<McpSyncClient> clients = new ArrayList<>();
+        try {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                McpSyncClient client = McpClient.sync(HttpClientStreamableHttpTransport.builder(baseUrl)
+                                .endpoint(settings.endpoint())
+                                .build())
+                        .requestTimeout(settings.timeout())
+                        .build();
+                client.initialize();
+                clients.add(client);
+            }
+            log.info("Initialized {} MCP sessions against {}{}", clients.size(), baseUrl, settings.endpoint());
+
+            long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+            long runEnd = warmupEnd + settings.duration().toNanos();
+
+            ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency());
+            try {
+                List<Future<?>> agents = new ArrayList<>();
+                for (McpSyncClient client : clients) {
+                    agents.add(executor.submit(() -> runAgent(client, stats, warmupEnd, runEnd)));
+                }
+                for (Future<?> agent : agents) {
+                    agent.get();
+                }
+            } finally {
+                executor.shutdownNow();
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.forEach(McpSyncClient::closeGracefully);
+        }
+
+        return new LoadReport(settings, List.copyOf(stats.values()));
+    }
+
+    private void runAgent(McpSyncClient client, Map<String, ToolStats> stats, long warmupEnd, long runEnd) {
+        long now = System.nanoTime();
+        while (now < runEnd) {
+            McpSchema.CallToolRequest request = mix.next();
+            boolean failed;
+            long start = System.nanoTime();
+            try {
+                McpSchema.CallToolResult result = client.callTool(request);
+                failed = Boolean.TRUE.equals(result.isError());
+            } catch (Exception e) {
+                log.debug("Call to {} failed: {}", request.name(), e.getMessage());
+                failed = true;
+            }
+            now = System.nanoTime();
+
+            if (start >= warmupEnd) {
+                stats.get(request.name()).record(now - start, failed);
+            }
+        }
+    }
+}
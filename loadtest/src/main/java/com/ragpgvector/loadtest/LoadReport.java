@@ -0,0 +1,80 @@
+package com.ragpgvector.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percentile and throughput report of a load test run. Writes a summary table and one
+ * HdrHistogram percentile distribution (.hgrm) per tool, which can be plotted with the
+ * HdrHistogram plotter.
+ */
+public class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LoadTestSettings settings;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Long> errors = new LinkedHashMap<>();
+    private final Histogram total;
+
+    public LoadReport(LoadTestSettings settings, List<ToolStats> stats) {
+        this.settings = settings;
+        Histogram combined = null;
+        for (ToolStats toolStats : stats) {
+            Histogram histogram = toolStats.histogram();
+            histograms.put(toolStats.tool(), histogram);
+            errors.put(toolStats.tool(), toolStats.errors());
+            if (combined == null) {
+                combined = new Histogram(histogram.getHighestTrackableValue(), 3);
+            }
+            combined.add(histogram);
+        }
+        this.total = combined;
+    }
+
+    public void print(PrintStream out) {
+        double seconds = settings.duration().toMillis() / 1000.0;
+        out.printf("MCP load test: %d agents, %s warmup, %s measured%n",
+                settings.concurrency(), settings.warmup(), settings.duration());
+        out.printf("%-24s %9s %9s %9s %9s %9s %9s %9s %8s%n",
+                "tool", "calls", "calls/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        histograms.forEach((tool, histogram) -> printRow(out, tool, histogram, errors.get(tool), seconds));
+        long totalErrors = errors.values().stream().mapToLong(Long::longValue).sum();
+        printRow(out, "TOTAL", total, totalErrors, seconds);
+    }
+
+    public void write() throws IOException {
+        Path directory = settings.reportDirectory();
+        Files.createDirectories(directory);
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("summary.txt")))) {
+            print(out);
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    private static void printRow(PrintStream out, String tool, Histogram histogram, long errorCount, double seconds) {
+        long calls = histogram.getTotalCount();
+        out.printf("%-24s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                tool,
+                calls,
+                calls / seconds,
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI,
+                errorCount);
+    }
+}
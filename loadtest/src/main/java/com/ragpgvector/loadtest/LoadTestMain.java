@@ -0,0 +1,27 @@
+package com.ragpgvector.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Entry point of the MCP load test, see {@link LoadTestSettings} for the arguments
+ */
+@Slf4j
+public class LoadTestMain {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        LocalEnvironment environment = settings.startsLocalServer() ? new LocalEnvironment() : null;
+        try {
+            String baseUrl = environment != null ? environment.baseUrl() : settings.target();
+            LoadReport report = new LoadGenerator(settings, baseUrl).run();
+            report.print(System.out);
+            report.write();
+            log.info("Load test report written to {}", settings.reportDirectory().toAbsolutePath());
+        } finally {
+            if (environment != null) {
+                environment.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ragpgvector.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, parsed from key=value program arguments.
+ *
+ * <pre>
+ * target=http://localhost:8085   MCP server to drive; empty starts Postgres + server locally
+ * endpoint=/mcp                  Streamable HTTP endpoint of the server
+ * concurrency=16                 Number of simulated agents, each with its own MCP session
+ * warmup=10s                     Calls made during warmup are not recorded
+ * duration=60s                   Measured run time
+ * mix=searchTimesheetsDB:40,getTimesheetStatistics:10,searchCVInformation:40,getCVSummary:10
+ * timeout=30s                    Per-call request timeout
+ * report=target/loadtest         Directory for the text report and per-tool .hgrm files
+ * </pre>
+ */
+public record LoadTestSettings(
+        String target,
+        String endpoint,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        Map<String, Integer> mix,
+        Duration timeout,
+        Path reportDirectory
+) {
+
+    static final String DEFAULT_MIX =
+            "searchTimesheetsDB:40,getTimesheetStatistics:10,searchCVInformation:40,getCVSummary:10";
+
+    public static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument but got: " + arg);
+            }
+            values.put(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+        }
+
+        LoadTestSettings settings = new LoadTestSettings(
+                values.getOrDefault("target", ""),
+                values.getOrDefault("endpoint", "/mcp"),
+                Integer.parseInt(values.getOrDefault("concurrency", "16")),
+                parseDuration(values.getOrDefault("warmup", "10s")),
+                parseDuration(values.getOrDefault("duration", "60s")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                parseDuration(values.getOrDefault("timeout", "30s")),
+                Path.of(values.getOrDefault("report", "target/loadtest")));
+
+        if (settings.concurrency() < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        return settings;
+    }
+
+    boolean startsLocalServer() {
+        return target == null || target.isBlank();
+    }
+
+    static Duration parseDuration(String value) {
+        String lower = value.toLowerCase();
+        if (lower.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2)));
+        }
+        if (lower.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        }
+        if (lower.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry (expected tool:weight): " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(parts[0].trim(), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Tool mix must contain at least one tool with a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ragpgvector.loadtest;
+
+import com.ragpgvector.MCPRagVectorApplication;
+import com.ragpgvector.dataIngestion.IngestionStatusService;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.IngestionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Disposable Postgres + pgvector container and an in-process MCP server using the offline
+ * embedding model, so a load test needs nothing but Docker.
+ */
+@Slf4j
+public class LocalEnvironment implements AutoCloseable {
+
+    private static final Duration INGESTION_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final DockerImageName PGVECTOR_IMAGE =
+            DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres");
+
+    private final PostgreSQLContainer<?> postgres;
+    private final ConfigurableApplicationContext application;
+
+    public LocalEnvironment() {
+        postgres = new PostgreSQLContainer<>(PGVECTOR_IMAGE)
+                .withDatabaseName("mcp_uren_db")
+                .withUsername("postgres")
+                .withPassword("verysecret");
+        Path initScript = Path.of("..", "init.sql");
+        if (Files.exists(initScript)) {
+            postgres.withCopyFileToContainer(MountableFile.forHostPath(initScript), "/docker-entrypoint-initdb.d/init.sql");
+        }
+        postgres.start();
+        log.info("Started {} at {}", PGVECTOR_IMAGE, postgres.getJdbcUrl());
+
+        application = new SpringApplicationBuilder(MCPRagVectorApplication.class)
+                .profiles("offline")
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "server.port=0",
+                        "spring.main.keep-alive=false")
+                .run();
+
+        awaitIngestion(application.getBean(IngestionStatusService.class));
+    }
+
+    // Ingestion runs in the background; measure against loaded data only
+    private static void awaitIngestion(IngestionStatusService statusService) {
+        Instant deadline = Instant.now().plus(INGESTION_TIMEOUT);
+        for (DatasetSource source : DatasetSource.values()) {
+            while (!statusService.isReady(source)) {
+                IngestionStatus status = statusService.getStatus(source);
+                if (status.phase() == IngestionStatus.Phase.FAILED) {
+                    throw new IllegalStateException(source.getDisplayName() + " ingestion failed: " + status.error());
+                }
+                if (Instant.now().isAfter(deadline)) {
+                    throw new IllegalStateException(source.getDisplayName() + " not ingested within " + INGESTION_TIMEOUT);
+                }
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for ingestion", e);
+                }
+            }
+            log.info("{} ready", source.getDisplayName());
+        }
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        application.close();
+        postgres.stop();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ragpgvector.loadtest;
+
+import io.modelcontextprotocol.spec.McpSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted selection of MCP tool calls with realistic arguments, modelled on what agents send
+ */
+public class ToolMix {
+
+    private static final Map<String, List<Map<String, Object>>> SAMPLE_ARGUMENTS = Map.of(
+            "searchTimesheetsDB", List.of(
+                    Map.of("query", "How many hours for Devops ClientReporting in October 2021?"),
+                    Map.of("query", "standby high hours 2023"),
+                    Map.of("query", "Devops 2022"),
+                    Map.of("query", "STBL december 2021"),
+                    Map.of("query", "hours in March 2024")),
+            "searchCVInformation", List.of(
+                    Map.of("query", "Java experience"),
+                    Map.of("query", "Spring Boot skills"),
+                    Map.of("query", "university education"),
+                    Map.of("query", "hobbies and interests"),
+                    Map.of("query", "Kubernetes and cloud projects"))
+    );
+
+    private final List<String> tools = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    public ToolMix(Map<String, Integer> weights) {
+        cumulativeWeights = new int[weights.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            tools.add(entry.getKey());
+            total += entry.getValue();
+            cumulativeWeights[i++] = total;
+        }
+        totalWeight = total;
+    }
+
+    public List<String> tools() {
+        return tools;
+    }
+
+    public McpSchema.CallToolRequest next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(totalWeight);
+        int index = 0;
+        while (cumulativeWeights[index] <= pick) {
+            index++;
+        }
+        String tool = tools.get(index);
+        List<Map<String, Object>> samples = SAMPLE_ARGUMENTS.getOrDefault(tool, List.of(Map.of()));
+        return new McpSchema.CallToolRequest(tool, samples.get(random.nextInt(samples.size())));
+    }
+}
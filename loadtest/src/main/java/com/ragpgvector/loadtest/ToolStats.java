@@ -0,0 +1,47 @@
+package com.ragpgvector.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and error count for one tool, safe for concurrent recording
+ */
+public class ToolStats {
+
+    private final String tool;
+    private final Recorder recorder;
+    private final long highestTrackableNanos;
+    private final LongAdder errors = new LongAdder();
+
+    public ToolStats(String tool, Duration timeout) {
+        this.tool = tool;
+        // Track up to twice the timeout with 3 significant digits
+        this.highestTrackableNanos = Math.max(timeout.toNanos() * 2, Duration.ofSeconds(1).toNanos());
+        this.recorder = new Recorder(highestTrackableNanos, 3);
+    }
+
+    public void record(long latencyNanos, boolean failed) {
+        recorder.recordValue(Math.min(latencyNanos, highestTrackableNanos));
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String tool() {
+        return tool;
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    /**
+     * Snapshot of everything recorded so far; call once after the run
+     */
+    public Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+}
@@ -0,0 +1,73 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keywords that tag CV pages and chunks with metadata. Keywords match whole words, case-insensitive;
+ * a trailing '*' matches any word starting with it (e.g. "skill*" for skill, skills, skilled).
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.cv-metadata")
+public class CvMetadataProperties {
+
+    /**
+     * Reported in technical_skills when found
+     */
+    private List<String> technicalSkills = List.of("java", "spring", "python", "javascript", "react", "docker",
+            "kubernetes", "microservices", "rest", "api", "sql", "postgresql", "mysql", "mongodb", "git", "jenkins",
+            "maven", "gradle", "junit", "mockito", "hibernate", "angular", "vue", "node.js", "typescript", "aws",
+            "azure", "gcp");
+
+    /**
+     * Reported in hobbies_interests when found
+     */
+    private List<String> hobbies = List.of("reading", "writing", "music", "sports", "running", "cycling",
+            "swimming", "photography", "travel", "cooking", "gaming", "hiking", "painting", "drawing", "dancing",
+            "singing", "yoga", "meditation", "gardening", "fishing", "chess", "basketball", "football", "tennis",
+            "soccer", "volleyball", "climbing");
+
+    /**
+     * Sets has_hobbies_section
+     */
+    private List<String> hobbiesSection = List.of("hobbies", "interests", "personal interests", "leisure");
+
+    /**
+     * Sets experience_level to senior
+     */
+    private List<String> seniorLevel = List.of("senior", "lead", "architect", "years experience", "years of experience");
+
+    /**
+     * Sets experience_level to junior, unless a senior keyword is found as well
+     */
+    private List<String> juniorLevel = List.of("junior", "graduate");
+
+    /**
+     * Sets has_higher_education
+     */
+    private List<String> higherEducation = List.of("university", "bachelor*", "master*", "phd", "degree");
+
+    /**
+     * Sets has_social_profiles
+     */
+    private List<String> socialProfiles = List.of("linkedin", "github");
+
+    /**
+     * Chunk type per keyword list. A chunk gets the first type (in this order) with a keyword in
+     * it, and "general" when none matches.
+     */
+    private Map<String, List<String>> chunkTypes = new LinkedHashMap<>();
+
+    public CvMetadataProperties() {
+        chunkTypes.put("experience", List.of("experience", "work*", "employment", "career"));
+        chunkTypes.put("education", List.of("education", "university", "degree*", "qualification*"));
+        chunkTypes.put("skills", List.of("skill*", "technical", "programming", "technolog*"));
+        chunkTypes.put("projects", List.of("project*", "achievement*", "accomplishment*"));
+        chunkTypes.put("contact", List.of("contact", "email", "phone", "address"));
+        chunkTypes.put("hobbies", List.of("hobbies", "hobby", "interests", "personal interests", "leisure", "activities"));
+    }
+}
@@ -0,0 +1,28 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Size limits of the CV tool responses. Token counts are estimated from the text length
+ * (about 4 characters per token), so the limits are approximate.
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.cv-response")
+public class CvResponseProperties {
+
+    /**
+     * Tokens of CV text returned by searchCVInformation and searchCVFacets
+     */
+    private int searchTokenBudget = 1200;
+
+    /**
+     * Tokens of CV text returned by getCVSummary
+     */
+    private int summaryTokenBudget = 2500;
+
+    /**
+     * A section that would get fewer tokens than this is left out instead of cut short
+     */
+    private int minSectionTokens = 40;
+}
@@ -0,0 +1,41 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the semantic cache of CV similarity searches: a new query reuses the results of an
+ * earlier query whose embedding is close enough and that used the same filter (topK, threshold)
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.cv-search-cache")
+public class CvSearchCacheProperties {
+
+    /**
+     * Cache CV similarity search results
+     */
+    private boolean enabled = true;
+
+    /**
+     * Minimum cosine similarity between the query embeddings for a cache hit
+     */
+    private double similarityThreshold = 0.95;
+
+    /**
+     * Cached queries; the least recently used one is replaced when full
+     */
+    private int maxEntries = 256;
+
+    /**
+     * Results older than this are searched again, even without new CVs
+     */
+    private Duration timeToLive = Duration.ofMinutes(30);
+
+    /**
+     * Fraction of cache hits that also run the search, to measure false hits (results that differ
+     * from what the search would return). A false hit returns and caches the fresh results.
+     */
+    private double verificationRate = 0.05;
+}
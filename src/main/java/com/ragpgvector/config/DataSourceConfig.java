@@ -0,0 +1,110 @@
+package com.ragpgvector.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separate connection pools for writes and reads, so a heavy reload cannot take the connections
+ * the MCP tools need. The primary beans (spring.datasource, pool "write") serve ingestion and
+ * everything else; the "read" beans serve the tool queries of TimesheetRepository and
+ * CvVectorRepository, on replicas when configured (see {@link ReadDataSourceProperties}).
+ */
+@Configuration
+@EnableConfigurationProperties(ReadDataSourceProperties.class)
+public class DataSourceConfig {
+
+    public static final String READ_JDBC_TEMPLATE = "readJdbcTemplate";
+    public static final String READ_TRANSACTION_MANAGER = "readTransactionManager";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    @Primary
+    public JdbcTransactionManager transactionManager(DataSource dataSource) {
+        return new JdbcTransactionManager(dataSource);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadDataSource readDataSource(DataSourceProperties properties, ReadDataSourceProperties readProperties,
+                                         MeterRegistry meterRegistry) {
+        HikariDataSource primary = readPool(properties, readProperties, meterRegistry, "read-primary",
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        List<ReadDataSourceProperties.Replica> configured = readProperties.getConfiguredReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReadDataSourceProperties.Replica replica = configured.get(i);
+            HikariDataSource pool = readPool(properties, readProperties, meterRegistry, "read-replica-" + (i + 1), replica.getUrl(),
+                    replica.getUsername() != null ? replica.getUsername() : properties.determineUsername(),
+                    replica.getPassword() != null ? replica.getPassword() : properties.determinePassword());
+            // A replica that is down should not hold up a tool call, the primary can answer instead
+            pool.setConnectionTimeout(Math.max(250, Math.min(pool.getConnectionTimeout(),
+                    readProperties.getLagCheckInterval().toMillis())));
+            replicas.add(pool);
+        }
+
+        ReadDataSource readDataSource = new ReadDataSource(primary, replicas,
+                readProperties.getMaxReplicationLag(), readProperties.getLagCheckInterval());
+        for (HikariDataSource replica : replicas) {
+            Gauge.builder("ragpgvector.datasource.replication.lag", readDataSource,
+                            dataSource -> dataSource.replicationLag().get(replica.getPoolName()))
+                    .tag("pool", replica.getPoolName())
+                    .baseUnit("seconds")
+                    .description("Replication lag of a read replica, -1 when unreachable")
+                    .register(meterRegistry);
+        }
+        return readDataSource;
+    }
+
+    @Bean(READ_JDBC_TEMPLATE)
+    public JdbcTemplate readJdbcTemplate(@Qualifier("readDataSource") DataSource readDataSource) {
+        return new JdbcTemplate(readDataSource);
+    }
+
+    @Bean(READ_TRANSACTION_MANAGER)
+    public JdbcTransactionManager readTransactionManager(@Qualifier("readDataSource") DataSource readDataSource) {
+        return new JdbcTransactionManager(readDataSource);
+    }
+
+    private static HikariDataSource readPool(DataSourceProperties properties, ReadDataSourceProperties readProperties,
+                                             MeterRegistry meterRegistry, String name, String url, String username, String password) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(readProperties.getMaximumPoolSize());
+        pool.setReadOnly(true);
+        // Not a bean of its own, so the pool metrics are not bound automatically
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+}
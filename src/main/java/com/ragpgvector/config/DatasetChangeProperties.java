@@ -0,0 +1,30 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the dataset change notifications that keep the caches of several server instances
+ * on one database in sync
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.dataset-changes")
+public class DatasetChangeProperties {
+
+    /**
+     * Publish data changes with Postgres NOTIFY and listen for the changes of other instances
+     */
+    private boolean enabled = true;
+
+    /**
+     * Notification channel, a lower case SQL identifier shared by all instances
+     */
+    private String channel = "ragpgvector_dataset_changes";
+
+    /**
+     * Wait before connecting again after the listener connection was lost
+     */
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,36 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the drop directory that is watched for new hour sheets (*.csv) and CVs (*.pdf)
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.drop-directory")
+public class DropDirectoryProperties {
+
+    /**
+     * Watch the drop directory while the server is running
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory to watch, created when missing. Subdirectories are not watched.
+     */
+    private Path path = Path.of("data", "inbox");
+
+    /**
+     * Quiet period after the last change to a file before it is ingested, so files that are still
+     * being copied are not read half written and a burst of files ends up in one batch
+     */
+    private Duration debounce = Duration.ofSeconds(2);
+
+    /**
+     * Maximum number of files ingested in one batch
+     */
+    private int maxBatchSize = 50;
+}
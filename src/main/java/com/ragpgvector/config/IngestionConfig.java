@@ -1,42 +1,60 @@
 package com.ragpgvector.config;
 
-import com.ragpgvector.dataIngestion.VectorIngestionService;
-import com.ragpgvector.dataIngestion.RelationalDataIngestionService;
-import com.ragpgvector.service.DatabaseDiagnosticService;
+import com.ragpgvector.dataIngestion.DatasetChangeBus;
+import com.ragpgvector.dataIngestion.IngestionJob;
+import com.ragpgvector.dataIngestion.IngestionStatusService;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.IngestionStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties({DropDirectoryProperties.class, TimesheetIngestionProperties.class, CvMetadataProperties.class,
+        DatasetChangeProperties.class, IngestionCoordinationProperties.class})
 @Slf4j
 public class IngestionConfig {
 
     @Bean
-    CommandLineRunner runner(VectorIngestionService vectorIngestionService,
-                           RelationalDataIngestionService relationalIngestionService,
-                           DatabaseDiagnosticService diagnosticService) {
+    CommandLineRunner runner(IngestionJob ingestionJob) {
         return args -> {
-            try {
-                // Run database diagnostics first
-               log.info("Running database diagnostics...");
-                diagnosticService.runDiagnostics();
+            // Load the data in the background; tools report "ingestion in progress" until their source is ready
+            log.info("Starting background data ingestion...");
+            ingestionJob.startInBackground();
+        };
+    }
 
-                // Ingest CSV data into relational database
-                log.info("Starting relational data ingestion...");
-                relationalIngestionService.ingestTimesheetData();
-                relationalIngestionService.logDataSummary();
-                log.info("Relational data ingestion completed successfully.");
+    /**
+     * Health of the timesheet data, included in the "timesheets" health group
+     */
+    @Bean
+    HealthIndicator timesheetsIngestionHealthIndicator(IngestionStatusService ingestionStatusService,
+                                                       DatasetChangeBus datasetChangeBus) {
+        return () -> toHealth(ingestionStatusService.getStatus(DatasetSource.TIMESHEETS), datasetChangeBus);
+    }
 
-                // Ingest PDF data into vector database
-                log.info("Starting vector data ingestion...");
-                vectorIngestionService.ingestCvFiles();
-                log.info("Vector data ingestion completed successfully.");
+    /**
+     * Health of the CV data, included in the "cv" health group
+     */
+    @Bean
+    HealthIndicator cvIngestionHealthIndicator(IngestionStatusService ingestionStatusService,
+                                               DatasetChangeBus datasetChangeBus) {
+        return () -> toHealth(ingestionStatusService.getStatus(DatasetSource.CV), datasetChangeBus);
+    }
 
-            } catch (Exception e) {
-                log.error("Fout bij laden data: " + e.getMessage());
-                e.printStackTrace();
-            }
+    // With the dataset version, so clients and caches can tell whether the data changed
+    private static Health toHealth(IngestionStatus status, DatasetChangeBus datasetChangeBus) {
+        Health.Builder builder = switch (status.phase()) {
+            case READY -> Health.up();
+            case FAILED -> Health.down();
+            case PENDING, RUNNING -> Health.outOfService();
         };
+        return builder.withDetails(status.toMap())
+                .withDetail("dataset_version", datasetChangeBus.currentVersion(status.source()))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for coordinating the startup ingestion of several server instances on one database
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.ingestion-coordination")
+public class IngestionCoordinationProperties {
+
+    /**
+     * Let one instance at a time ingest each data source, under a Postgres advisory lock. Other
+     * instances wait for it and skip what it already loaded.
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often a waiting instance checks the lock and the progress of the instance that holds it,
+     * and how often that instance reports its progress
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+}
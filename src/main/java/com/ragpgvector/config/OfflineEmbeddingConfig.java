@@ -0,0 +1,28 @@
+package com.ragpgvector.config;
+
+import com.ragpgvector.embedding.OfflineEmbeddingModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the Vertex AI embedding model with a local, deterministic one.
+ * Activate with --spring.profiles.active=offline to run ingestion, retrieval and
+ * benchmarks without Google credentials or network access.
+ */
+@Configuration
+@Profile("offline")
+@EnableConfigurationProperties(OfflineEmbeddingProperties.class)
+@Slf4j
+public class OfflineEmbeddingConfig {
+
+    @Bean
+    EmbeddingModel offlineEmbeddingModel(OfflineEmbeddingProperties properties) {
+        log.info("Using offline embedding model ({} dimensions, latency {}, jitter {}, failure rate {})",
+                properties.getDimensions(), properties.getLatency(), properties.getJitter(), properties.getFailureRate());
+        return new OfflineEmbeddingModel(properties);
+    }
+}
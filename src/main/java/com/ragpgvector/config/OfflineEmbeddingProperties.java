@@ -0,0 +1,39 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the offline embedding model used by the "offline" profile
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.offline-embedding")
+public class OfflineEmbeddingProperties {
+
+    /**
+     * Vector size, must match spring.ai.vectorstore.pgvector.dimensions
+     */
+    private int dimensions = 768;
+
+    /**
+     * Seed for the feature hashing, change it to get a different (but still stable) vector space
+     */
+    private long seed = 42L;
+
+    /**
+     * Artificial latency added to every embedding call to mimic a remote model
+     */
+    private Duration latency = Duration.ZERO;
+
+    /**
+     * Random extra latency added on top of the fixed latency (uniform 0..jitter)
+     */
+    private Duration jitter = Duration.ZERO;
+
+    /**
+     * Fraction of calls (0.0 - 1.0) that fail with an injected error
+     */
+    private double failureRate = 0.0;
+}
@@ -0,0 +1,52 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latency budgets of the CV tools. The embedding request and the vector search of a call share
+ * its budget; when it runs out, the tool answers from a full-text search instead.
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.query-budget")
+public class QueryBudgetProperties {
+
+    /**
+     * Budget of a tool without its own entry in tools
+     */
+    private Duration defaultBudget = Duration.ofSeconds(3);
+
+    /**
+     * Budget per tool name, e.g. [getCVSummary]: 5s
+     */
+    private Map<String, Duration> tools = new HashMap<>();
+
+    /**
+     * Send a second embedding request when the first takes longer than the recent p95 latency
+     */
+    private boolean hedgeEmbedding = true;
+
+    /**
+     * Never hedge sooner than this, so fast embeddings are not doubled by noise
+     */
+    private Duration minHedgeDelay = Duration.ofMillis(50);
+
+    /**
+     * Answer from a full-text search over the CV chunks when the budget runs out or the embedding
+     * model fails, instead of returning an error
+     */
+    private boolean fullTextFallback = true;
+
+    /**
+     * Time the full-text fallback may take, on top of the exhausted budget
+     */
+    private Duration fallbackTimeout = Duration.ofSeconds(1);
+
+    public Duration budgetFor(String tool) {
+        return tools.getOrDefault(tool, defaultBudget);
+    }
+}
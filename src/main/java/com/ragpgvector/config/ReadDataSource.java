@@ -0,0 +1,172 @@
+package com.ragpgvector.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource for reads: every new connection (or transaction) goes to the next replica, round-robin,
+ * that is reachable and within the maximum replication lag, and to the read pool on the primary
+ * when there is none. The lag of every replica is checked in the background, and a replica that
+ * fails to give a connection is not used until its next successful check.
+ */
+@Slf4j
+public class ReadDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    // Seconds since the last replayed transaction, or 0 when the replica has replayed all WAL it
+    // received (an idle primary writes no transactions, which is not lag)
+    private static final String REPLICATION_LAG_SQL = """
+        SELECT CASE
+                 WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                 ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+               END
+        """;
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = ThreadLocal.withInitial(() -> false);
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxReplicationLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService lagChecker;
+
+    ReadDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools, Duration maxReplicationLag, Duration lagCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxReplicationLag = maxReplicationLag;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.pool.getPoolName(), replica.pool));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+
+        if (replicas.isEmpty()) {
+            lagChecker = null;
+        } else {
+            // Replicas get reads once their first check passed
+            lagChecker = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-lag-check").daemon(true).factory());
+            lagChecker.scheduleWithFixedDelay(this::checkReplicationLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Run work with its reads on the primary, for reads that must see writes just made
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(true);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.set(outer);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || PRIMARY_ONLY.get()) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.healthy) {
+                return replica.pool.getPoolName();
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == primary) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            for (Replica replica : replicas) {
+                if (replica.pool == target && replica.healthy) {
+                    replica.healthy = false;
+                    replica.lagSeconds = -1;
+                    log.warn("Read replica {} is not used: {}", replica.pool.getPoolName(), e.getMessage());
+                }
+            }
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Replication lag in seconds per replica pool, -1 when the replica cannot be reached
+     */
+    public Map<String, Double> replicationLag() {
+        Map<String, Double> lag = new HashMap<>();
+        replicas.forEach(replica -> lag.put(replica.pool.getPoolName(), replica.lagSeconds));
+        return lag;
+    }
+
+    void checkReplicationLag() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(REPLICATION_LAG_SQL)) {
+                rs.next();
+                replica.lagSeconds = rs.getDouble(1);
+                replica.healthy = replica.lagSeconds * 1000 <= maxReplicationLag.toMillis();
+            } catch (SQLException | RuntimeException e) {
+                replica.lagSeconds = -1;
+                replica.healthy = false;
+                log.debug("Replication lag check of {} failed: {}", replica.pool.getPoolName(), e.getMessage());
+            }
+            if (replica.healthy != wasHealthy) {
+                if (replica.healthy) {
+                    log.info("Read replica {} is in use (lag {}s)", replica.pool.getPoolName(), replica.lagSeconds);
+                } else {
+                    log.warn("Read replica {} is not used: {}", replica.pool.getPoolName(),
+                            replica.lagSeconds < 0 ? "unreachable" : "lag " + replica.lagSeconds + "s");
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        volatile boolean healthy;
+        volatile double lagSeconds = -1;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+    }
+}
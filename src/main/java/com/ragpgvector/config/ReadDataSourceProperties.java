@@ -0,0 +1,61 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Connection pools for the MCP tools' reads, separate from the spring.datasource pool used by
+ * ingestion. Reads go to a streaming replica when one is configured and within the allowed
+ * replication lag, otherwise to a read-only pool on the primary.
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.datasource.read")
+public class ReadDataSourceProperties {
+
+    /**
+     * Connections per read pool (the primary read pool and every replica)
+     */
+    private int maximumPoolSize = 10;
+
+    /**
+     * Read replicas, used round-robin. Entries without a url are ignored.
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * A replica further behind the primary than this gets no reads until it catches up
+     */
+    private Duration maxReplicationLag = Duration.ofSeconds(10);
+
+    /**
+     * How often the replication lag of every replica is checked
+     */
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+    public List<Replica> getConfiguredReplicas() {
+        return replicas.stream().filter(replica -> replica.getUrl() != null && !replica.getUrl().isBlank()).toList();
+    }
+
+    @Data
+    public static class Replica {
+
+        /**
+         * JDBC url of the replica
+         */
+        private String url;
+
+        /**
+         * Defaults to spring.datasource.username
+         */
+        private String username;
+
+        /**
+         * Defaults to spring.datasource.password
+         */
+        private String password;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ragpgvector.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Settings of the retrieval path used by the MCP tools
+ */
+@Configuration
+@EnableConfigurationProperties({CvSearchCacheProperties.class, CvResponseProperties.class, QueryBudgetProperties.class})
+public class RetrievalConfig {
+}
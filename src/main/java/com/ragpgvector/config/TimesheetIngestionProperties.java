@@ -0,0 +1,37 @@
+package com.ragpgvector.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hour sheets loaded at startup next to the bundled hoursheets/Hoursheets.csv
+ */
+@Data
+@ConfigurationProperties(prefix = "ragpgvector.timesheets")
+public class TimesheetIngestionProperties {
+
+    /**
+     * Spring resource patterns of extra hour sheets, e.g. file:data/hoursheets/*.csv.
+     * Each file keeps its own rows, so a changed file only replaces what it loaded before.
+     */
+    private List<String> files = new ArrayList<>();
+
+    /**
+     * Hour sheets loaded at the same time, each on its own connection. 0 uses the number of CPU cores.
+     * Always capped by the connection pool size, keeping a few connections free for the MCP tools.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Range partitioning of the timesheets table by period. An existing unpartitioned table is
+     * migrated at startup; going back to NONE keeps the partitioned table.
+     */
+    private Partitioning partitioning = Partitioning.NONE;
+
+    public enum Partitioning {
+        NONE, YEAR, MONTH
+    }
+}
@@ -0,0 +1,152 @@
+package com.ragpgvector.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragpgvector.dataIngestion.IngestionStatusService;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.IngestionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Training run for the Class Data Sharing archive built by the fast-startup Maven profile.
+ * When ragpgvector.training-run.enabled=true the application calls its own MCP endpoint once it
+ * is ready (listing and invoking every tool and prompt, so the archive also holds the classes of
+ * the request path) and then exits, which makes the JVM write the archive.
+ * The switch is read at runtime instead of through a condition, so it also works for an
+ * AOT-processed application whose bean definitions are fixed at build time.
+ */
+@Component
+@Slf4j
+public class TrainingRun {
+
+    private static final List<ToolCall> TOOL_CALLS = List.of(
+            new ToolCall("searchTimesheetsDB", Map.of("query", "hours for Devops ClientReporting in 2021")),
+            new ToolCall("searchTimesheetsDB", Map.of("query", "STBL hours in October 2021")),
+            new ToolCall("queryTimesheets", Map.of("projects", List.of("Devops ClientReporting"), "typecodes", List.of("DEV"),
+                    "from", "January 2021", "to", "March 2021")),
+            new ToolCall("searchTimesheetsBatch", Map.of("criteria", List.of(
+                    Map.of("project", "Devops ClientReporting", "typecode", "DEV", "year", 2021, "fromMonth", "January", "toMonth", "March"),
+                    Map.of("project", "Standby ClientReporting", "year", 2021)), "byMonth", true)),
+            new ToolCall("getTimesheetStatistics", Map.of()),
+            new ToolCall("getProjectInformation", Map.of()),
+            new ToolCall("validateTimesheetQuality", Map.of()),
+            new ToolCall("compareProjectHours", Map.of("from", "January 2021", "to", "December 2021")),
+            new ToolCall("searchCVInformation", Map.of("query", "Java and Spring Boot experience")),
+            new ToolCall("searchCVFacets", Map.of("facets", List.of("skills", "experience", "education"))),
+            new ToolCall("getCVSummary", Map.of())
+    );
+
+    private static final List<ToolCall> PROMPT_CALLS = List.of(
+            new ToolCall("analyze-timesheet-hours-db", Map.of("projectCode", "Devops ClientReporting", "monthYear", "October 2021")),
+            new ToolCall("compare-project-hours-db", Map.of("period", "2021")),
+            new ToolCall("validate-timesheet-quality-db", Map.of()),
+            new ToolCall("analyze-cv-for-role", Map.of("jobTitle", "Java developer", "requiredSkills", "Java, Spring Boot",
+                    "experienceLevel", "senior")),
+            new ToolCall("extract-cv-highlights", Map.of("focusArea", "technical skills"))
+    );
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private IngestionStatusService ingestionStatusService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!environment.getProperty("ragpgvector.training-run.enabled", Boolean.class, false)) {
+            return;
+        }
+
+        int exitCode = 0;
+        try {
+            exercise();
+        } catch (Exception e) {
+            log.error("Training run failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> code));
+    }
+
+    private void exercise() throws Exception {
+        Duration awaitIngestion = environment.getProperty("ragpgvector.training-run.await-ingestion", Duration.class, Duration.ofMinutes(2));
+        int iterations = environment.getProperty("ragpgvector.training-run.iterations", Integer.class, 3);
+        String endpoint = "http://localhost:" + environment.getProperty("local.server.port", "8085") + "/mcp";
+
+        awaitIngestion(awaitIngestion);
+
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < iterations; i++) {
+            post(client, endpoint, "tools/list", Map.of());
+            post(client, endpoint, "prompts/list", Map.of());
+            for (ToolCall call : TOOL_CALLS) {
+                post(client, endpoint, "tools/call", Map.of("name", call.name(), "arguments", call.arguments()));
+            }
+            for (ToolCall call : PROMPT_CALLS) {
+                post(client, endpoint, "prompts/get", Map.of("name", call.name(), "arguments", call.arguments()));
+            }
+        }
+        log.info("Training run completed {} iterations of {} tool calls and {} prompts", iterations, TOOL_CALLS.size(), PROMPT_CALLS.size());
+    }
+
+    private void awaitIngestion(Duration timeout) throws InterruptedException {
+        Instant deadline = Instant.now().plus(timeout);
+        for (DatasetSource source : DatasetSource.values()) {
+            while (ingestionStatusService.getStatus(source).phase() != IngestionStatus.Phase.READY
+                    && ingestionStatusService.getStatus(source).phase() != IngestionStatus.Phase.FAILED
+                    && Instant.now().isBefore(deadline)) {
+                Thread.sleep(200);
+            }
+            if (!ingestionStatusService.isReady(source)) {
+                // Still useful: the tools answer "ingestion in progress" through the same request path
+                log.warn("{} not ready for the training run: {}", source.getDisplayName(), ingestionStatusService.getStatus(source).phase());
+            }
+        }
+    }
+
+    private void post(HttpClient client, String endpoint, String method, Map<String, Object> params) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of("jsonrpc", "2.0", "id", 1, "method", method, "params", params));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(endpoint))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(method + " returned HTTP " + response.statusCode() + ": " + response.body());
+        }
+        // An unknown tool or prompt, or invalid arguments, would leave its classes out of the archive
+        JsonNode error = objectMapper.readTree(response.body()).get("error");
+        if (error != null) {
+            throw new IllegalStateException(method + " " + params.get("name") + " failed: " + error);
+        }
+    }
+
+    // A tool or prompt with its arguments
+    private record ToolCall(String name, Map<String, Object> arguments) {
+    }
+}
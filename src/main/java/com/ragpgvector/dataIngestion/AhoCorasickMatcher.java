@@ -0,0 +1,196 @@
+package com.ragpgvector.dataIngestion;
+
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Predicate;
+
+/**
+ * Aho-Corasick automaton over a fixed set of keywords: finds every keyword occurring in a text
+ * in one pass, however many keywords there are. Matching is case-insensitive, any run of
+ * whitespace in the text matches a single space in a keyword, and only whole words are reported.
+ * A keyword ending in '*' matches as a word prefix ("skill*" matches "skills").
+ * <p>
+ * The automaton is compiled into a transition table over the characters that occur in the
+ * keywords, so scanning costs one array lookup per character.
+ */
+class AhoCorasickMatcher<T> {
+
+    private static final char PREFIX_WILDCARD = '*';
+
+    // Character class per ASCII character; 0 is every character that occurs in no keyword
+    private final int[] asciiClasses = new int[128];
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+    private final int alphabetSize;
+    private final int[] transitions;
+    private final Keyword<T>[][] outputs;
+    private final int startsMask;
+
+    @SuppressWarnings("unchecked")
+    AhoCorasickMatcher(Map<String, T> keywords) {
+        List<TrieNode<T>> nodes = new ArrayList<>();
+        TrieNode<T> root = new TrieNode<>(0);
+        nodes.add(root);
+        int alphabet = 1;
+        int longest = 0;
+
+        for (Map.Entry<String, T> entry : keywords.entrySet()) {
+            String keyword = normalize(entry.getKey());
+            boolean prefix = keyword.endsWith(String.valueOf(PREFIX_WILDCARD));
+            if (prefix) {
+                keyword = keyword.substring(0, keyword.length() - 1);
+            }
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            TrieNode<T> node = root;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (classOf(c) == 0) {
+                    if (c < 128) {
+                        asciiClasses[c] = alphabet++;
+                    } else {
+                        otherClasses.put(c, alphabet++);
+                    }
+                }
+                node = node.next.computeIfAbsent(classOf(c), k -> {
+                    TrieNode<T> child = new TrieNode<>(nodes.size());
+                    nodes.add(child);
+                    return child;
+                });
+            }
+            node.outputs.add(new Keyword<>(keyword.length(), prefix, entry.getValue()));
+            longest = Math.max(longest, keyword.length());
+        }
+
+        alphabetSize = alphabet;
+        startsMask = Integer.highestOneBit(Math.max(1, longest)) * 2 - 1;
+        transitions = new int[nodes.size() * alphabetSize];
+        outputs = newArray(Keyword[].class, nodes.size());
+
+        // Breadth-first, so the failure target of a node (always shallower) is complete before the
+        // node itself; a node inherits the outputs of its failure target, the keywords that are
+        // suffixes of its path
+        Queue<TrieNode<T>> queue = new ArrayDeque<>();
+        root.failure = root;
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            TrieNode<T> node = queue.remove();
+            if (node != root) {
+                node.outputs.addAll(node.failure.outputs);
+            }
+            outputs[node.id] = node.outputs.toArray(newArray(Keyword.class, 0));
+            for (int c = 0; c < alphabetSize; c++) {
+                TrieNode<T> child = c == 0 ? null : node.next.get(c);
+                if (child != null) {
+                    child.failure = node == root ? root : nodes.get(transitions[node.failure.id * alphabetSize + c]);
+                    transitions[node.id * alphabetSize + c] = child.id;
+                    queue.add(child);
+                } else {
+                    transitions[node.id * alphabetSize + c] = node == root ? root.id : transitions[node.failure.id * alphabetSize + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Lowercase and collapse every run of whitespace into a single space, as the text is read
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Report the value of every whole-word keyword occurrence in the text, until the consumer
+     * returns false
+     */
+    void match(CharSequence text, Predicate<T> consumer) {
+        // Text offsets of the last characters fed to the automaton (a power of two longer than
+        // the longest keyword), to find where a match started
+        int[] starts = new int[startsMask + 1];
+        int fed = 0;
+        int state = 0;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 128) {
+                if (c <= ' ' && Character.isWhitespace(c)) {
+                    // A whitespace run is one space
+                    if (i + 1 < length && Character.isWhitespace(text.charAt(i + 1))) {
+                        continue;
+                    }
+                    c = ' ';
+                } else if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (i + 1 < length && Character.isWhitespace(text.charAt(i + 1))) {
+                    continue;
+                }
+                c = ' ';
+            } else {
+                c = Character.toLowerCase(c);
+            }
+
+            starts[fed++ & startsMask] = i;
+            state = transitions[state * alphabetSize + classOf(c)];
+
+            for (Keyword<T> keyword : outputs[state]) {
+                int start = starts[(fed - keyword.length()) & startsMask];
+                if (isBoundary(text, start - 1) && (keyword.prefix() || isBoundary(text, i + 1))
+                        && !consumer.test(keyword.value())) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int classOf(char c) {
+        return c < 128 ? asciiClasses[c] : otherClasses.getOrDefault(c, 0);
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    private static final class TrieNode<T> {
+        final int id;
+        final Map<Integer, TrieNode<T>> next = new HashMap<>();
+        final List<Keyword<T>> outputs = new ArrayList<>(1);
+        TrieNode<T> failure;
+
+        TrieNode(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Generic arrays cannot be created directly; the component type is only erased to the record class
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newArray(Class<?> componentType, int length) {
+        return (E[]) Array.newInstance(componentType, length);
+    }
+
+    private record Keyword<T>(int length, boolean prefix, T value) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.config.DatasetChangeProperties;
+import com.ragpgvector.model.DatasetChangedEvent;
+import com.ragpgvector.model.DatasetSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Cache invalidation between server instances on one database, with Postgres LISTEN/NOTIFY.
+ * Every data change bumps the version of its source in the dataset_versions table and notifies
+ * the channel with "source:version". Each instance listens on its own connection to the primary
+ * and publishes a {@link DatasetChangedEvent} for every newer version it did not make itself.
+ * Notifications sent while the listener was disconnected are lost, so after a reconnect the
+ * versions table is read to catch up.
+ * <p>
+ * The versions are kept even when notifications are disabled: they identify the data a tool
+ * response was built from, so callers can skip downloading a response they already have.
+ */
+@Component
+@Slf4j
+public class DatasetChangeBus implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    // How often the listener thread wakes up to check whether it should stop
+    private static final int POLL_MILLIS = 1000;
+
+    private static final String CREATE_TABLE_SQL = """
+        CREATE TABLE IF NOT EXISTS dataset_versions (
+            source VARCHAR(32) PRIMARY KEY,
+            version BIGINT NOT NULL,
+            updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+        )
+        """;
+
+    private static final String BUMP_VERSION_SQL = """
+        INSERT INTO dataset_versions (source, version) VALUES (?, 1)
+        ON CONFLICT (source) DO UPDATE SET version = dataset_versions.version + 1, updated_at = CURRENT_TIMESTAMP
+        RETURNING version
+        """;
+
+    private static final String BUMP_AND_NOTIFY_SQL = """
+        WITH bumped AS (
+            INSERT INTO dataset_versions (source, version) VALUES (?, 1)
+            ON CONFLICT (source) DO UPDATE SET version = dataset_versions.version + 1, updated_at = CURRENT_TIMESTAMP
+            RETURNING version
+        )
+        SELECT version, pg_notify(?, ? || ':' || version) FROM bumped
+        """;
+
+    private static final String SELECT_VERSION_SQL = "SELECT version FROM dataset_versions WHERE source = ?";
+
+    private final DatasetChangeProperties properties;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    // Latest version per source this instance knows about, made here or received
+    private final Map<DatasetSource, AtomicLong> versions = new EnumMap<>(DatasetSource.class);
+
+    private volatile boolean running;
+
+    // Whether the listener is connected, so the local versions are current
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    public DatasetChangeBus(DatasetChangeProperties properties,
+                            DataSourceProperties dataSourceProperties,
+                            JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        for (DatasetSource source : DatasetSource.values()) {
+            versions.put(source, new AtomicLong());
+        }
+    }
+
+    /**
+     * Record that the data of a source changed: bumps its version and tells the other instances.
+     * Call after the change committed; a failure is logged, as the change itself succeeded.
+     */
+    public void publish(DatasetSource source) {
+        try {
+            Long version = properties.isEnabled()
+                    ? jdbcTemplate.queryForObject(BUMP_AND_NOTIFY_SQL, (rs, rowNum) -> rs.getLong(1),
+                            source.getId(), properties.getChannel(), source.getId())
+                    : jdbcTemplate.queryForObject(BUMP_VERSION_SQL, Long.class, source.getId());
+            if (version != null) {
+                advance(source, version);
+                count(source, "local");
+                log.debug("Published {} version {}", source.getId(), version);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not publish {} change to other instances: {}", source.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Version of the data of a source, increased by every change on any instance (0 before the
+     * first). While the listener is not connected, or notifications are disabled, the versions
+     * table is read, so a change made elsewhere is never missed.
+     */
+    public long currentVersion(DatasetSource source) {
+        long known = versions.get(source).get();
+        if (listening) {
+            return known;
+        }
+        try {
+            // Not stored locally: the listener still has to publish the event when it catches up
+            List<Long> stored = jdbcTemplate.queryForList(SELECT_VERSION_SQL, Long.class, source.getId());
+            return stored.isEmpty() ? known : Math.max(known, stored.getFirst());
+        } catch (DataAccessException e) {
+            log.debug("Could not read the {} version: {}", source.getId(), e.getMessage());
+            return known;
+        }
+    }
+
+    @Override
+    public void start() {
+        if (properties.isEnabled() && !CHANNEL_NAME.matcher(properties.getChannel()).matches()) {
+            throw new IllegalStateException("Invalid dataset change channel: " + properties.getChannel());
+        }
+        try {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+        } catch (DataAccessException e) {
+            // Created by the listener or the first change once the database is reachable
+            log.warn("Could not create dataset_versions table: {}", e.getMessage());
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform().name("dataset-change-listener").daemon(true).start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean firstConnection = true;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_TABLE_SQL);
+                    statement.execute("LISTEN " + properties.getChannel());
+                }
+                // At startup the caches are empty, only changes made since matter
+                catchUp(connection, !firstConnection);
+                firstConnection = false;
+                listening = true;
+                log.info("Listening for dataset changes of other instances on channel {}", properties.getChannel());
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                listening = false;
+                if (running) {
+                    log.warn("Dataset change listener disconnected, reconnecting in {}: {}",
+                            properties.getReconnectDelay(), e.getMessage());
+                    sleep();
+                }
+            }
+        }
+        listening = false;
+        log.info("Stopped listening for dataset changes");
+    }
+
+    private void catchUp(Connection connection, boolean notify) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT source, version FROM dataset_versions")) {
+            while (rs.next()) {
+                String source = rs.getString(1);
+                long version = rs.getLong(2);
+                DatasetSource.fromId(source).ifPresent(datasetSource -> {
+                    if (advance(datasetSource, version) && notify) {
+                        changed(datasetSource, version);
+                    }
+                });
+            }
+        }
+    }
+
+    // Payload "source:version"; versions this instance made or already saw are ignored
+    private void receive(String payload) {
+        String[] parts = payload.split(":", 2);
+        DatasetSource source = DatasetSource.fromId(parts[0]).orElse(null);
+        if (source == null || parts.length < 2 || !parts[1].matches("\\d{1,18}")) {
+            log.debug("Ignoring dataset change notification '{}'", payload);
+            return;
+        }
+        long version = Long.parseLong(parts[1]);
+        if (advance(source, version)) {
+            changed(source, version);
+        }
+    }
+
+    private void changed(DatasetSource source, long version) {
+        log.info("{} changed on another instance (version {}), clearing local caches", source.getDisplayName(), version);
+        count(source, "remote");
+        try {
+            eventPublisher.publishEvent(new DatasetChangedEvent(source, version));
+        } catch (RuntimeException e) {
+            log.warn("Could not apply {} change: {}", source.getId(), e.getMessage(), e);
+        }
+    }
+
+    private boolean advance(DatasetSource source, long version) {
+        return versions.get(source).getAndAccumulate(version, Math::max) < version;
+    }
+
+    private void count(DatasetSource source, String origin) {
+        meterRegistry.counter("ragpgvector.dataset.changes", "source", source.getId(), "origin", origin).increment();
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(properties.getReconnectDelay().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ragpgvector.dataIngestion;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+
+/**
+ * Collects the rejected records of one ingested file in
+ * {@code <directory>/<file>.<hash>.<timestamp>.rejected.csv} (line;reason;record),
+ * where the hash is taken from the full source location so equally named files from different
+ * directories do not overwrite each other. The file is only created once the first record is rejected.
+ */
+@Slf4j
+public class DeadLetterFile implements TimesheetCsvParser.RejectHandler, Closeable {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String sourceName;
+    private Path path;
+    private BufferedWriter writer;
+    private long count;
+
+    public DeadLetterFile(Path directory, String sourceFile) {
+        this.directory = directory;
+        this.sourceName = fileName(sourceFile) + "." + shortHash(sourceFile);
+    }
+
+    @Override
+    public void reject(long lineNumber, String reason, String record) {
+        try {
+            if (writer == null) {
+                Files.createDirectories(directory);
+                createFile();
+                writer.write("Line;Reason;Record");
+                writer.newLine();
+            }
+            writer.write(lineNumber + ";" + quote(reason) + ";" + quote(record));
+            writer.newLine();
+            count++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write dead-letter file for " + sourceName, e);
+        }
+        log.debug("Rejected line {} of {}: {}", lineNumber, sourceName, reason);
+    }
+
+    /**
+     * Number of rejected records written
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The dead-letter file, or null when nothing was rejected
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a new dead-letter file, never reusing one written by an earlier or concurrent load
+     */
+    private void createFile() throws IOException {
+        String base = sourceName + "." + LocalDateTime.now().format(TIMESTAMP);
+        for (int attempt = 0; ; attempt++) {
+            Path candidate = directory.resolve(base + (attempt == 0 ? "" : "-" + attempt) + ".rejected.csv");
+            try {
+                writer = Files.newBufferedWriter(candidate, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                path = candidate;
+                return;
+            } catch (FileAlreadyExistsException e) {
+                log.debug("Dead-letter file {} already exists", candidate);
+            }
+        }
+    }
+
+    /**
+     * classpath:hoursheets/Hoursheets.csv, /data/teamA/hours.csv or C:\data\hours.csv -> the bare file name
+     */
+    static String fileName(String sourceFile) {
+        String location = sourceFile.replace('\\', '/');
+        int scheme = location.indexOf(':');
+        // Strip a URL scheme such as classpath: or file:, but not a single-letter drive
+        if (scheme > 1 && location.lastIndexOf('/', scheme) < 0) {
+            location = location.substring(scheme + 1);
+        }
+        Path fileName = Path.of(location).getFileName();
+        return fileName == null ? "source" : fileName.toString();
+    }
+
+    private static String shortHash(String sourceFile) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(sourceFile.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,236 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.config.DropDirectoryProperties;
+import com.ragpgvector.model.DatasetSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the drop directory and ingests new or changed hour sheets and CVs while the server
+ * keeps serving. Events are debounced per file; all files that have been quiet for the debounce
+ * period are ingested as one batch (CSV files first, then the PDFs with one embedding run).
+ * Every file replaces its own earlier rows or chunks in a single transaction.
+ * <p>
+ * Batches run under the same per-source lock as the startup ingestion, so instances that watch a
+ * shared directory load a file one after the other instead of replacing its rows concurrently
+ * (which would leave both copies). An instance that finds the same batch already loaded by another
+ * one skips it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "ragpgvector.drop-directory", name = "enabled", havingValue = "true")
+@Slf4j
+public class DropDirectoryWatcher implements SmartLifecycle {
+
+    private final DropDirectoryProperties properties;
+    private final RelationalDataIngestionService relationalIngestionService;
+    private final VectorIngestionService vectorIngestionService;
+    private final IngestionCoordinator ingestionCoordinator;
+
+    // File -> time of its last change event (System.nanoTime), only touched by the watcher thread
+    private final Map<Path, Long> pendingFiles = new HashMap<>();
+
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public DropDirectoryWatcher(DropDirectoryProperties properties,
+                                RelationalDataIngestionService relationalIngestionService,
+                                VectorIngestionService vectorIngestionService,
+                                IngestionCoordinator ingestionCoordinator) {
+        this.properties = properties;
+        this.relationalIngestionService = relationalIngestionService;
+        this.vectorIngestionService = vectorIngestionService;
+        this.ingestionCoordinator = ingestionCoordinator;
+    }
+
+    @Override
+    public void start() {
+        Path directory = properties.getPath().toAbsolutePath();
+        try {
+            Files.createDirectories(directory);
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not watch drop directory " + directory, e);
+        }
+
+        running = true;
+        watcherThread = Thread.ofPlatform().name("drop-directory-watcher").daemon(true).start(() -> watch(directory));
+        log.info("Watching drop directory {} for *.csv and *.pdf files", directory);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Could not close drop directory watcher: {}", e.getMessage());
+        }
+        watcherThread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void watch(Path directory) {
+        // Files dropped while the server was down; unchanged ones are skipped or replaced by themselves
+        scan(directory);
+
+        long pollMillis = Math.max(100, properties.getDebounce().toMillis() / 2);
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scan(directory);
+                        } else {
+                            markChanged(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                ingestQuietFiles();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                // Keep watching, the failed files are logged by ingestBatch
+                log.error("Drop directory watcher error: {}", e.getMessage(), e);
+            }
+        }
+        log.info("Stopped watching drop directory {}", directory);
+    }
+
+    private void scan(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            files.forEach(this::markChanged);
+        } catch (IOException e) {
+            log.warn("Could not scan drop directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void markChanged(Path file) {
+        if (isCsv(file) || isPdf(file)) {
+            pendingFiles.put(file, System.nanoTime());
+        }
+    }
+
+    private void ingestQuietFiles() {
+        long quietSince = System.nanoTime() - properties.getDebounce().toNanos();
+        List<Path> batch = new ArrayList<>();
+
+        Iterator<Map.Entry<Path, Long>> pending = pendingFiles.entrySet().iterator();
+        while (pending.hasNext() && batch.size() < properties.getMaxBatchSize()) {
+            Map.Entry<Path, Long> entry = pending.next();
+            if (entry.getValue() <= quietSince) {
+                pending.remove();
+                if (Files.isRegularFile(entry.getKey())) {
+                    batch.add(entry.getKey());
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            ingestBatch(batch);
+        }
+    }
+
+    private void ingestBatch(List<Path> batch) {
+        long started = System.nanoTime();
+        List<Path> pdfFiles = new ArrayList<>();
+        int ingested = 0;
+        int failed = 0;
+
+        List<Path> csvFiles = new ArrayList<>();
+        for (Path file : batch) {
+            (isPdf(file) ? pdfFiles : csvFiles).add(file);
+        }
+
+        if (!csvFiles.isEmpty()) {
+            try {
+                if (ingestionCoordinator.ingestUpdate(DatasetSource.TIMESHEETS, () -> fingerprint(csvFiles),
+                        () -> relationalIngestionService.ingestTimesheetFiles(csvFiles))) {
+                    ingested += csvFiles.size();
+                }
+            } catch (Exception e) {
+                log.error("Failed to ingest hour sheets {}: {}", csvFiles, e.getMessage(), e);
+                failed += csvFiles.size();
+            }
+        }
+
+        if (!pdfFiles.isEmpty()) {
+            try {
+                int[] embedded = {0};
+                ingestionCoordinator.ingestUpdate(DatasetSource.CV, () -> fingerprint(pdfFiles),
+                        () -> embedded[0] = vectorIngestionService.ingestCvFiles(pdfFiles));
+                ingested += embedded[0];
+            } catch (Exception e) {
+                log.error("Failed to ingest CV files {}: {}", pdfFiles, e.getMessage(), e);
+                failed += pdfFiles.size();
+            }
+        }
+
+        log.info("Drop directory batch of {} files done in {} ms: {} ingested, {} failed, {} unchanged",
+                batch.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                ingested, failed, batch.size() - ingested - failed);
+    }
+
+    /**
+     * SHA-256 of the names and contents of a batch. Names without the directory, which may be
+     * mounted at another path on other instances.
+     */
+    private static String fingerprint(List<Path> files) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (Path file : files.stream().sorted(Comparator.comparing(Path::getFileName)).toList()) {
+            digest.update(file.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static boolean isCsv(Path file) {
+        return hasExtension(file, ".csv");
+    }
+
+    private static boolean isPdf(Path file) {
+        return hasExtension(file, ".pdf");
+    }
+
+    private static boolean hasExtension(Path file, String extension) {
+        String name = file.getFileName().toString();
+        // Skip hidden and editor lock files like .~lock.hours.csv#
+        return !name.startsWith(".") && !name.startsWith("~") && name.toLowerCase(Locale.ROOT).endsWith(extension);
+    }
+}
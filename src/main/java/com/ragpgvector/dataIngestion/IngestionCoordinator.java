@@ -0,0 +1,269 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.config.IngestionCoordinationProperties;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.IngestionStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets one server instance at a time ingest a data source when several share a database. The
+ * instance that gets the source's Postgres advisory lock ingests it and reports its progress in
+ * the ingestion_status table; the others wait for the lock and show that progress in their own
+ * status. When the lock holder loaded the same inputs (same fingerprint), a waiting instance skips
+ * the ingestion, so a rolling deploy does not load everything again. Startup loads and updates
+ * such as drop directory batches keep their fingerprints apart, so a batch does not make the next
+ * instance load the startup files again. The lock is held by a dedicated connection, so an
+ * instance that dies releases it and the next one takes over.
+ */
+@Component
+@Slf4j
+public class IngestionCoordinator {
+
+    private static final String CREATE_TABLE_SQL = """
+        CREATE TABLE IF NOT EXISTS ingestion_status (
+            source VARCHAR(32) PRIMARY KEY,
+            phase VARCHAR(16) NOT NULL,
+            processed BIGINT NOT NULL DEFAULT 0,
+            total BIGINT NOT NULL DEFAULT 0,
+            message TEXT,
+            error TEXT,
+            fingerprint VARCHAR(64),
+            update_fingerprint VARCHAR(64),
+            instance VARCHAR(255),
+            updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+        )
+        """;
+
+    // Tables created before updates had their own fingerprint
+    private static final String ADD_UPDATE_FINGERPRINT_SQL =
+            "ALTER TABLE ingestion_status ADD COLUMN IF NOT EXISTS update_fingerprint VARCHAR(64)";
+
+    // %s is the fingerprint column of the run; the other one is left as it is
+    private static final String UPSERT_STATUS_SQL = """
+        INSERT INTO ingestion_status (source, phase, processed, total, message, error, %1$s, instance, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (source) DO UPDATE SET phase = EXCLUDED.phase, processed = EXCLUDED.processed,
+            total = EXCLUDED.total, message = EXCLUDED.message, error = EXCLUDED.error,
+            %1$s = EXCLUDED.%1$s, instance = EXCLUDED.instance, updated_at = CURRENT_TIMESTAMP
+        """;
+
+    private static final String SELECT_STATUS_SQL = """
+        SELECT phase, processed, total, message, fingerprint, update_fingerprint, instance
+        FROM ingestion_status
+        WHERE source = ?
+        """;
+
+    // One lock per source, apart from other advisory locks in the database
+    private static final String LOCK_KEY_PREFIX = "ragpgvector.ingestion.";
+
+    private final IngestionCoordinationProperties properties;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestionStatusService ingestionStatusService;
+    private final String instance = ManagementFactory.getRuntimeMXBean().getName();
+    private final ScheduledExecutorService progressReporter = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("ingestion-progress-reporter").daemon(true).factory());
+
+    public IngestionCoordinator(IngestionCoordinationProperties properties,
+                                DataSourceProperties dataSourceProperties,
+                                JdbcTemplate jdbcTemplate,
+                                IngestionStatusService ingestionStatusService) {
+        this.properties = properties;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ingestionStatusService = ingestionStatusService;
+    }
+
+    /**
+     * Run the ingestion of a source unless another instance already loaded the inputs with this
+     * fingerprint (null = unknown, only skipped right after waiting for another instance).
+     * Returns whether this instance ran it.
+     */
+    public boolean ingestOnce(DatasetSource source, Callable<String> fingerprint, Ingestion ingestion) throws Exception {
+        return ingestOnce(source, fingerprint, ingestion, Run.STARTUP);
+    }
+
+    /**
+     * Like {@link #ingestOnce}, for new files of a source that is already loaded and being served,
+     * such as the drop directory. While another instance holds the lock the local status is left
+     * alone, so tool calls keep answering from the data loaded so far. The fingerprint is compared
+     * with that of the last update, not with the startup one.
+     */
+    public boolean ingestUpdate(DatasetSource source, Callable<String> fingerprint, Ingestion ingestion) throws Exception {
+        return ingestOnce(source, fingerprint, ingestion, Run.UPDATE);
+    }
+
+    private boolean ingestOnce(DatasetSource source, Callable<String> fingerprint, Ingestion ingestion,
+                               Run run) throws Exception {
+        if (!properties.isEnabled()) {
+            ingestion.run();
+            return true;
+        }
+
+        try (Connection lockConnection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+            jdbcTemplate.execute(ADD_UPDATE_FINGERPRINT_SQL);
+            boolean waited = false;
+            while (!tryLock(lockConnection, source)) {
+                if (!waited) {
+                    log.info("{} is being loaded by another instance, waiting for it", source.getDisplayName());
+                    waited = true;
+                }
+                if (run == Run.STARTUP) {
+                    showOtherInstance(source);
+                }
+                TimeUnit.MILLISECONDS.sleep(properties.getPollInterval().toMillis());
+            }
+
+            try {
+                String inputs = fingerprint.call();
+                SharedStatus shared = sharedStatus(source);
+                if (shared != null && IngestionStatus.Phase.READY.name().equals(shared.phase())
+                        && (waited && inputs == null || inputs != null && inputs.equals(run.fingerprint(shared)))) {
+                    log.info("{} already loaded by {}, skipping ingestion", source.getDisplayName(), shared.instance());
+                    return false;
+                }
+                return ingest(source, inputs, ingestion, run);
+            } finally {
+                unlock(lockConnection, source);
+            }
+        }
+    }
+
+    private boolean ingest(DatasetSource source, String inputs, Ingestion ingestion, Run run) throws Exception {
+        writeStatus(source, run, ingestionStatusService.getStatus(source).running(0, 0, "Starting"), null, null);
+        // Guards the final status against a progress report still running
+        AtomicBoolean finished = new AtomicBoolean();
+        ScheduledFuture<?> reporting = progressReporter.scheduleWithFixedDelay(() -> {
+            synchronized (finished) {
+                if (!finished.get()) {
+                    writeStatus(source, run, ingestionStatusService.getStatus(source), null, null);
+                }
+            }
+        }, properties.getPollInterval().toMillis(), properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            ingestion.run();
+            IngestionStatus status = ingestionStatusService.getStatus(source);
+            finish(finished, reporting, () -> writeStatus(source, run, status.ready(status.message()), null, inputs));
+            return true;
+        } catch (Exception e) {
+            IngestionStatus status = ingestionStatusService.getStatus(source);
+            finish(finished, reporting, () -> writeStatus(source, run, status.failed(e.getMessage()), e.getMessage(), null));
+            throw e;
+        }
+    }
+
+    private static void finish(AtomicBoolean finished, ScheduledFuture<?> reporting, Runnable finalStatus) {
+        reporting.cancel(false);
+        synchronized (finished) {
+            finished.set(true);
+            finalStatus.run();
+        }
+    }
+
+    // Show the progress of the instance holding the lock while waiting for it
+    private void showOtherInstance(DatasetSource source) {
+        SharedStatus shared = sharedStatus(source);
+        if (shared != null && IngestionStatus.Phase.RUNNING.name().equals(shared.phase())) {
+            ingestionStatusService.running(source, shared.processed(), shared.total(),
+                    "Loaded by " + shared.instance() + ": " + shared.message());
+        } else {
+            ingestionStatusService.running(source, 0, 0, "Waiting for another instance to load this data");
+        }
+    }
+
+    private boolean tryLock(Connection connection, DatasetSource source) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            statement.setString(1, LOCK_KEY_PREFIX + source.getId());
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection, DatasetSource source) {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, LOCK_KEY_PREFIX + source.getId());
+            statement.execute();
+        } catch (SQLException e) {
+            // Released anyway when the connection closes
+            log.debug("Could not release the ingestion lock of {}: {}", source.getId(), e.getMessage());
+        }
+    }
+
+    private SharedStatus sharedStatus(DatasetSource source) {
+        try {
+            List<SharedStatus> rows = jdbcTemplate.query(SELECT_STATUS_SQL, (rs, rowNum) -> new SharedStatus(
+                    rs.getString("phase"), rs.getLong("processed"), rs.getLong("total"), rs.getString("message"),
+                    rs.getString("fingerprint"), rs.getString("update_fingerprint"), rs.getString("instance")), source.getId());
+            return rows.isEmpty() ? null : rows.getFirst();
+        } catch (DataAccessException e) {
+            log.debug("Could not read the ingestion status of {}: {}", source.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeStatus(DatasetSource source, Run run, IngestionStatus status, String error, String fingerprint) {
+        try {
+            jdbcTemplate.update(run.upsertSql, source.getId(), status.phase().name(), status.processed(),
+                    status.total(), Objects.requireNonNullElse(status.message(), ""), error, fingerprint, instance);
+        } catch (DataAccessException e) {
+            // Only the other instances' view of the progress is affected
+            log.warn("Could not write the ingestion status of {}: {}", source.getId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        progressReporter.shutdownNow();
+    }
+
+    /**
+     * The ingestion of one source
+     */
+    @FunctionalInterface
+    public interface Ingestion {
+        void run() throws Exception;
+    }
+
+    // Which fingerprint column a run compares and writes
+    private enum Run {
+        STARTUP("fingerprint"),
+        UPDATE("update_fingerprint");
+
+        private final String upsertSql;
+
+        Run(String fingerprintColumn) {
+            this.upsertSql = UPSERT_STATUS_SQL.formatted(fingerprintColumn);
+        }
+
+        String fingerprint(SharedStatus shared) {
+            return this == STARTUP ? shared.fingerprint() : shared.updateFingerprint();
+        }
+    }
+
+    private record SharedStatus(String phase, long processed, long total, String message, String fingerprint,
+                                String updateFingerprint, String instance) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.service.DatabaseDiagnosticService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the ingestion of every data source in the background, so the MCP server accepts requests
+ * right after startup. Timesheets and CVs are loaded independently: the fast CSV load is not held
+ * up by CV embedding, and each source becomes ready (or fails) on its own. With several instances
+ * on one database, the {@link IngestionCoordinator} lets only one of them load each source.
+ */
+@Service
+@Slf4j
+public class IngestionJob {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(DatasetSource.values().length,
+            Thread.ofPlatform().name("ingestion-", 0).daemon(true).factory());
+
+    @Autowired
+    private RelationalDataIngestionService relationalIngestionService;
+
+    @Autowired
+    private VectorIngestionService vectorIngestionService;
+
+    @Autowired
+    private IngestionStatusService ingestionStatusService;
+
+    @Autowired
+    private DatabaseDiagnosticService diagnosticService;
+
+    @Autowired
+    private IngestionCoordinator ingestionCoordinator;
+
+    public void startInBackground() {
+        executor.submit(this::ingestTimesheets);
+        executor.submit(this::ingestCvs);
+    }
+
+    private void ingestTimesheets() {
+        try {
+            // Run database diagnostics first
+            log.info("Running database diagnostics...");
+            diagnosticService.runDiagnostics();
+
+            // Ingest CSV data into relational database
+            log.info("Starting relational data ingestion...");
+            boolean loaded = ingestionCoordinator.ingestOnce(DatasetSource.TIMESHEETS,
+                    relationalIngestionService::startupFingerprint, relationalIngestionService::ingestTimesheetData);
+            ingestionStatusService.ready(DatasetSource.TIMESHEETS, relationalIngestionService.getTimesheetRecordCount()
+                    + " timesheet records loaded" + (loaded ? "" : " by another instance"));
+            if (loaded) {
+                relationalIngestionService.logDataSummary();
+            }
+
+        } catch (Exception e) {
+            log.error("Relational data ingestion failed: {}", e.getMessage(), e);
+            ingestionStatusService.failed(DatasetSource.TIMESHEETS, e);
+        }
+    }
+
+    private void ingestCvs() {
+        try {
+            // Ingest PDF data into vector database
+            log.info("Starting vector data ingestion...");
+            // Unchanged CV files are skipped anyway, so the files themselves need no fingerprint
+            boolean loaded = ingestionCoordinator.ingestOnce(DatasetSource.CV, () -> null,
+                    vectorIngestionService::ingestCvFiles);
+            ingestionStatusService.ready(DatasetSource.CV, loaded ? "All CV files ingested" : "CV files ingested by another instance");
+
+        } catch (Exception e) {
+            log.error("Vector data ingestion failed: {}", e.getMessage(), e);
+            ingestionStatusService.failed(DatasetSource.CV, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.IngestionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Tracks the ingestion progress of every data source, so tools can serve the sources that are
+ * ready while the others are still being loaded
+ */
+@Service
+@Slf4j
+public class IngestionStatusService {
+
+    private final Map<DatasetSource, IngestionStatus> statuses = new ConcurrentHashMap<>();
+    private final DatasetChangeBus datasetChangeBus;
+
+    public IngestionStatusService(DatasetChangeBus datasetChangeBus) {
+        this.datasetChangeBus = datasetChangeBus;
+        for (DatasetSource source : DatasetSource.values()) {
+            statuses.put(source, IngestionStatus.pending(source));
+        }
+    }
+
+    public IngestionStatus getStatus(DatasetSource source) {
+        return statuses.get(source);
+    }
+
+    public boolean isReady(DatasetSource source) {
+        return getStatus(source).isReady();
+    }
+
+    /**
+     * Mark a source as running with the number of items (files, rows) to process
+     */
+    public void start(DatasetSource source, long total, String message) {
+        statuses.compute(source, (key, status) -> status.running(0, total, message));
+    }
+
+    public void progress(DatasetSource source, long processed, String message) {
+        statuses.compute(source, (key, status) -> status.running(processed, status.total(), message));
+    }
+
+    /**
+     * Mark a source as running with the progress reported elsewhere, e.g. by another instance
+     */
+    public void running(DatasetSource source, long processed, long total, String message) {
+        statuses.compute(source, (key, status) -> status.running(processed, total, message));
+    }
+
+    public void ready(DatasetSource source, String message) {
+        IngestionStatus status = statuses.compute(source, (key, current) -> current.ready(message));
+        log.info("{} ready: {}", source.getDisplayName(), status.message());
+    }
+
+    public void failed(DatasetSource source, Throwable error) {
+        statuses.compute(source, (key, status) -> status.failed(error.getMessage()));
+    }
+
+    /**
+     * Run a tool invocation if its data source is ready, otherwise answer that ingestion is in progress
+     */
+    public Map<String, Object> whenReady(DatasetSource source, Supplier<Map<String, Object>> invocation) {
+        IngestionStatus status = getStatus(source);
+        if (status.isReady()) {
+            return invocation.get();
+        }
+        return createNotReadyResponse(status);
+    }
+
+    /**
+     * Like whenReady, for tools whose response only depends on the data: a successful response
+     * carries the dataset version it was built from, and a caller that passes that version as
+     * ifVersionNot gets a short "unchanged" answer instead of the same response again. The version
+     * is read before the data, so a change during the call can only make the next call return more.
+     */
+    public Map<String, Object> whenChanged(DatasetSource source, Long ifVersionNot, Supplier<Map<String, Object>> invocation) {
+        return whenReady(source, () -> {
+            long version = datasetChangeBus.currentVersion(source);
+            if (ifVersionNot != null && ifVersionNot == version) {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("success", true);
+                response.put("unchanged", true);
+                response.put("dataset_version", version);
+                response.put("message", source.getDisplayName() + " has not changed since version " + version
+                        + ", the previous response is still current");
+                return response;
+            }
+
+            Map<String, Object> response = invocation.get();
+            // Degraded answers are not worth keeping, so they get no version to key on
+            if (Boolean.TRUE.equals(response.get("success")) && !Boolean.TRUE.equals(response.get("degraded"))) {
+                response.put("dataset_version", version);
+            }
+            return response;
+        });
+    }
+
+    public Map<String, Object> createNotReadyResponse(IngestionStatus status) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", false);
+        response.put("ingestion_status", status.toMap());
+
+        if (status.phase() == IngestionStatus.Phase.FAILED) {
+            response.put("message", status.source().getDisplayName() + " could not be loaded: " + status.error());
+            response.put("suggestion", "Check the application logs and /actuator/health/" + status.source().getId());
+        } else {
+            Integer percent = status.percentComplete();
+            response.put("message", status.source().getDisplayName() + " ingestion is in progress"
+                    + (percent != null ? " (" + percent + "% complete)" : "") + ", this data is not available yet");
+            response.put("suggestion", "Retry in a few seconds; other data sources can already be queried");
+        }
+        return response;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (DatasetSource source : DatasetSource.values()) {
+            map.put(source.getId(), getStatus(source).toMap());
+        }
+        return map;
+    }
+}
@@ -1,32 +1,105 @@
 package com.ragpgvector.dataIngestion;
 
+import com.ragpgvector.config.ReadDataSource;
+import com.ragpgvector.config.TimesheetIngestionProperties;
+import com.ragpgvector.metrics.IngestionMetrics;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.MonthYear;
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.BufferedReader;
+import javax.sql.DataSource;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 @Service
 @Slf4j
 public class RelationalDataIngestionService {
 
+    private static final String SOURCE = "timesheets";
+    private static final int BATCH_SIZE = 1000;
+    private static final String BUNDLED_SOURCE_FILE = "classpath:hoursheets/Hoursheets.csv";
+    // Write pool connections left for CV ingestion; the MCP tools use the read pool
+    private static final int RESERVED_CONNECTIONS = 2;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private IngestionMetrics ingestionMetrics;
+
+    @Autowired
+    private IngestionStatusService ingestionStatusService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TimesheetIngestionProperties timesheetIngestionProperties;
+
+    @Autowired
+    private TimesheetPartitions timesheetPartitions;
+
+    @Autowired
+    private TimesheetDictionary timesheetDictionary;
+
+    @Autowired
+    private DatasetChangeBus datasetChangeBus;
+
+    private volatile boolean partitioned;
+
+    private final ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+
+    @Value("${ragpgvector.dead-letter-directory:data/dead-letter}")
+    private Path deadLetterDirectory;
+
+    /**
+     * Load the bundled hour sheet and the files matching ragpgvector.timesheets.files, in parallel.
+     * Replaces only the rows of those files, so hour sheets added through the drop directory
+     * survive a restart.
+     */
     public void ingestTimesheetData() throws IOException {
         log.info("Starting relational timesheet data ingestion");
 
         // Ensure table exists first
         ensureTableExists();
 
-        // Clear existing data
-        clearExistingData();
-
         // Load and process CSV file
         ClassPathResource csvResource = new ClassPathResource("hoursheets/Hoursheets.csv");
 
@@ -34,49 +107,289 @@ public class RelationalDataIngestionService {
             throw new RuntimeException("CSV resource not found: hoursheets/Hoursheets.csv");
         }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(csvResource.getInputStream(), StandardCharsets.UTF_8))) {
+        Map<String, HourSheet> hourSheets = new LinkedHashMap<>();
+        hourSheets.put(BUNDLED_SOURCE_FILE, new HourSheet(BUNDLED_SOURCE_FILE, parser -> {
+            try (InputStream in = csvResource.getInputStream()) {
+                return parser.parse(in);
+            }
+        }));
+        for (HourSheet hourSheet : resolveConfiguredFiles()) {
+            hourSheets.putIfAbsent(hourSheet.sourceFile(), hourSheet);
+        }
+
+        int files = hourSheets.size();
+        ingestionStatusService.start(DatasetSource.TIMESHEETS, files, "Loading " + files + " hour sheets");
+        loadHourSheets(List.copyOf(hourSheets.values()), (filesDone, rowsWritten) -> ingestionStatusService.progress(
+                DatasetSource.TIMESHEETS, filesDone, "Loaded " + filesDone + " of " + files + " hour sheets, " + rowsWritten + " rows written"));
+    }
+
+    /**
+     * Load external hour sheets in parallel. All rows of an earlier version of a file are replaced
+     * in one transaction, so queries see either the old or the new rows of each file.
+     * Returns the number of rows loaded.
+     */
+    public long ingestTimesheetFiles(List<Path> files) throws IOException {
+        ensureTableExists();
+
+        List<HourSheet> hourSheets = files.stream()
+                .map(file -> new HourSheet(sourceKey(file), parser -> parser.parse(file)))
+                .toList();
+        return loadHourSheets(hourSheets, (filesDone, rowsWritten) -> { });
+    }
 
-            String line;
-            boolean isFirstLine = true;
-            int recordCount = 0;
+    /**
+     * Load hour sheets on a bounded pool of writer threads. Each file is parsed and written in its
+     * own transaction, and so on its own pooled connection. A failing file does not stop the others;
+     * the failures are reported at the end.
+     */
+    private long loadHourSheets(List<HourSheet> hourSheets, ProgressListener progressListener) throws IOException {
+        long started = System.nanoTime();
+        int parallelism = parallelism(hourSheets.size());
+        log.info("Loading {} hour sheets with {} parallel writers", hourSheets.size(), parallelism);
+
+        AtomicInteger filesDone = new AtomicInteger();
+        AtomicLong rowsWritten = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        List<String> failedFiles = new ArrayList<>();
+
+        ThreadFactory threadFactory = Thread.ofPlatform().name("timesheet-writer-", 0).daemon().factory();
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, threadFactory)) {
+            Map<String, Future<TimesheetCsvParser.Result>> results = new LinkedHashMap<>();
+            for (HourSheet hourSheet : hourSheets) {
+                results.put(hourSheet.sourceFile(), executor.submit(() -> {
+                    long fileStarted = System.nanoTime();
+                    long[] reported = {0};
+                    TimesheetCsvParser.Result result = replaceSourceRows(hourSheet.sourceFile(), hourSheet.source(), written -> {
+                        long total = rowsWritten.addAndGet(written - reported[0]);
+                        reported[0] = written;
+                        progressListener.progress(filesDone.get(), total);
+                    });
+                    rejected.addAndGet(result.rejected());
+                    progressListener.progress(filesDone.incrementAndGet(), rowsWritten.get());
+                    recordRun(hourSheet.sourceFile(), result, fileStarted);
+                    return result;
+                }));
+            }
 
-            while ((line = reader.readLine()) != null) {
-                // Skip header line
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    log.info("Skipping header line: {}", line);
-                    continue;
+            for (Map.Entry<String, Future<TimesheetCsvParser.Result>> entry : results.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("Failed to ingest hour sheet {}: {}", entry.getKey(), e.getCause().getMessage(), e.getCause());
+                    failedFiles.add(entry.getKey());
                 }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading hour sheets", e);
+        }
 
-                // Process data line
-                if (!line.trim().isEmpty()) {
-                    processTimesheetRecord(line);
-                    recordCount++;
+        log.info("Loaded {} of {} hour sheets in {} ms: {} rows, {} rejected",
+                hourSheets.size() - failedFiles.size(), hourSheets.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), rowsWritten.get(), rejected.get());
+        refreshDictionary();
+        if (failedFiles.size() < hourSheets.size()) {
+            datasetChangeBus.publish(DatasetSource.TIMESHEETS);
+        }
+        if (!failedFiles.isEmpty()) {
+            throw new IllegalStateException("Hour sheet ingestion failed for " + failedFiles);
+        }
+        return rowsWritten.get();
+    }
+
+    // New files can bring new projects and typecodes; a stale dictionary only costs recognition.
+    // Read from the primary, a replica may not have the new rows yet.
+    private void refreshDictionary() {
+        try {
+            ReadDataSource.onPrimary(() -> {
+                timesheetDictionary.refresh();
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh the timesheet dictionary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Writer threads for a run: the configured parallelism (or the CPU cores), but never more than
+     * the write pool can serve while leaving connections for CV ingestion
+     */
+    private int parallelism(int files) {
+        int parallelism = timesheetIngestionProperties.getParallelism() > 0
+                ? timesheetIngestionProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                parallelism = Math.min(parallelism, poolSize - RESERVED_CONNECTIONS);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not determine the connection pool size: {}", e.getMessage());
+        }
+        return Math.max(1, Math.min(parallelism, files));
+    }
+
+    private List<HourSheet> resolveConfiguredFiles() throws IOException {
+        List<HourSheet> hourSheets = new ArrayList<>();
+        for (Resource resource : resolveConfiguredResources()) {
+            if (resource.isFile()) {
+                Path file = resource.getFile().toPath();
+                hourSheets.add(new HourSheet(sourceKey(file), parser -> parser.parse(file)));
+            } else {
+                hourSheets.add(new HourSheet(resource.getURI().toString(), parser -> {
+                    try (InputStream in = resource.getInputStream()) {
+                        return parser.parse(in);
+                    }
+                }));
+            }
+        }
+        return hourSheets;
+    }
+
+    /**
+     * The source_file of an hour sheet on disk, the same whether it is configured or dropped: its
+     * full path, so equally named files of different teams or months do not replace each other
+     */
+    static String sourceKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private List<Resource> resolveConfiguredResources() throws IOException {
+        List<Resource> readable = new ArrayList<>();
+        for (String pattern : timesheetIngestionProperties.getFiles()) {
+            Resource[] resources = resourcePatternResolver.getResources(pattern);
+            if (resources.length == 0) {
+                log.warn("No hour sheets found for {}", pattern);
+            }
+            for (Resource resource : resources) {
+                if (resource.isFile() || resource.isReadable()) {
+                    readable.add(resource);
                 }
             }
+        }
+        return readable;
+    }
 
-            log.info("Successfully ingested {} timesheet records into relational database", recordCount);
+    /**
+     * SHA-256 of the partitioning setting and the names and contents of the hour sheets loaded at
+     * startup, so an instance can tell whether another one already loaded the same files
+     */
+    public String startupFingerprint() throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
+        digest.update(timesheetIngestionProperties.getPartitioning().name().getBytes(StandardCharsets.UTF_8));
+        List<Resource> resources = new ArrayList<>();
+        resources.add(new ClassPathResource("hoursheets/Hoursheets.csv"));
+        resources.addAll(resolveConfiguredResources());
+        for (Resource resource : resources) {
+            digest.update(resource.getDescription().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Replace the rows of a source file while its CSV is parsed. The parser streams batches of
+     * rows straight into JDBC batch inserts, so a large file is never held in memory; rejected
+     * records go to a dead-letter file. A partitioned table gets the rows in a staging table
+     * first, which is swapped in once the file is parsed.
+     */
+    private TimesheetCsvParser.Result replaceSourceRows(String sourceFile, CsvSource source, LongConsumer onProgress) throws IOException {
+        String table = partitioned ? TimesheetPartitions.STAGING_TABLE : "timesheets";
+        String sql = "INSERT INTO " + table + " (month_year, assignment_name, typecode, hours, source_file, period) VALUES (?, ?, ?, ?, ?, ?)";
+
+        // Rows from before source files were tracked belong to the bundled file
+        boolean bundled = BUNDLED_SOURCE_FILE.equals(sourceFile);
+        List<String> partitionsToReplace = partitioned ? timesheetPartitions.partitionsWithRows(sourceFile, bundled) : List.of();
+
+        try (DeadLetterFile deadLetters = new DeadLetterFile(deadLetterDirectory, sourceFile)) {
+            // Parsing is streamed into the inserts, so both are timed as the write stage
+            TimesheetCsvParser.Result result = ingestionMetrics.stage(SOURCE, IngestionMetrics.STAGE_WRITE, () -> transactionTemplate.execute(status -> {
+                if (partitioned) {
+                    timesheetPartitions.createStagingTable();
+                } else {
+                    int removed = bundled
+                            ? jdbcTemplate.update("DELETE FROM timesheets WHERE source_file = ? OR source_file IS NULL", sourceFile)
+                            : jdbcTemplate.update("DELETE FROM timesheets WHERE source_file = ?", sourceFile);
+                    log.info("Replacing {} existing timesheet rows of {}", removed, sourceFile);
+                }
+
+                long[] written = {0};
+                TimesheetCsvParser parser = new TimesheetCsvParser(BATCH_SIZE, batch -> {
+                    if (partitioned) {
+                        timesheetPartitions.ensurePartitions(batch.stream().map(TimesheetCsvParser.Row::period).distinct().toList());
+                    }
+                    jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, row) -> {
+                        ps.setString(1, row.monthYear());
+                        ps.setString(2, row.assignmentName());
+                        ps.setString(3, row.typecode());
+                        ps.setInt(4, row.hours());
+                        ps.setString(5, sourceFile);
+                        ps.setObject(6, row.period());
+                    });
+                    written[0] += batch.size();
+                    onProgress.accept(written[0]);
+                }, deadLetters);
+
+                TimesheetCsvParser.Result parsed;
+                try {
+                    parsed = source.parse(parser);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (partitioned) {
+                    int removed = timesheetPartitions.swapInStagedRows(sourceFile, bundled, partitionsToReplace);
+                    log.info("Replaced {} existing timesheet rows of {}", removed, sourceFile);
+                }
+                return parsed;
+            }));
+
+            if (deadLetters.getCount() > 0) {
+                log.warn("Rejected {} records of {}, see {}", deadLetters.getCount(), sourceFile, deadLetters.getPath());
+            }
+            return result;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void recordRun(String sourceFile, TimesheetCsvParser.Result result, long started) {
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        ingestionMetrics.recordItems(SOURCE, "rows", result.rows(), elapsed);
+        log.info("Successfully ingested {} timesheet records from {} ({} rejected, {} KB in {} ms)",
+                result.rows(), sourceFile, result.rejected(), result.bytes() / 1024, elapsed.toMillis());
+    }
+
+    @FunctionalInterface
+    private interface CsvSource {
+        TimesheetCsvParser.Result parse(TimesheetCsvParser parser) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ProgressListener {
+        void progress(int filesDone, long rowsWritten);
+    }
+
+    private record HourSheet(String sourceFile, CsvSource source) {
     }
 
     private void ensureTableExists() {
         log.info("Ensuring timesheets table exists");
         try {
-            // Create table if it doesn't exist
-            String createTableSql = """
-                CREATE TABLE IF NOT EXISTS timesheets (
-                    id SERIAL PRIMARY KEY,
-                    month_year VARCHAR(50) NOT NULL,
-                    assignment_name VARCHAR(255) NOT NULL,
-                    typecode VARCHAR(10) NOT NULL,
-                    hours INTEGER NOT NULL,
-                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-                )
-                """;
-
-            jdbcTemplate.execute(createTableSql);
+            if (timesheetPartitions.isEnabled() || timesheetPartitions.isPartitioned()) {
+                timesheetPartitions.ensurePartitionedTable();
+                partitioned = true;
+            } else {
+                ensureUnpartitionedTable();
+            }
+            widenSourceFile();
             log.info("Timesheets table creation verified");
 
             // Create indexes if they don't exist
@@ -84,7 +397,9 @@ public class RelationalDataIngestionService {
                 "CREATE INDEX IF NOT EXISTS idx_timesheets_month_year ON timesheets(month_year)",
                 "CREATE INDEX IF NOT EXISTS idx_timesheets_assignment ON timesheets(assignment_name)",
                 "CREATE INDEX IF NOT EXISTS idx_timesheets_typecode ON timesheets(typecode)",
-                "CREATE INDEX IF NOT EXISTS idx_timesheets_composite ON timesheets(month_year, assignment_name, typecode)"
+                "CREATE INDEX IF NOT EXISTS idx_timesheets_composite ON timesheets(month_year, assignment_name, typecode)",
+                "CREATE INDEX IF NOT EXISTS idx_timesheets_source_file ON timesheets(source_file)",
+                "CREATE INDEX IF NOT EXISTS idx_timesheets_period ON timesheets(period)"
             };
 
             for (String indexSql : indexStatements) {
@@ -101,54 +416,44 @@ public class RelationalDataIngestionService {
         }
     }
 
-    private void clearExistingData() {
-        log.info("Clearing existing timesheet data");
-        try {
-            // Check if table exists first
-            String checkTableSql = """
-                SELECT COUNT(*) FROM information_schema.tables 
-                WHERE table_name = 'timesheets' AND table_schema = current_schema()
-                """;
-
-            Integer tableCount = jdbcTemplate.queryForObject(checkTableSql, Integer.class);
-
-            if (tableCount != null && tableCount > 0) {
-                jdbcTemplate.update("DELETE FROM timesheets");
-                log.info("Existing timesheet data cleared");
-            } else {
-                log.info("Timesheets table doesn't exist yet - skipping clear operation");
-            }
-        } catch (Exception e) {
-            log.warn("Could not clear existing data (table may not exist): {}", e.getMessage());
-            // Don't throw exception here - the table will be created by ensureTableExists
+    private void ensureUnpartitionedTable() {
+        // Create table if it doesn't exist
+        String createTableSql = """
+            CREATE TABLE IF NOT EXISTS timesheets (
+                id SERIAL PRIMARY KEY,
+                month_year VARCHAR(50) NOT NULL,
+                assignment_name VARCHAR(255) NOT NULL,
+                typecode VARCHAR(10) NOT NULL,
+                hours INTEGER NOT NULL,
+                created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                source_file TEXT,
+                period DATE
+            )
+            """;
+
+        jdbcTemplate.execute(createTableSql);
+        // Tables created before hour sheets could be added at runtime or filtered by period
+        jdbcTemplate.execute("ALTER TABLE timesheets ADD COLUMN IF NOT EXISTS source_file TEXT");
+        jdbcTemplate.execute("ALTER TABLE timesheets ADD COLUMN IF NOT EXISTS period DATE");
+        int backfilled = jdbcTemplate.update(
+                "UPDATE timesheets SET period = to_date(trim(month_year), 'FMMonth YYYY') WHERE period IS NULL AND month_year ~* ?",
+                MonthYear.SQL_PATTERN);
+        if (backfilled > 0) {
+            log.info("Filled in the period of {} existing timesheet rows", backfilled);
         }
     }
 
-    private void processTimesheetRecord(String line) {
-        try {
-            // Split CSV line (assuming semicolon separator based on the CSV file)
-            String[] parts = line.split(";");
-
-            if (parts.length != 4) {
-                log.warn("Invalid CSV line format (expected 4 columns): {}", line);
-                return;
-            }
-
-            String monthYear = parts[0].trim();
-            String assignmentName = parts[1].trim();
-            String typecode = parts[2].trim();
-            int hours = Integer.parseInt(parts[3].trim());
-
-            // Insert into database
-            String sql = "INSERT INTO timesheets (month_year, assignment_name, typecode, hours) VALUES (?, ?, ?, ?)";
-            jdbcTemplate.update(sql, monthYear, assignmentName, typecode, hours);
-
-            log.debug("Inserted record: {} | {} | {} | {}", monthYear, assignmentName, typecode, hours);
-
-        } catch (NumberFormatException e) {
-            log.error("Failed to parse hours as integer in line: {}", line, e);
-        } catch (Exception e) {
-            log.error("Failed to process CSV line: {}", line, e);
+    // Tables created when source_file was VARCHAR(255), too short for a deep path or a jar URI.
+    // VARCHAR to TEXT needs no rewrite, and the check keeps the lock away from later startups.
+    private void widenSourceFile() {
+        String type = jdbcTemplate.queryForObject("""
+            SELECT data_type FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = 'timesheets' AND column_name = 'source_file'
+            """, String.class);
+        if (!"text".equals(type)) {
+            jdbcTemplate.execute("ALTER TABLE timesheets ALTER COLUMN source_file TYPE TEXT");
+            log.info("Widened timesheets.source_file from {} to text", type);
         }
     }
 
@@ -0,0 +1,482 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.model.MonthYear;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for semicolon separated hour sheets (Month Year;Assignment Name;Typecode;Hours).
+ * Files are memory-mapped window by window and copied in bulk into one reusable chunk, streams are
+ * read into the same chunk, so the input is never held in memory as a whole. Fields are decoded straight
+ * from the chunk: hours are parsed from the bytes and the text columns, which repeat on almost every
+ * row, come from a small cache keyed by their bytes instead of a new String per field.
+ * <p>
+ * Handles a UTF-8 BOM, CRLF line endings and quoted fields (with ; or line breaks inside and "" for a
+ * quote). Month Year must be an English month name and year, which becomes the row's period.
+ * The first non-empty record is the header. Rows are handed over in batches, and rows that
+ * cannot be loaded go to a {@link RejectHandler} with their line number instead of failing the file.
+ * Instances are not thread-safe; use one per parse.
+ */
+@Slf4j
+public class TimesheetCsvParser {
+
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    static final int WINDOW_SIZE = 256 * 1024 * 1024;
+
+    // Column sizes of the timesheets table
+    static final int MAX_MONTH_YEAR_LENGTH = 50;
+    static final int MAX_ASSIGNMENT_NAME_LENGTH = 255;
+    static final int MAX_TYPECODE_LENGTH = 10;
+
+    private static final int FIELDS = 4;
+    private static final byte SEPARATOR = ';';
+    private static final byte QUOTE = '"';
+    private static final byte NEWLINE = '\n';
+
+    /**
+     * One valid hour sheet row, with the first day of its month and the line it starts on
+     */
+    public record Row(String monthYear, LocalDate period, String assignmentName, String typecode, int hours, long lineNumber) {
+    }
+
+    /**
+     * Totals of one parse; bytes includes the header and rejected records
+     */
+    public record Result(long rows, long rejected, long bytes) {
+    }
+
+    /**
+     * Receives records that could not be parsed, e.g. to write them to a dead-letter file
+     */
+    @FunctionalInterface
+    public interface RejectHandler {
+        void reject(long lineNumber, String reason, String record);
+    }
+
+    private final int batchSize;
+    private final Consumer<List<Row>> batchHandler;
+    private final RejectHandler rejectHandler;
+    private final FieldCache fieldCache = new FieldCache();
+    private final Map<String, LocalDate> periods = new HashMap<>();
+
+    // Input chunk; records are parsed from here and an incomplete last record is moved to the front
+    private final byte[] data;
+
+    // Per record scratch state, reused for every record
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+    private final boolean[] fieldEscaped = new boolean[FIELDS];
+    private byte[] scratch = new byte[256];
+
+    private List<Row> batch;
+    private long lineNumber = 1;
+    private boolean atInputStart = true;
+    private boolean headerSkipped;
+    private long rows;
+    private long rejected;
+
+    /**
+     * @param batchHandler receives full batches and a final partial one; the list is reused after it returns
+     */
+    public TimesheetCsvParser(int batchSize, Consumer<List<Row>> batchHandler, RejectHandler rejectHandler) {
+        this(batchSize, DEFAULT_CHUNK_SIZE, batchHandler, rejectHandler);
+    }
+
+    TimesheetCsvParser(int batchSize, int chunkSize, Consumer<List<Row>> batchHandler, RejectHandler rejectHandler) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+        this.batchHandler = batchHandler;
+        this.rejectHandler = rejectHandler;
+        this.data = new byte[chunkSize];
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Parse a file by mapping it into memory, one window at a time
+     */
+    public Result parse(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedInput input = new MappedInput(channel, size);
+            return parse(input::read);
+        }
+    }
+
+    /**
+     * Parse a stream, e.g. a classpath resource
+     */
+    public Result parse(InputStream in) throws IOException {
+        return parse(in::read);
+    }
+
+    private Result parse(Input input) throws IOException {
+        long bytes = 0;
+        int filled = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            while (filled < data.length) {
+                int read = input.read(data, filled, data.length - filled);
+                if (read < 0) {
+                    endOfInput = true;
+                    break;
+                }
+                filled += read;
+                bytes += read;
+            }
+
+            int consumed = scan(filled, endOfInput);
+            if (consumed == 0 && !endOfInput) {
+                throw new IOException("Record at line " + lineNumber + " is longer than " + data.length + " bytes");
+            }
+            System.arraycopy(data, consumed, data, 0, filled - consumed);
+            filled -= consumed;
+        }
+        flushBatch();
+        return new Result(rows, rejected, bytes);
+    }
+
+    /**
+     * Parse the complete records in [0, limit) of the chunk and return where the first incomplete
+     * one starts. At the end of input the last record does not need a line break.
+     */
+    private int scan(int limit, boolean endOfInput) {
+        int position = 0;
+
+        if (atInputStart) {
+            if (limit < 3 && !endOfInput) {
+                return 0;
+            }
+            if (limit >= 3 && data[0] == (byte) 0xEF && data[1] == (byte) 0xBB && data[2] == (byte) 0xBF) {
+                position = 3;
+            }
+            atInputStart = false;
+        }
+
+        while (position < limit) {
+            int next = parseRecord(position, limit, endOfInput);
+            if (next < 0) {
+                break;
+            }
+            position = next;
+        }
+        return position;
+    }
+
+    /**
+     * Parse one record starting at start. Returns the position after its line break,
+     * or -1 when the record is not complete in the chunk yet.
+     */
+    private int parseRecord(int start, int limit, boolean endOfInput) {
+        long recordLine = lineNumber;
+        long lines = 0;
+        int fields = 0;
+        String error = null;
+        int position = start;
+        int recordEnd;
+
+        while (true) {
+            // Start of a field: skip leading blanks
+            while (position < limit && isBlank(data[position])) {
+                position++;
+            }
+
+            int contentStart;
+            int contentEnd;
+            boolean escaped = false;
+            if (position < limit && data[position] == QUOTE) {
+                contentStart = ++position;
+                while (true) {
+                    if (position >= limit) {
+                        if (!endOfInput) {
+                            return -1;
+                        }
+                        error = "Unterminated quoted field";
+                        contentEnd = position;
+                        break;
+                    }
+                    byte b = data[position];
+                    if (b == QUOTE) {
+                        if (position + 1 >= limit && !endOfInput) {
+                            return -1;
+                        }
+                        if (position + 1 < limit && data[position + 1] == QUOTE) {
+                            escaped = true;
+                            position += 2;
+                            continue;
+                        }
+                        contentEnd = position++;
+                        break;
+                    }
+                    if (b == NEWLINE) {
+                        lines++;
+                    }
+                    position++;
+                }
+                // Only blanks may follow the closing quote
+                while (position < limit && data[position] != SEPARATOR && data[position] != NEWLINE) {
+                    if (!isBlank(data[position]) && error == null) {
+                        error = "Unexpected character after closing quote in field " + (fields + 1);
+                    }
+                    position++;
+                }
+            } else {
+                contentStart = position;
+                while (position < limit && data[position] != SEPARATOR && data[position] != NEWLINE) {
+                    position++;
+                }
+                contentEnd = position;
+                while (contentEnd > contentStart && isBlank(data[contentEnd - 1])) {
+                    contentEnd--;
+                }
+            }
+
+            if (position >= limit && !endOfInput) {
+                return -1;
+            }
+            if (fields < FIELDS) {
+                fieldStart[fields] = contentStart;
+                fieldEnd[fields] = contentEnd;
+                fieldEscaped[fields] = escaped;
+            }
+            fields++;
+
+            if (position < limit && data[position] == SEPARATOR) {
+                position++;
+                continue;
+            }
+            recordEnd = position;
+            if (position < limit) {
+                // Skip the line break
+                position++;
+                lines++;
+            }
+            break;
+        }
+
+        lineNumber += lines;
+        boolean blankLine = fields == 1 && fieldStart[0] == fieldEnd[0] && !isQuoted(start, recordEnd);
+        if (blankLine) {
+            return position;
+        }
+        if (!headerSkipped) {
+            headerSkipped = true;
+            log.info("Skipping header line: {}", text(start, recordEnd));
+            return position;
+        }
+
+        if (error == null && fields != FIELDS) {
+            error = "Expected " + FIELDS + " fields but found " + fields;
+        }
+        if (error == null) {
+            error = addRow(recordLine);
+        }
+        if (error != null) {
+            rejected++;
+            rejectHandler.reject(recordLine, error, text(start, recordEnd));
+        }
+        return position;
+    }
+
+    /**
+     * Decode the fields of the current record into a row, or return why that is not possible
+     */
+    private String addRow(long recordLine) {
+        Integer hours = parseInt(fieldStart[3], fieldEnd[3]);
+        if (hours == null || fieldEscaped[3]) {
+            return "Hours is not an integer";
+        }
+
+        String monthYear = field(0);
+        String assignmentName = field(1);
+        String typecode = field(2);
+        if (monthYear.codePointCount(0, monthYear.length()) > MAX_MONTH_YEAR_LENGTH) {
+            return "Month year is longer than " + MAX_MONTH_YEAR_LENGTH + " characters";
+        }
+        // Cached Strings repeat, so each distinct month year is parsed once
+        LocalDate period = periods.computeIfAbsent(monthYear, key -> MonthYear.parse(key).orElse(null));
+        if (period == null) {
+            return "Month year is not a month name and year";
+        }
+        if (assignmentName.codePointCount(0, assignmentName.length()) > MAX_ASSIGNMENT_NAME_LENGTH) {
+            return "Assignment name is longer than " + MAX_ASSIGNMENT_NAME_LENGTH + " characters";
+        }
+        if (typecode.codePointCount(0, typecode.length()) > MAX_TYPECODE_LENGTH) {
+            return "Typecode is longer than " + MAX_TYPECODE_LENGTH + " characters";
+        }
+
+        batch.add(new Row(monthYear, period, assignmentName, typecode, hours, recordLine));
+        rows++;
+        if (batch.size() >= batchSize) {
+            flushBatch();
+        }
+        return null;
+    }
+
+    private void flushBatch() {
+        if (!batch.isEmpty()) {
+            batchHandler.accept(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Copy a text field (without quotes, "" unescaped) into the scratch array and look it up in the cache
+     */
+    private String field(int index) {
+        int start = fieldStart[index];
+        int end = fieldEnd[index];
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = data[i];
+            scratch[length++] = b;
+            if (b == QUOTE && fieldEscaped[index]) {
+                // Second quote of an escaped pair
+                i++;
+            }
+        }
+        return fieldCache.get(scratch, length);
+    }
+
+    private Integer parseInt(int start, int end) {
+        if (start >= end) {
+            return null;
+        }
+        boolean negative = false;
+        int position = start;
+        byte first = data[position];
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++position == end) {
+                return null;
+            }
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = data[position] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                return null;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? null : (int) value;
+    }
+
+    private boolean isQuoted(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == QUOTE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Trailing \r of a CRLF line ending counts as a blank
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private String text(int start, int end) {
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+        }
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Input {
+        int read(byte[] into, int offset, int length) throws IOException;
+    }
+
+    /**
+     * Reads a file through read-only mappings of up to WINDOW_SIZE bytes, so files larger than
+     * 2 GB can be mapped and only one window is mapped at a time
+     */
+    private static final class MappedInput {
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowOffset;
+        private MappedByteBuffer window;
+
+        MappedInput(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        int read(byte[] into, int offset, int length) throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                long next = window == null ? 0 : windowOffset + window.capacity();
+                if (next >= size) {
+                    return -1;
+                }
+                windowOffset = next;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, next, Math.min(WINDOW_SIZE, size - next));
+            }
+            // A bulk copy is much cheaper than per-byte access, which pays bounds and scope checks
+            int count = Math.min(length, window.remaining());
+            window.get(into, offset, count);
+            return count;
+        }
+    }
+
+    /**
+     * Bounded open-addressing map from UTF-8 bytes to the decoded String. Values that repeat
+     * (months, assignments, typecodes) are decoded once; once full, new values are decoded every time.
+     */
+    static final class FieldCache {
+
+        private static final int CAPACITY = 4096;
+        private static final int SLOT_BITS = 13;
+        private static final int SLOTS = 1 << SLOT_BITS;
+
+        private final byte[][] keys = new byte[SLOTS][];
+        private final String[] values = new String[SLOTS];
+        private int size;
+
+        String get(byte[] bytes, int length) {
+            int hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            // Fibonacci hashing spreads near-identical values ("January 2020", "January 2021") over the table
+            int slot = (hash * 0x9E3779B9) >>> (Integer.SIZE - SLOT_BITS);
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, 0, length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+
+            String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            if (size < CAPACITY) {
+                keys[slot] = Arrays.copyOf(bytes, length);
+                values[slot] = value;
+                size++;
+            }
+            return value;
+        }
+    }
+}
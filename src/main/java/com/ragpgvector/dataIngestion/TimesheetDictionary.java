@@ -0,0 +1,169 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.config.ReadDataSource;
+import com.ragpgvector.model.DatasetChangedEvent;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.MonthYear;
+import com.ragpgvector.repository.TimesheetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory dictionary of the assignment names and typecodes in the timesheets table, rebuilt
+ * after every hour sheet load, here or on another server instance. Free-text questions are matched against all of them in one pass,
+ * so every known project or typecode in a question becomes an exact, indexed predicate.
+ */
+@Component
+@Slf4j
+public class TimesheetDictionary {
+
+    // Spoken forms of the standby typecodes, used when those typecodes occur in the data
+    private static final Map<String, String> TYPECODE_SYNONYMS = Map.of(
+            "standby low", "STBL",
+            "standby high", "STBH");
+
+    // Shorter words of an assignment name are too likely to be ordinary words in a question
+    private static final int MIN_ALIAS_LENGTH = 4;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Reload the projects and typecodes from the timesheets table
+     */
+    public void refresh() {
+        rebuild(timesheetRepository.getDistinctProjects(), timesheetRepository.getDistinctTypecodes());
+    }
+
+    /**
+     * Another instance loaded hour sheets; reloaded from the primary, a replica may lag behind
+     */
+    @EventListener
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        if (event.source() != DatasetSource.TIMESHEETS || snapshot == null) {
+            return;
+        }
+        try {
+            ReadDataSource.onPrimary(() -> {
+                refresh();
+                return null;
+            });
+        } catch (DataAccessException e) {
+            // Loaded again on first use
+            snapshot = null;
+            log.warn("Could not refresh the timesheet dictionary: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the dictionary. Besides its full name, a project is recognized by every word of its
+     * name that no other project uses (e.g. "devops" for "Devops ClientReporting").
+     */
+    public void rebuild(Collection<String> projects, Collection<String> typecodes) {
+        Map<String, Entity> keywords = new HashMap<>();
+
+        Set<String> typecodeWords = new LinkedHashSet<>();
+        for (String typecode : typecodes) {
+            String keyword = AhoCorasickMatcher.normalize(typecode);
+            typecodeWords.add(keyword);
+            keywords.put(keyword, new Entity(false, typecode));
+        }
+        TYPECODE_SYNONYMS.forEach((synonym, typecode) -> {
+            if (typecodes.contains(typecode)) {
+                keywords.put(synonym, new Entity(false, typecode));
+            }
+        });
+
+        Map<String, Set<String>> projectsByWord = new HashMap<>();
+        for (String project : projects) {
+            String name = AhoCorasickMatcher.normalize(project);
+            keywords.put(name, new Entity(true, project));
+            for (String word : name.split("[^\\p{L}\\p{N}]+")) {
+                projectsByWord.computeIfAbsent(word, w -> new LinkedHashSet<>()).add(project);
+            }
+        }
+        projectsByWord.forEach((word, owners) -> {
+            if (owners.size() == 1 && isAlias(word, typecodeWords)) {
+                keywords.putIfAbsent(word, new Entity(true, owners.iterator().next()));
+            }
+        });
+
+        snapshot = new Snapshot(List.copyOf(projects), List.copyOf(typecodes), new AhoCorasickMatcher<>(keywords));
+        log.info("Timesheet dictionary rebuilt: {} projects, {} typecodes, {} keywords",
+                projects.size(), typecodes.size(), keywords.size());
+    }
+
+    private static boolean isAlias(String word, Set<String> typecodeWords) {
+        return word.length() >= MIN_ALIAS_LENGTH
+                && !word.chars().allMatch(Character::isDigit)
+                && MonthYear.parseMonth(word).isEmpty()
+                && !typecodeWords.contains(word);
+    }
+
+    /**
+     * Known project names
+     */
+    public List<String> getProjects() {
+        return current().projects();
+    }
+
+    /**
+     * Known typecodes
+     */
+    public List<String> getTypecodes() {
+        return current().typecodes();
+    }
+
+    /**
+     * Every known project and typecode mentioned in the text, as whole words, case-insensitive
+     */
+    public Matches match(String text) {
+        Matches matches = new Matches(new LinkedHashSet<>(), new LinkedHashSet<>());
+        if (text != null) {
+            current().matcher().match(text, entity -> {
+                (entity.project() ? matches.projects() : matches.typecodes()).add(entity.value());
+                return true;
+            });
+        }
+        return matches;
+    }
+
+    // Loaded on first use when no ingestion ran in this process, e.g. when the data was already there
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            try {
+                refresh();
+                current = snapshot;
+            } catch (DataAccessException e) {
+                log.warn("Timesheet dictionary not available yet: {}", e.getMessage());
+                return new Snapshot(List.of(), List.of(), new AhoCorasickMatcher<>(Map.of()));
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Projects and typecodes found in a text, in the order they were found
+     */
+    public record Matches(Set<String> projects, Set<String> typecodes) {
+    }
+
+    private record Entity(boolean project, String value) {
+    }
+
+    private record Snapshot(List<String> projects, List<String> typecodes, AhoCorasickMatcher<Entity> matcher) {
+    }
+}
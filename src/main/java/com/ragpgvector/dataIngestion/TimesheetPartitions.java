@@ -0,0 +1,290 @@
+package com.ragpgvector.dataIngestion;
+
+import com.ragpgvector.config.TimesheetIngestionProperties;
+import com.ragpgvector.config.TimesheetIngestionProperties.Partitioning;
+import com.ragpgvector.model.MonthYear;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Range partitioning of the timesheets table by period (first day of the month), by year or by month.
+ * Partitions are created while hour sheets are loaded. A file is parsed into a staging table
+ * first and then swapped in: the partitions involved are only locked for moving the staged rows,
+ * and a partition that holds nothing but the file's earlier rows is truncated instead of having
+ * its rows deleted one by one.
+ * <p>
+ * New partitions are created as plain tables and then attached: ATTACH PARTITION only takes a
+ * SHARE UPDATE EXCLUSIVE lock on timesheets, so it does not wait for parallel writers or readers
+ * the way CREATE TABLE ... PARTITION OF would.
+ */
+@Component
+@Slf4j
+public class TimesheetPartitions {
+
+    private static final Pattern RANGE_BOUND = Pattern.compile("FROM \\('([0-9-]+)'\\) TO \\('([0-9-]+)'\\)");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final DateTimeFormatter YEAR_SUFFIX = DateTimeFormatter.ofPattern("yyyy");
+
+    // Rows of the file being loaded, per transaction (connection), dropped at commit
+    public static final String STAGING_TABLE = "timesheets_staging";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TimesheetIngestionProperties timesheetIngestionProperties;
+
+    // Attached partitions by start of range
+    private final NavigableMap<LocalDate, Partition> ranges = new TreeMap<>();
+
+    public boolean isEnabled() {
+        return timesheetIngestionProperties.getPartitioning() != Partitioning.NONE;
+    }
+
+    /**
+     * Whether the timesheets table is partitioned, whatever the current setting
+     */
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('timesheets') AND relkind = 'p')", Boolean.class));
+    }
+
+    /**
+     * Create the partitioned timesheets table, or convert an existing unpartitioned one in a single
+     * transaction. Rows whose month_year is not a month name and year cannot be routed and are dropped.
+     */
+    public synchronized void ensurePartitionedTable() {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass('timesheets') IS NOT NULL", Boolean.class);
+        if (Boolean.TRUE.equals(exists) && isPartitioned()) {
+            loadRanges();
+            return;
+        }
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            String sequence = "timesheets_id_seq";
+            if (Boolean.TRUE.equals(exists)) {
+                log.info("Converting the timesheets table to a {} partitioned table", timesheetIngestionProperties.getPartitioning());
+                String serialSequence = jdbcTemplate.queryForObject("SELECT pg_get_serial_sequence('timesheets', 'id')", String.class);
+                if (serialSequence != null) {
+                    sequence = serialSequence;
+                    // Keep the sequence when the old table is dropped, so ids keep counting up
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY NONE");
+                }
+                jdbcTemplate.execute("ALTER TABLE timesheets RENAME TO timesheets_unpartitioned");
+                jdbcTemplate.execute("ALTER TABLE timesheets_unpartitioned RENAME CONSTRAINT timesheets_pkey TO timesheets_unpartitioned_pkey");
+            }
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence);
+
+            jdbcTemplate.execute("""
+                CREATE TABLE timesheets (
+                    id INTEGER NOT NULL DEFAULT nextval('%s'),
+                    month_year VARCHAR(50) NOT NULL,
+                    assignment_name VARCHAR(255) NOT NULL,
+                    typecode VARCHAR(10) NOT NULL,
+                    hours INTEGER NOT NULL,
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    source_file TEXT,
+                    period DATE NOT NULL,
+                    PRIMARY KEY (id, period)
+                ) PARTITION BY RANGE (period)
+                """.formatted(sequence));
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " OWNED BY timesheets.id");
+
+            if (Boolean.TRUE.equals(exists)) {
+                String periodSql = "to_date(trim(month_year), 'FMMonth YYYY')";
+                List<LocalDate> periods = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT " + periodSql + " FROM timesheets_unpartitioned WHERE month_year ~* ?",
+                        LocalDate.class, MonthYear.SQL_PATTERN);
+                for (LocalDate period : periods) {
+                    LocalDate from = rangeStart(period);
+                    if (!ranges.containsKey(from)) {
+                        // The new table is not visible to other connections yet, so no need to attach
+                        jdbcTemplate.execute("CREATE TABLE %s PARTITION OF timesheets FOR VALUES FROM ('%s') TO ('%s')"
+                                .formatted(partitionName(from), from, rangeEnd(from)));
+                        ranges.put(from, new Partition(rangeEnd(from), partitionName(from)));
+                    }
+                }
+                int copied = jdbcTemplate.update("""
+                    INSERT INTO timesheets (id, month_year, assignment_name, typecode, hours, created_at, updated_at, source_file, period)
+                    SELECT id, month_year, assignment_name, typecode, hours, created_at, updated_at, source_file, %s
+                    FROM timesheets_unpartitioned
+                    WHERE month_year ~* ?
+                    """.formatted(periodSql), MonthYear.SQL_PATTERN);
+                Integer total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM timesheets_unpartitioned", Integer.class);
+                jdbcTemplate.execute("DROP TABLE timesheets_unpartitioned");
+                log.info("Moved {} timesheet rows into {} partitions, dropped {} rows without a valid month year",
+                        copied, ranges.size(), total - copied);
+            }
+        });
+        loadRanges();
+    }
+
+    /**
+     * Make sure every period has a partition. Missing partitions are attached in their own
+     * transaction, so they are visible to all writers right away.
+     */
+    public void ensurePartitions(Collection<LocalDate> periods) {
+        for (LocalDate period : periods) {
+            if (!isCovered(period)) {
+                createPartition(period);
+            }
+        }
+    }
+
+    /**
+     * Create the staging table for the current transaction; load it with the same columns as
+     * timesheets (without id) and finish with {@link #swapInStagedRows}
+     */
+    public void createStagingTable() {
+        jdbcTemplate.execute("""
+            CREATE TEMP TABLE IF NOT EXISTS %s (
+                month_year VARCHAR(50) NOT NULL,
+                assignment_name VARCHAR(255) NOT NULL,
+                typecode VARCHAR(10) NOT NULL,
+                hours INTEGER NOT NULL,
+                source_file TEXT,
+                period DATE NOT NULL
+            ) ON COMMIT DROP
+            """.formatted(STAGING_TABLE));
+    }
+
+    /**
+     * Partitions holding rows of a source file. Call it before the load's transaction: scanning
+     * timesheets in there would hold a lock on every partition until the commit, and the locks of
+     * {@link #swapInStagedRows} could then deadlock with another load.
+     */
+    public List<String> partitionsWithRows(String sourceFile, boolean includeUntracked) {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tableoid::regclass::text FROM timesheets WHERE "
+                + sourceCondition(includeUntracked), String.class, sourceFile);
+    }
+
+    /**
+     * Replace the rows of a source file, in the given partitions, by the staged rows, in the
+     * caller's transaction. Every partition involved is locked in name order, so two loads cannot
+     * deadlock: ACCESS EXCLUSIVE where the file has rows, ROW EXCLUSIVE where it only gets new
+     * ones. Under that lock no other writer has uncommitted rows in a partition, so one holding
+     * only this file's rows is truncated; in the others the file's rows are deleted. Returns the
+     * rows removed.
+     */
+    public int swapInStagedRows(String sourceFile, boolean includeUntracked, List<String> owned) {
+        String sourceCondition = sourceCondition(includeUntracked);
+
+        SortedMap<String, Boolean> partitions = new TreeMap<>();
+        for (LocalDate period : jdbcTemplate.queryForList("SELECT DISTINCT period FROM " + STAGING_TABLE, LocalDate.class)) {
+            partitions.put(partitionOf(period), false);
+        }
+        owned.forEach(name -> partitions.put(name, true));
+        partitions.forEach((name, hasRows) -> jdbcTemplate.execute(
+                "LOCK TABLE " + name + " IN " + (hasRows ? "ACCESS EXCLUSIVE" : "ROW EXCLUSIVE") + " MODE"));
+
+        int removed = 0;
+        int truncated = 0;
+        for (String name : owned) {
+            Map<String, Object> counts = jdbcTemplate.queryForMap(
+                    "SELECT COUNT(*) FILTER (WHERE " + sourceCondition + ") AS own, COUNT(*) AS total FROM " + name, sourceFile);
+            long own = ((Number) counts.get("own")).longValue();
+            if (own > 0 && own == ((Number) counts.get("total")).longValue()) {
+                jdbcTemplate.execute("TRUNCATE " + name);
+                removed += (int) own;
+                truncated++;
+            } else if (own > 0) {
+                removed += jdbcTemplate.update("DELETE FROM " + name + " WHERE " + sourceCondition, sourceFile);
+            }
+        }
+
+        jdbcTemplate.update("""
+            INSERT INTO timesheets (month_year, assignment_name, typecode, hours, source_file, period)
+            SELECT month_year, assignment_name, typecode, hours, source_file, period FROM %s
+            """.formatted(STAGING_TABLE));
+        log.debug("Swapped in the rows of {}: removed {} rows from {} partitions ({} truncated)",
+                sourceFile, removed, owned.size(), truncated);
+        return removed;
+    }
+
+    private static String sourceCondition(boolean includeUntracked) {
+        return includeUntracked ? "(source_file = ? OR source_file IS NULL)" : "source_file = ?";
+    }
+
+    private synchronized String partitionOf(LocalDate period) {
+        Map.Entry<LocalDate, Partition> range = ranges.floorEntry(period);
+        if (range == null || !period.isBefore(range.getValue().end())) {
+            throw new IllegalStateException("No timesheets partition for " + period);
+        }
+        return range.getValue().name();
+    }
+
+    private synchronized boolean isCovered(LocalDate period) {
+        Map.Entry<LocalDate, Partition> range = ranges.floorEntry(period);
+        return range != null && period.isBefore(range.getValue().end());
+    }
+
+    private synchronized void createPartition(LocalDate period) {
+        if (isCovered(period)) {
+            return;
+        }
+        LocalDate from = rangeStart(period);
+        LocalDate to = rangeEnd(from);
+        String name = partitionName(from);
+
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " (LIKE timesheets INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            jdbcTemplate.execute("ALTER TABLE timesheets ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')".formatted(name, from, to));
+        });
+        ranges.put(from, new Partition(to, name));
+        log.info("Created timesheets partition {} for {} to {}", name, from, to);
+    }
+
+    private synchronized void loadRanges() {
+        ranges.clear();
+        jdbcTemplate.query("""
+            SELECT c.oid::regclass::text AS name, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'timesheets'::regclass
+            """, rs -> {
+            Matcher matcher = RANGE_BOUND.matcher(rs.getString("bound"));
+            if (matcher.find()) {
+                ranges.put(LocalDate.parse(matcher.group(1)), new Partition(LocalDate.parse(matcher.group(2)), rs.getString("name")));
+            }
+        });
+        log.info("Timesheets table has {} partitions", ranges.size());
+    }
+
+    private LocalDate rangeStart(LocalDate period) {
+        return timesheetIngestionProperties.getPartitioning() == Partitioning.YEAR
+                ? period.withDayOfYear(1)
+                : period.withDayOfMonth(1);
+    }
+
+    private LocalDate rangeEnd(LocalDate from) {
+        return timesheetIngestionProperties.getPartitioning() == Partitioning.YEAR ? from.plusYears(1) : from.plusMonths(1);
+    }
+
+    private String partitionName(LocalDate from) {
+        return "timesheets_" + from.format(timesheetIngestionProperties.getPartitioning() == Partitioning.YEAR ? YEAR_SUFFIX : MONTH_SUFFIX);
+    }
+
+    private record Partition(LocalDate end, String name) {
+    }
+}
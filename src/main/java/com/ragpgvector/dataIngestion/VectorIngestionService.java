@@ -1,5 +1,10 @@
 package com.ragpgvector.dataIngestion;
 
+import com.ragpgvector.config.CvMetadataProperties;
+import com.ragpgvector.metrics.IngestionMetrics;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.repository.CvSearchCache;
+import com.ragpgvector.repository.CvVectorRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.reader.ExtractedTextFormatter;
@@ -7,93 +12,247 @@ import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
 import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
 import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Reads, splits and tags CV PDFs and stores the chunks through PgVectorStore, which embeds them in
+ * token-count batches. The store's own observations ("db.vector.client.operation", and
+ * "gen_ai.client.operation" for the embedding model) time the embedding and the inserts.
+ */
 @Service
 @Slf4j
 public class VectorIngestionService {
 
-    private final VectorStore vectorStore;
+    private static final String SOURCE = "cv";
 
-    public VectorIngestionService(VectorStore vectorStore) {
+    private final VectorStore vectorStore;
+    private final CvVectorRepository cvVectorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CvSearchCache cvSearchCache;
+    private final IngestionMetrics ingestionMetrics;
+    private final IngestionStatusService ingestionStatusService;
+    private final DatasetChangeBus datasetChangeBus;
+
+    // Keyword automata, compiled once from the configured keyword lists
+    private final AhoCorasickMatcher<List<CvTag>> metadataKeywords;
+    private final AhoCorasickMatcher<Integer> chunkTypeKeywords;
+    private final List<String> chunkTypes;
+
+    public VectorIngestionService(VectorStore vectorStore,
+                                  CvVectorRepository cvVectorRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  CvSearchCache cvSearchCache,
+                                  IngestionMetrics ingestionMetrics,
+                                  IngestionStatusService ingestionStatusService,
+                                  DatasetChangeBus datasetChangeBus,
+                                  CvMetadataProperties cvMetadataProperties) {
         this.vectorStore = vectorStore;
+        this.cvVectorRepository = cvVectorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cvSearchCache = cvSearchCache;
+        this.ingestionMetrics = ingestionMetrics;
+        this.ingestionStatusService = ingestionStatusService;
+        this.datasetChangeBus = datasetChangeBus;
+
+        Map<String, List<CvTag>> tags = new HashMap<>();
+        addTags(tags, CvTag.Kind.SKILL, cvMetadataProperties.getTechnicalSkills());
+        addTags(tags, CvTag.Kind.HOBBY, cvMetadataProperties.getHobbies());
+        addTags(tags, CvTag.Kind.HOBBIES_SECTION, cvMetadataProperties.getHobbiesSection());
+        addTags(tags, CvTag.Kind.SENIOR, cvMetadataProperties.getSeniorLevel());
+        addTags(tags, CvTag.Kind.JUNIOR, cvMetadataProperties.getJuniorLevel());
+        addTags(tags, CvTag.Kind.HIGHER_EDUCATION, cvMetadataProperties.getHigherEducation());
+        addTags(tags, CvTag.Kind.SOCIAL_PROFILE, cvMetadataProperties.getSocialProfiles());
+        this.metadataKeywords = new AhoCorasickMatcher<>(tags);
+
+        // Chunk types by priority: a keyword listed under several types counts for the first
+        Map<String, Integer> priorities = new HashMap<>();
+        this.chunkTypes = List.copyOf(cvMetadataProperties.getChunkTypes().keySet());
+        for (int i = 0; i < chunkTypes.size(); i++) {
+            for (String keyword : cvMetadataProperties.getChunkTypes().get(chunkTypes.get(i))) {
+                priorities.merge(keyword, i, Math::min);
+            }
+        }
+        this.chunkTypeKeywords = new AhoCorasickMatcher<>(priorities);
     }
 
+    private static void addTags(Map<String, List<CvTag>> tags, CvTag.Kind kind, List<String> keywords) {
+        for (String keyword : keywords) {
+            String name = keyword.endsWith("*") ? keyword.substring(0, keyword.length() - 1) : keyword;
+            tags.computeIfAbsent(keyword, k -> new ArrayList<>()).add(new CvTag(kind, name));
+        }
+    }
+
+    /**
+     * Ingest all CV PDFs. Resumable: files whose chunks are already completely stored with the
+     * same checksum are skipped, so a restart only embeds new, changed or unfinished files.
+     * A failing file does not stop the others; the failures are reported at the end.
+     */
     public void ingestCvFiles() throws IOException {
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         Resource[] resources = resolver.getResources("classpath:/cv/*.pdf");
 
         log.info("Start loading {} CV PDF files...", resources.length);
+        ingestionStatusService.start(DatasetSource.CV, resources.length, "Loading " + resources.length + " CV files");
+
+        cvVectorRepository.ensureFullTextIndex();
+        Map<String, String> ingestedChecksums = cvVectorRepository.findCompleteCvFileChecksums();
+        List<String> failedFiles = new ArrayList<>();
+        int processed = 0;
 
         for (Resource pdfResource : resources) {
+            long started = System.nanoTime();
+            String filename = pdfResource.getFilename();
             try {
-                // Enhanced PDF config for CV documents
-                PdfDocumentReaderConfig config = PdfDocumentReaderConfig.builder()
-                        .withPageTopMargin(0)
-                        .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
-                                .withNumberOfTopTextLinesToDelete(0)
-                                .build())
-                        .build();
-
-                PagePdfDocumentReader reader = new PagePdfDocumentReader(pdfResource, config);
-                var documents = reader.get();
-
-                // Enhance CV documents with specific metadata
-                var enhancedDocs = documents.stream().map(doc -> {
-                    String content = doc.getFormattedContent();
-                    Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
-
-                    // Add CV-specific metadata
-                    metadata.put("source_file", pdfResource.getFilename());
-                    metadata.put("file_type", "cv_pdf");
-                    metadata.put("document_category", "cv");
-                    metadata.put("candidate_name", extractCandidateName(pdfResource.getFilename()));
-
-                    // Extract CV-specific information
-                    extractCvMetadata(content, metadata);
-
-                    return new Document(content, metadata);
-                }).collect(Collectors.toList());
-
-                // Use larger chunks for CV content to maintain context
-                TokenTextSplitter splitter = new TokenTextSplitter(800, 150, 5, 2000, true);
-                var processedDocs = splitter.apply(enhancedDocs);
-
-                // Add chunk-specific metadata for CV
-                for (int i = 0; i < processedDocs.size(); i++) {
-                    var doc = processedDocs.get(i);
-                    doc.getMetadata().put("chunk_index", i);
-                    doc.getMetadata().put("total_chunks", processedDocs.size());
-
-                    String chunkType = determineCvChunkType(doc.getFormattedContent());
-                    doc.getMetadata().put("chunk_type", chunkType);
-
-                    // Log when hobbies section is found
-                    if ("hobbies".equals(chunkType)) {
-                        log.info("Detected hobbies section in chunk {} of {}", i + 1, processedDocs.size());
-                        log.debug("Hobbies content preview: {}",
-                            doc.getFormattedContent().length() > 200 ?
-                            doc.getFormattedContent().substring(0, 200) + "..." :
-                            doc.getFormattedContent());
-                    }
+                String checksum = checksum(pdfResource);
+                if (checksum.equals(ingestedChecksums.get(filename))) {
+                    log.info("Skipping {}: already ingested", filename);
+                    ingestionStatusService.progress(DatasetSource.CV, ++processed, "Skipped unchanged " + filename);
+                    continue;
                 }
 
-                vectorStore.accept(processedDocs);
-                log.info("Successfully ingested {} CV chunks from {}", processedDocs.size(), pdfResource.getFilename());
+                List<Document> processedDocs = readChunks(pdfResource, filename, checksum);
+                write(List.of(filename), processedDocs);
+
+                ingestionMetrics.recordItems(SOURCE, "chunks", processedDocs.size(), Duration.ofNanos(System.nanoTime() - started));
+                log.info("Successfully ingested {} CV chunks from {}", processedDocs.size(), filename);
 
             } catch (Exception e) {
-                log.error("Failed to ingest CV PDF: {}", pdfResource.getFilename(), e);
-                throw new RuntimeException("CV PDF ingestion failed", e);
+                log.error("Failed to ingest CV PDF: {}", filename, e);
+                failedFiles.add(filename);
             }
+            ingestionStatusService.progress(DatasetSource.CV, ++processed, "Processed " + filename);
+        }
+
+        if (!failedFiles.isEmpty()) {
+            throw new IllegalStateException("CV PDF ingestion failed for " + failedFiles);
         }
     }
 
+    /**
+     * Ingest a batch of external CV PDFs (e.g. from the drop directory). The chunks of all new or
+     * changed files are embedded together and replace the previous chunks of those files in one
+     * transaction. Returns the number of files that were (re)ingested.
+     */
+    public int ingestCvFiles(List<Path> files) throws Exception {
+        long started = System.nanoTime();
+        Map<String, String> ingestedChecksums = cvVectorRepository.findCompleteCvFileChecksums();
+
+        Map<String, List<Document>> chunksByFile = new LinkedHashMap<>();
+        for (Path file : files) {
+            Resource resource = new FileSystemResource(file);
+            String filename = file.getFileName().toString();
+            String checksum = checksum(resource);
+            if (checksum.equals(ingestedChecksums.get(filename))) {
+                log.info("Skipping {}: already ingested", filename);
+                continue;
+            }
+            chunksByFile.put(filename, readChunks(resource, filename, checksum));
+        }
+        if (chunksByFile.isEmpty()) {
+            return 0;
+        }
+
+        List<Document> allChunks = chunksByFile.values().stream().flatMap(List::stream).toList();
+        write(List.copyOf(chunksByFile.keySet()), allChunks);
+        chunksByFile.forEach((filename, chunks) ->
+                log.info("Successfully ingested {} CV chunks from {}", chunks.size(), filename));
+
+        ingestionMetrics.recordItems(SOURCE, "chunks", allChunks.size(), Duration.ofNanos(System.nanoTime() - started));
+        return chunksByFile.size();
+    }
+
+    private List<Document> readChunks(Resource pdfResource, String filename, String checksum) {
+        // Enhanced PDF config for CV documents
+        PdfDocumentReaderConfig config = PdfDocumentReaderConfig.builder()
+                .withPageTopMargin(0)
+                .withPageExtractedTextFormatter(ExtractedTextFormatter.builder()
+                        .withNumberOfTopTextLinesToDelete(0)
+                        .build())
+                .build();
+
+        // Parse the PDF pages and enhance them with CV specific metadata
+        var enhancedDocs = ingestionMetrics.stage(SOURCE, IngestionMetrics.STAGE_PARSE, () -> {
+            PagePdfDocumentReader reader = new PagePdfDocumentReader(pdfResource, config);
+            return reader.get().stream().map(doc -> {
+                String content = doc.getFormattedContent();
+                Map<String, Object> metadata = new HashMap<>(doc.getMetadata());
+
+                // Add CV-specific metadata
+                metadata.put("source_file", filename);
+                metadata.put("source_checksum", checksum);
+                metadata.put("file_type", "cv_pdf");
+                metadata.put("document_category", "cv");
+                metadata.put("candidate_name", extractCandidateName(filename));
+
+                // Extract CV-specific information
+                extractCvMetadata(content, metadata);
+
+                return new Document(content, metadata);
+            }).collect(Collectors.toList());
+        });
+
+        // Use larger chunks for CV content to maintain context
+        return ingestionMetrics.stage(SOURCE, IngestionMetrics.STAGE_SPLIT, () -> {
+            TokenTextSplitter splitter = new TokenTextSplitter(800, 150, 5, 2000, true);
+            var chunks = splitter.apply(enhancedDocs);
+
+            // Add chunk-specific metadata for CV
+            for (int i = 0; i < chunks.size(); i++) {
+                var doc = chunks.get(i);
+                doc.getMetadata().put("chunk_index", i);
+                doc.getMetadata().put("total_chunks", chunks.size());
+
+                String chunkType = determineCvChunkType(doc.getFormattedContent());
+                doc.getMetadata().put("chunk_type", chunkType);
+
+                // Log when hobbies section is found
+                if ("hobbies".equals(chunkType)) {
+                    log.info("Detected hobbies section in chunk {} of {}", i + 1, chunks.size());
+                    log.debug("Hobbies content preview: {}",
+                        doc.getFormattedContent().length() > 200 ?
+                        doc.getFormattedContent().substring(0, 200) + "..." :
+                        doc.getFormattedContent());
+                }
+            }
+            return chunks;
+        });
+    }
+
+    // Replace chunks left by an older version or an interrupted run of these files, atomically
+    private void write(List<String> filenames, List<Document> chunks) {
+        ingestionMetrics.stage(SOURCE, IngestionMetrics.STAGE_WRITE, () -> {
+            transactionTemplate.executeWithoutResult(status -> {
+                FilterExpressionBuilder filter = new FilterExpressionBuilder();
+                for (String filename : filenames) {
+                    vectorStore.delete(filter.and(filter.eq("document_category", "cv"), filter.eq("source_file", filename)).build());
+                }
+                vectorStore.add(chunks);
+            });
+            return null;
+        });
+        // After the commit, so no search can cache the old chunks again
+        cvSearchCache.invalidate();
+        datasetChangeBus.publish(DatasetSource.CV);
+    }
+
+    private String checksum(Resource resource) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(resource.getContentAsByteArray()));
+    }
+
 
     private String extractCandidateName(String filename) {
         // Extract candidate name from filename (e.g., "BEREND-BOTJE-CV.pdf" -> "Berend Botje")
@@ -103,96 +262,71 @@ public class VectorIngestionService {
                 .collect(Collectors.joining(" "));
     }
 
-    private void extractCvMetadata(String content, Map<String, Object> metadata) {
-        String lowerContent = content.toLowerCase();
-
-        // Extract skills
-        Set<String> skills = new HashSet<>();
-        String[] techSkills = {"java", "spring", "python", "javascript", "react", "docker", "kubernetes",
-                              "microservices", "rest", "api", "sql", "postgresql", "mysql", "mongodb",
-                              "git", "jenkins", "maven", "gradle", "junit", "mockito", "hibernate",
-                              "angular", "vue", "node.js", "typescript", "aws", "azure", "gcp"};
-
-        for (String skill : techSkills) {
-            if (lowerContent.contains(skill.toLowerCase())) {
-                skills.add(skill);
+    // Package-private so the JMH benchmarks can call it
+    void extractCvMetadata(String content, Map<String, Object> metadata) {
+        // One pass over the page for all keyword lists
+        Set<String> skills = new LinkedHashSet<>();
+        Set<String> hobbies = new LinkedHashSet<>();
+        Set<CvTag.Kind> found = EnumSet.noneOf(CvTag.Kind.class);
+        metadataKeywords.match(content, tags -> {
+            for (CvTag tag : tags) {
+                switch (tag.kind()) {
+                    case SKILL -> skills.add(tag.name());
+                    case HOBBY -> hobbies.add(tag.name());
+                    default -> found.add(tag.kind());
+                }
             }
-        }
+            return true;
+        });
+
         if (!skills.isEmpty()) {
             metadata.put("technical_skills", new ArrayList<>(skills));
         }
-
-        // Extract hobbies and interests
-        Set<String> hobbies = new HashSet<>();
-        String[] hobbyKeywords = {"reading", "writing", "music", "sports", "running", "cycling", "swimming",
-                                 "photography", "travel", "cooking", "gaming", "hiking", "painting", "drawing",
-                                 "dancing", "singing", "yoga", "meditation", "gardening", "fishing", "chess",
-                                 "basketball", "football", "tennis", "soccer", "volleyball", "climbing"};
-
-        for (String hobby : hobbyKeywords) {
-            if (lowerContent.contains(hobby.toLowerCase())) {
-                hobbies.add(hobby);
-            }
-        }
         if (!hobbies.isEmpty()) {
             metadata.put("hobbies_interests", new ArrayList<>(hobbies));
         }
 
         // Check if hobbies section exists
-        if (lowerContent.contains("hobbies") || lowerContent.contains("interests") ||
-            lowerContent.contains("personal interests") || lowerContent.contains("leisure")) {
+        if (found.contains(CvTag.Kind.HOBBIES_SECTION)) {
             metadata.put("has_hobbies_section", true);
         }
 
         // Extract experience level indicators
-        if (lowerContent.contains("senior") || lowerContent.contains("lead") ||
-            lowerContent.contains("architect") || lowerContent.contains("years experience")) {
+        if (found.contains(CvTag.Kind.SENIOR)) {
             metadata.put("experience_level", "senior");
-        } else if (lowerContent.contains("junior") || lowerContent.contains("graduate")) {
+        } else if (found.contains(CvTag.Kind.JUNIOR)) {
             metadata.put("experience_level", "junior");
         } else {
             metadata.put("experience_level", "mid");
         }
 
         // Extract education keywords
-        if (lowerContent.contains("university") || lowerContent.contains("bachelor") ||
-            lowerContent.contains("master") || lowerContent.contains("phd") || lowerContent.contains("degree")) {
+        if (found.contains(CvTag.Kind.HIGHER_EDUCATION)) {
             metadata.put("has_higher_education", true);
         }
 
         // Extract contact information patterns
-        if (lowerContent.contains("@") && lowerContent.contains(".")) {
+        if (content.indexOf('@') >= 0 && content.indexOf('.') >= 0) {
             metadata.put("has_email", true);
         }
-        if (lowerContent.contains("linkedin") || lowerContent.contains("github")) {
+        if (found.contains(CvTag.Kind.SOCIAL_PROFILE)) {
             metadata.put("has_social_profiles", true);
         }
     }
 
-    private String determineCvChunkType(String content) {
-        String lowerContent = content.toLowerCase();
-
-        if (lowerContent.contains("experience") || lowerContent.contains("work") ||
-            lowerContent.contains("employment") || lowerContent.contains("career")) {
-            return "experience";
-        } else if (lowerContent.contains("education") || lowerContent.contains("university") ||
-                  lowerContent.contains("degree") || lowerContent.contains("qualification")) {
-            return "education";
-        } else if (lowerContent.contains("skill") || lowerContent.contains("technical") ||
-                  lowerContent.contains("programming") || lowerContent.contains("technology")) {
-            return "skills";
-        } else if (lowerContent.contains("project") || lowerContent.contains("achievement") ||
-                  lowerContent.contains("accomplishment")) {
-            return "projects";
-        } else if (lowerContent.contains("contact") || lowerContent.contains("email") ||
-                  lowerContent.contains("phone") || lowerContent.contains("address")) {
-            return "contact";
-        } else if (lowerContent.contains("hobbies") || lowerContent.contains("hobby") ||
-                  lowerContent.contains("interests") || lowerContent.contains("personal interests") ||
-                  lowerContent.contains("leisure") || lowerContent.contains("activities")) {
-            return "hobbies";
-        } else {
-            return "general";
-        }
+    String determineCvChunkType(String content) {
+        // Stops as soon as a keyword of the first type is found
+        int[] best = {Integer.MAX_VALUE};
+        chunkTypeKeywords.match(content, priority -> {
+            best[0] = Math.min(best[0], priority);
+            return best[0] > 0;
+        });
+        return best[0] < chunkTypes.size() ? chunkTypes.get(best[0]) : "general";
+    }
+
+    // A keyword hit: what it indicates, and the keyword as reported in the metadata
+    private record CvTag(Kind kind, String name) {
+
+        enum Kind { SKILL, HOBBY, HOBBIES_SECTION, SENIOR, JUNIOR, HIGHER_EDUCATION, SOCIAL_PROFILE }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package com.ragpgvector.embedding;
+
+import com.ragpgvector.config.OfflineEmbeddingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.MetadataMode;
+import org.springframework.ai.embedding.AbstractEmbeddingModel;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Deterministic embedding model that runs without any remote service.
+ * Words and character trigrams are hashed into a fixed number of dimensions with a
+ * random sign (a sparse random projection), then L2-normalized. Texts that share words
+ * end up close in cosine distance, so ingestion and retrieval behave like with a real
+ * model while staying fully reproducible.
+ */
+@Slf4j
+public class OfflineEmbeddingModel extends AbstractEmbeddingModel {
+
+    private static final float WORD_WEIGHT = 1.0f;
+    private static final float TRIGRAM_WEIGHT = 0.5f;
+
+    private final OfflineEmbeddingProperties properties;
+
+    public OfflineEmbeddingModel(OfflineEmbeddingProperties properties) {
+        if (properties.getDimensions() <= 0) {
+            throw new IllegalArgumentException("Offline embedding dimensions must be positive");
+        }
+        if (properties.getFailureRate() < 0.0 || properties.getFailureRate() > 1.0) {
+            throw new IllegalArgumentException("Offline embedding failure rate must be between 0.0 and 1.0");
+        }
+        this.properties = properties;
+        this.embeddingDimensions.set(properties.getDimensions());
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        simulateRemoteCall();
+
+        List<String> texts = request.getInstructions();
+        List<Embedding> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            embeddings.add(new Embedding(embedText(texts.get(i)), i));
+        }
+        return new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getFormattedContent(MetadataMode.EMBED));
+    }
+
+    @Override
+    public int dimensions() {
+        return properties.getDimensions();
+    }
+
+    /**
+     * Embed a single text without latency or failure injection
+     */
+    public float[] embedText(String text) {
+        float[] vector = new float[properties.getDimensions()];
+        if (text == null || text.isBlank()) {
+            // Keep the vector non-zero so cosine distance stays defined
+            vector[0] = 1.0f;
+            return vector;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        int wordStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean letterOrDigit = i < length && Character.isLetterOrDigit(lower.charAt(i));
+            if (letterOrDigit && wordStart < 0) {
+                wordStart = i;
+            } else if (!letterOrDigit && wordStart >= 0) {
+                addWord(vector, lower, wordStart, i);
+                wordStart = -1;
+            }
+        }
+
+        normalize(vector);
+        return vector;
+    }
+
+    private void addWord(float[] vector, String text, int start, int end) {
+        addFeature(vector, hash(text, start, end, 0x9E3779B97F4A7C15L), WORD_WEIGHT);
+
+        // Character trigrams with word boundary markers, so "java" and "javascript" overlap partially
+        int padded = end - start + 2;
+        for (int i = 0; i + 3 <= padded; i++) {
+            long h = properties.getSeed() ^ 0xC2B2AE3D27D4EB4FL;
+            for (int j = i; j < i + 3; j++) {
+                int pos = start + j - 1;
+                char c = (pos < start || pos >= end) ? '#' : text.charAt(pos);
+                h = mix(h ^ c);
+            }
+            addFeature(vector, h, TRIGRAM_WEIGHT);
+        }
+    }
+
+    private void addFeature(float[] vector, long hash, float weight) {
+        int index = (int) Long.remainderUnsigned(hash, vector.length);
+        float sign = (hash & (1L << 63)) == 0 ? 1.0f : -1.0f;
+        vector[index] += sign * weight;
+    }
+
+    private long hash(String text, int start, int end, long salt) {
+        long h = properties.getSeed() ^ salt;
+        for (int i = start; i < end; i++) {
+            h = mix(h ^ text.charAt(i));
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        // SplitMix64 finalizer
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static void normalize(float[] vector) {
+        double sum = 0.0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        if (sum == 0.0) {
+            vector[0] = 1.0f;
+            return;
+        }
+        float norm = (float) Math.sqrt(sum);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= norm;
+        }
+    }
+
+    private void simulateRemoteCall() {
+        long delayMillis = properties.getLatency().toMillis();
+        long jitterMillis = properties.getJitter().toMillis();
+        if (jitterMillis > 0) {
+            delayMillis += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+        }
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Offline embedding call interrupted", e);
+            }
+        }
+
+        if (properties.getFailureRate() > 0.0 && ThreadLocalRandom.current().nextDouble() < properties.getFailureRate()) {
+            log.debug("Injecting offline embedding failure (failure rate {})", properties.getFailureRate());
+            throw new IllegalStateException("Injected offline embedding failure");
+        }
+    }
+}
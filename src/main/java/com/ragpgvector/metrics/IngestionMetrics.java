@@ -0,0 +1,65 @@
+package com.ragpgvector.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Metrics and tracing for the ingestion pipelines.
+ * Stages (parse, split, write) are "ragpgvector.ingestion.stage" observations tagged with
+ * source and stage; the CV write stage includes embedding the chunks, which Spring AI's own
+ * observations time separately. Processed items go to the "ragpgvector.ingestion.items" counter, and the
+ * "ragpgvector.ingestion.throughput" gauge holds the items per second of the last run.
+ */
+@Component
+public class IngestionMetrics {
+
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_SPLIT = "split";
+    public static final String STAGE_WRITE = "write";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicReference<Double>> throughput = new ConcurrentHashMap<>();
+
+    public IngestionMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Time one ingestion stage for a data source (e.g. "timesheets", "cv")
+     */
+    public <T, E extends Throwable> T stage(String source, String stage, Observation.CheckedCallable<T, E> work) throws E {
+        return Observation.createNotStarted("ragpgvector.ingestion.stage", observationRegistry)
+                .contextualName("ingest " + source + " " + stage)
+                .lowCardinalityKeyValue("source", source)
+                .lowCardinalityKeyValue("stage", stage)
+                .observeChecked(work);
+    }
+
+    /**
+     * Record the items (rows, chunks) ingested by a run and how long the run took
+     */
+    public void recordItems(String source, String unit, long count, Duration elapsed) {
+        meterRegistry.counter("ragpgvector.ingestion.items", "source", source, "unit", unit).increment(count);
+
+        double perSecond = elapsed.isZero() ? count : count / (elapsed.toNanos() / 1_000_000_000.0);
+        throughput.computeIfAbsent(source + "/" + unit, key -> {
+            AtomicReference<Double> holder = new AtomicReference<>(0.0);
+            Gauge.builder("ragpgvector.ingestion.throughput", holder, AtomicReference::get)
+                    .baseUnit(unit + "/s")
+                    .tag("source", source)
+                    .tag("unit", unit)
+                    .register(meterRegistry);
+            return holder;
+        }).set(perSecond);
+    }
+}
@@ -0,0 +1,159 @@
+package com.ragpgvector.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Metrics and tracing for MCP tool invocations.
+ * Every tool call becomes a "ragpgvector.mcp.tool" observation (timer + span), tagged with the
+ * tool name and outcome. Retrieval stages inside a tool are nested observations, so they show up
+ * both as "ragpgvector.retrieval.stage" timers and as child spans. Calls answered in a degraded
+ * way (e.g. full-text instead of vector search) have outcome "degraded" and are counted in
+ * "ragpgvector.mcp.tool.degraded" by reason.
+ */
+@Component
+@Slf4j
+public class ToolMetrics {
+
+    public static final String STAGE_EMBEDDING = "embedding";
+    public static final String STAGE_VECTOR_SEARCH = "vector_search";
+    public static final String STAGE_POST_PROCESSING = "post_processing";
+    public static final String STAGE_FULL_TEXT_SEARCH = "full_text_search";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final boolean measurePayloadBytes;
+    private final int payloadSampleInterval;
+    private final AtomicLong calls = new AtomicLong();
+
+    public ToolMetrics(ObservationRegistry observationRegistry,
+                       MeterRegistry meterRegistry,
+                       ObjectMapper objectMapper,
+                       @Value("${ragpgvector.metrics.payload-bytes:false}") boolean measurePayloadBytes,
+                       @Value("${ragpgvector.metrics.payload-sample-interval:10}") int payloadSampleInterval) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.measurePayloadBytes = measurePayloadBytes;
+        this.payloadSampleInterval = Math.max(1, payloadSampleInterval);
+    }
+
+    /**
+     * Observe a tool invocation that returns the usual response map.
+     * A response with success=false counts as an error; the numeric value under resultSizeKey
+     * (if present) is recorded as the result size.
+     */
+    public Map<String, Object> observe(String tool, String resultSizeKey, Supplier<Map<String, Object>> invocation) {
+        Observation observation = Observation.createNotStarted("ragpgvector.mcp.tool", observationRegistry)
+                .contextualName("mcp tool " + tool)
+                .lowCardinalityKeyValue("tool", tool);
+        return observation.observe(() -> {
+            Map<String, Object> response;
+            try {
+                response = invocation.get();
+            } catch (RuntimeException e) {
+                // Recorded as the observation's error by observe
+                observation.lowCardinalityKeyValue("outcome", "exception");
+                countError(tool, "exception");
+                throw e;
+            }
+
+            String outcome = outcome(response);
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            if (!"success".equals(outcome) && !"degraded".equals(outcome)) {
+                countError(tool, outcome);
+            }
+
+            Object size = resultSizeKey != null ? response.get(resultSizeKey) : null;
+            if (size instanceof Number number) {
+                summary("ragpgvector.mcp.tool.result.size", tool, "results").record(number.doubleValue());
+            }
+            if (samplePayload()) {
+                summary("ragpgvector.mcp.tool.payload", tool, "bytes").record(payloadBytes(response));
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Time one retrieval stage (embedding, vector search, post-processing) of a tool
+     */
+    public <T> T stage(String tool, String stage, Supplier<T> work) {
+        return Observation.createNotStarted("ragpgvector.retrieval.stage", observationRegistry)
+                .contextualName(tool + " " + stage)
+                .lowCardinalityKeyValue("tool", tool)
+                .lowCardinalityKeyValue("stage", stage)
+                .observe(work);
+    }
+
+    /**
+     * Count a call that fell back to a degraded answer
+     */
+    public void countDegraded(String tool, String reason) {
+        meterRegistry.counter("ragpgvector.mcp.tool.degraded", "tool", tool, "reason", reason).increment();
+    }
+
+    private static String outcome(Map<String, Object> response) {
+        if (!Boolean.FALSE.equals(response.get("success"))) {
+            return Boolean.TRUE.equals(response.get("degraded")) ? "degraded" : "success";
+        }
+        // Data source still being ingested
+        return response.containsKey("ingestion_status") ? "not_ready" : "unsuccessful";
+    }
+
+    private void countError(String tool, String outcome) {
+        meterRegistry.counter("ragpgvector.mcp.tool.errors", "tool", tool, "outcome", outcome).increment();
+    }
+
+    private DistributionSummary summary(String name, String tool, String unit) {
+        return DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tag("tool", tool)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Measuring serializes the response a second time, so only one in payloadSampleInterval calls is measured
+    private boolean samplePayload() {
+        return measurePayloadBytes && calls.getAndIncrement() % payloadSampleInterval == 0;
+    }
+
+    private long payloadBytes(Object response) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            objectMapper.writeValue(counter, response);
+        } catch (Exception e) {
+            log.debug("Could not measure tool payload size: {}", e.getMessage());
+        }
+        return counter.count;
+    }
+
+    /**
+     * Discards the bytes and only counts them, so measuring needs no buffer
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.ragpgvector.model;
+
+/**
+ * Another server instance changed the data of a source; local caches of that source are stale
+ */
+public record DatasetChangedEvent(DatasetSource source, long version) {
+}
@@ -0,0 +1,33 @@
+package com.ragpgvector.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The data sources the MCP tools serve, each ingested and made available independently
+ */
+public enum DatasetSource {
+
+    TIMESHEETS("timesheets", "Timesheet data"),
+    CV("cv", "CV data");
+
+    private final String id;
+    private final String displayName;
+
+    DatasetSource(String id, String displayName) {
+        this.id = id;
+        this.displayName = displayName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public static Optional<DatasetSource> fromId(String id) {
+        return Arrays.stream(values()).filter(source -> source.id.equals(id)).findFirst();
+    }
+}
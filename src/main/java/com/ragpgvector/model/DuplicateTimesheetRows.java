@@ -0,0 +1,10 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+
+/**
+ * Several rows for the same month, project and typecode; identical when they all have the same hours
+ */
+public record DuplicateTimesheetRows(LocalDate period, String project, String typecode, long rows, long hours,
+                                     boolean identical) {
+}
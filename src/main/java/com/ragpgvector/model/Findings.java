@@ -0,0 +1,9 @@
+package com.ragpgvector.model;
+
+import java.util.List;
+
+/**
+ * The first findings of a data quality check, and how many the check found in total
+ */
+public record Findings<T>(long total, List<T> items) {
+}
@@ -0,0 +1,10 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+
+/**
+ * Hours and record count for one criterion of a batch lookup (index into the criteria list).
+ * Period is the month for a per-month breakdown and null for the criterion's total.
+ */
+public record HoursAggregate(int criterion, LocalDate period, long records, long hours) {
+}
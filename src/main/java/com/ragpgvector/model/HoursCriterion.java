@@ -0,0 +1,16 @@
+package com.ragpgvector.model;
+
+import org.springaicommunity.mcp.annotation.McpToolParam;
+
+/**
+ * One question of a batch hours lookup. Empty fields do not filter; fromMonth/toMonth give an
+ * inclusive month range, within year when it is set and in every year otherwise.
+ */
+public record HoursCriterion(
+        @McpToolParam(description = "Short name to recognize this criterion in the answer", required = false) String label,
+        @McpToolParam(description = "(Part of) the assignment name, e.g. 'Devops ClientReporting'", required = false) String project,
+        @McpToolParam(description = "Exact type code, e.g. DEV, STBL or STBH", required = false) String typecode,
+        @McpToolParam(description = "Four digit year, e.g. 2021", required = false) Integer year,
+        @McpToolParam(description = "First month of the range as an English month name, e.g. January", required = false) String fromMonth,
+        @McpToolParam(description = "Last month of the range (inclusive); defaults to fromMonth", required = false) String toMonth
+) {}
@@ -0,0 +1,11 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+
+/**
+ * Monthly hours of a project and typecode far from the average of the months before; deviation
+ * is the distance from that average in standard deviations (negative when below it)
+ */
+public record HoursOutlier(LocalDate period, String project, String typecode, long hours, double rollingAverage,
+                           double deviation) {
+}
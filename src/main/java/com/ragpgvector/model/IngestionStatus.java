@@ -0,0 +1,77 @@
+package com.ragpgvector.model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the ingestion state of one data source
+ */
+public record IngestionStatus(DatasetSource source,
+                              Phase phase,
+                              long processed,
+                              long total,
+                              String message,
+                              Instant startedAt,
+                              Instant finishedAt,
+                              String error) {
+
+    public enum Phase {
+        PENDING, RUNNING, READY, FAILED
+    }
+
+    public static IngestionStatus pending(DatasetSource source) {
+        return new IngestionStatus(source, Phase.PENDING, 0, 0, "Waiting to start", null, null, null);
+    }
+
+    public IngestionStatus running(long processed, long total, String message) {
+        Instant started = startedAt != null ? startedAt : Instant.now();
+        return new IngestionStatus(source, Phase.RUNNING, processed, total, message, started, null, null);
+    }
+
+    public IngestionStatus ready(String message) {
+        // Streamed sources only learn their total while processing
+        long done = Math.max(processed, total);
+        return new IngestionStatus(source, Phase.READY, done, done, message, startedAt, Instant.now(), null);
+    }
+
+    public IngestionStatus failed(String error) {
+        return new IngestionStatus(source, Phase.FAILED, processed, total, "Ingestion failed", startedAt, Instant.now(), error);
+    }
+
+    public boolean isReady() {
+        return phase == Phase.READY;
+    }
+
+    /**
+     * Completed percentage, or null while the total is not known yet
+     */
+    public Integer percentComplete() {
+        if (phase == Phase.READY) {
+            return 100;
+        }
+        return total > 0 ? (int) (100 * processed / total) : null;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("source", source.getId());
+        map.put("status", phase.name());
+        map.put("processed", processed);
+        map.put("total", total);
+        if (percentComplete() != null) {
+            map.put("percent_complete", percentComplete());
+        }
+        map.put("message", message);
+        if (startedAt != null) {
+            map.put("started_at", startedAt.toString());
+        }
+        if (finishedAt != null) {
+            map.put("finished_at", finishedAt.toString());
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,65 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Conversions between the "Month Year" text of the hour sheets (e.g. "October 2021") and the
+ * period column, the first day of that month
+ */
+public final class MonthYear {
+
+    /**
+     * Same rule as the parsing in Java, for SQL backfills: an English month name and a 4 digit year
+     */
+    public static final String SQL_PATTERN =
+            "^\\s*(january|february|march|april|may|june|july|august|september|october|november|december)\\s+[0-9]{4}\\s*$";
+
+    private MonthYear() {
+    }
+
+    /**
+     * First day of the month of e.g. "October 2021", case-insensitive
+     */
+    public static Optional<LocalDate> parse(String monthYear) {
+        if (monthYear == null) {
+            return Optional.empty();
+        }
+        String[] parts = monthYear.trim().split("\\s+");
+        if (parts.length != 2) {
+            return Optional.empty();
+        }
+        Optional<Month> month = parseMonth(parts[0]);
+        Optional<Integer> year = parseYear(parts[1]);
+        if (month.isEmpty() || year.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(LocalDate.of(year.get(), month.get(), 1));
+    }
+
+    /**
+     * Full English month name, case-insensitive
+     */
+    public static Optional<Month> parseMonth(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Month.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Four digit year
+     */
+    public static Optional<Integer> parseYear(String year) {
+        if (year == null || !year.trim().matches("[0-9]{4}")) {
+            return Optional.empty();
+        }
+        return Optional.of(Integer.parseInt(year.trim()));
+    }
+}
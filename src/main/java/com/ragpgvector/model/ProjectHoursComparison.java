@@ -0,0 +1,13 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Hours of one project over a month range shared by all compared projects, so months without
+ * hours count as zero for every project alike
+ */
+public record ProjectHoursComparison(String project, LocalDate from, LocalDate to, long months, long monthsWithHours,
+                                     long totalHours, double averageMonthlyHours, long peakMonthlyHours,
+                                     Map<String, Long> hoursByTypecode) {
+}
@@ -0,0 +1,8 @@
+package com.ragpgvector.model;
+
+/**
+ * A named SQL statement with representative parameters, used to EXPLAIN the queries the
+ * repositories actually run
+ */
+public record QueryShape(String name, String sql, Object... params) {
+}
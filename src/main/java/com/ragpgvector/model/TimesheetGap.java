@@ -0,0 +1,10 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+
+/**
+ * Consecutive months (from and to inclusive) without any hours for a project, between its first
+ * and last registered month
+ */
+public record TimesheetGap(String project, LocalDate from, LocalDate to, long months) {
+}
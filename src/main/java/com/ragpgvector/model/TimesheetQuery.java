@@ -0,0 +1,19 @@
+package com.ragpgvector.model;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Set;
+
+/**
+ * Typed timesheet filter. Empty sets and null bounds do not filter; values within a set are
+ * alternatives. Years and months combine into whole months (months alone match every year),
+ * from is the first day of the first month and to the first day after the last month.
+ */
+public record TimesheetQuery(Set<String> projects, Set<String> typecodes, Set<Integer> years, Set<Month> months,
+                             LocalDate from, LocalDate to) {
+
+    public boolean hasCriteria() {
+        return !projects.isEmpty() || !typecodes.isEmpty() || !years.isEmpty() || !months.isEmpty()
+                || from != null || to != null;
+    }
+}
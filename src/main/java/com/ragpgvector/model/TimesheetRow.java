@@ -0,0 +1,26 @@
+package com.ragpgvector.model;
+
+/**
+ * One timesheet row as the MCP tools use it: only the columns they read, for streamed queries
+ */
+public record TimesheetRow(long id, String monthYear, String assignmentName, String typecode, int hours) {
+
+    /**
+     * The year part of "Month Year", or null
+     */
+    public String year() {
+        int space = monthYear != null ? monthYear.lastIndexOf(' ') : -1;
+        return space >= 0 ? monthYear.substring(space + 1) : null;
+    }
+
+    /**
+     * The month part of "Month Year", or null
+     */
+    public String month() {
+        if (monthYear == null) {
+            return null;
+        }
+        int space = monthYear.indexOf(' ');
+        return space >= 0 ? monthYear.substring(0, space) : monthYear;
+    }
+}
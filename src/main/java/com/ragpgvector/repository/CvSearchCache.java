@@ -0,0 +1,224 @@
+package com.ragpgvector.repository;
+
+import com.ragpgvector.config.CvSearchCacheProperties;
+import com.ragpgvector.config.ReadDataSourceProperties;
+import com.ragpgvector.model.DatasetChangedEvent;
+import com.ragpgvector.model.DatasetSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Semantic cache of CV similarity searches. Recent query embeddings are kept in a small in-memory
+ * index; a query whose embedding has a cosine similarity of at least the configured threshold to a
+ * cached one, with the same topK and distance threshold, gets the cached results.
+ * <p>
+ * Every write to the CV chunks invalidates the cache, also when another server instance made it. Lookups are counted in
+ * "ragpgvector.cv.search.cache.requests" (result=hit|miss); a sample of the hits is verified
+ * against a real search, and the ones that differ count as "ragpgvector.cv.search.cache.false_hits".
+ * <p>
+ * Searches run on the read pool. With read replicas, results are not stored for the maximum
+ * replication lag after an invalidation, since a replica may still return the old chunks.
+ */
+@Component
+@Slf4j
+public class CvSearchCache implements MeterBinder {
+
+    private final CvSearchCacheProperties properties;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter verifications;
+    private final Counter falseHits;
+
+    // Bumped by every invalidation; results of a search that overlapped one are not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    // Replicas may lag behind the write that invalidated the cache by up to this long
+    private final long staleWindow;
+    private volatile long invalidatedAt;
+
+    // Guarded by this; a linear scan over a few hundred vectors costs far less than a vector search
+    private final Entry[] entries;
+    private int size;
+
+    public CvSearchCache(CvSearchCacheProperties properties, ReadDataSourceProperties readProperties,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.entries = new Entry[Math.max(1, properties.getMaxEntries())];
+        this.staleWindow = readProperties.getConfiguredReplicas().isEmpty()
+                ? 0L : readProperties.getMaxReplicationLag().toNanos();
+        this.invalidatedAt = System.nanoTime() - staleWindow;
+        this.hits = meterRegistry.counter("ragpgvector.cv.search.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("ragpgvector.cv.search.cache.requests", "result", "miss");
+        this.verifications = meterRegistry.counter("ragpgvector.cv.search.cache.verifications");
+        this.falseHits = meterRegistry.counter("ragpgvector.cv.search.cache.false_hits");
+    }
+
+    /**
+     * Registers the size gauge once the cache is constructed, so it never sees a half-built instance
+     */
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("ragpgvector.cv.search.cache.size", this, CvSearchCache::size).register(meterRegistry);
+    }
+
+    /**
+     * The cached results of a similar query with the same filter, or the results of the search
+     */
+    public List<Document> get(float[] queryEmbedding, int topK, double similarityThreshold, Supplier<List<Document>> search) {
+        if (!properties.isEnabled()) {
+            return search.get();
+        }
+
+        float[] normalized = normalize(queryEmbedding);
+        long searchGeneration = generation.get();
+        Entry cached = lookup(normalized, topK, similarityThreshold);
+        if (cached == null) {
+            misses.increment();
+            return store(normalized, topK, similarityThreshold, searchGeneration, search.get());
+        }
+
+        hits.increment();
+        if (ThreadLocalRandom.current().nextDouble() < properties.getVerificationRate()) {
+            verifications.increment();
+            List<Document> fresh = search.get();
+            if (!sameDocuments(cached.results, fresh)) {
+                falseHits.increment();
+                log.debug("CV search cache false hit: {} cached vs {} fresh chunks", cached.results.size(), fresh.size());
+                return store(normalized, topK, similarityThreshold, searchGeneration, fresh);
+            }
+        }
+        return cached.results;
+    }
+
+    /**
+     * Drop all cached results, after the CV chunks changed
+     */
+    public void invalidate() {
+        invalidatedAt = System.nanoTime();
+        generation.incrementAndGet();
+        synchronized (this) {
+            Arrays.fill(entries, null);
+            size = 0;
+        }
+    }
+
+    @EventListener
+    public void onDatasetChanged(DatasetChangedEvent event) {
+        if (event.source() == DatasetSource.CV) {
+            invalidate();
+        }
+    }
+
+    private synchronized int size() {
+        return size;
+    }
+
+    private synchronized Entry lookup(float[] embedding, int topK, double similarityThreshold) {
+        long now = System.nanoTime();
+        long timeToLive = properties.getTimeToLive().toNanos();
+        Entry best = null;
+        double bestSimilarity = properties.getSimilarityThreshold();
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries[i];
+            if (entry.topK != topK || entry.similarityThreshold != similarityThreshold
+                    || now - entry.created > timeToLive) {
+                continue;
+            }
+            double similarity = dot(embedding, entry.embedding);
+            if (similarity >= bestSimilarity) {
+                bestSimilarity = similarity;
+                best = entry;
+            }
+        }
+        if (best != null) {
+            best.lastUsed = now;
+        }
+        return best;
+    }
+
+    private synchronized List<Document> store(float[] embedding, int topK, double similarityThreshold, long searchGeneration,
+                                              List<Document> results) {
+        List<Document> copy = List.copyOf(results);
+        long now = System.nanoTime();
+        if (generation.get() != searchGeneration || now - invalidatedAt < staleWindow) {
+            // The CVs changed while searching, or a replica may not have the change yet; these
+            // results may already be stale
+            return copy;
+        }
+        int slot = size < entries.length ? size++ : leastRecentlyUsed();
+        entries[slot] = new Entry(embedding, topK, similarityThreshold, copy, now);
+        return copy;
+    }
+
+    private int leastRecentlyUsed() {
+        int slot = 0;
+        for (int i = 1; i < size; i++) {
+            if (entries[i].lastUsed < entries[slot].lastUsed) {
+                slot = i;
+            }
+        }
+        return slot;
+    }
+
+    private static boolean sameDocuments(List<Document> cached, List<Document> fresh) {
+        if (cached.size() != fresh.size()) {
+            return false;
+        }
+        for (int i = 0; i < cached.size(); i++) {
+            if (!cached.get(i).getId().equals(fresh.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm == 0.0 ? 0.0f : (float) (vector[i] / norm);
+        }
+        return normalized;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class Entry {
+        private final float[] embedding;
+        private final int topK;
+        private final double similarityThreshold;
+        private final List<Document> results;
+        private final long created;
+        private long lastUsed;
+
+        Entry(float[] embedding, int topK, double similarityThreshold, List<Document> results, long created) {
+            this.embedding = embedding;
+            this.topK = topK;
+            this.similarityThreshold = similarityThreshold;
+            this.results = results;
+            this.created = created;
+            this.lastUsed = created;
+        }
+    }
+}
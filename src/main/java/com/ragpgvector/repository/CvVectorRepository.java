@@ -0,0 +1,218 @@
+package com.ragpgvector.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+import com.ragpgvector.config.DataSourceConfig;
+import com.ragpgvector.model.QueryShape;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.jdbc.PgStatement;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads of the CV chunks in the pgvector vector_store table for the CV tools. Chunks are written
+ * through Spring AI's PgVectorStore, which also creates the schema and HNSW index; the searches
+ * here use the same cosine distance and category filter as PgVectorStore.similaritySearch, which
+ * cannot serve the tools because it
+ * <ul>
+ *     <li>embeds the query itself, while the tools embed within their latency budget, hedge slow
+ *     embedding requests and look up the semantic cache by the query embedding first;</li>
+ *     <li>has no per-call timeout, while a search may only take what is left of the budget;</li>
+ *     <li>runs on the primary's JdbcTemplate, while tool reads go to the read pool (a replica when
+ *     configured).</li>
+ * </ul>
+ * The full-text fallback for when no embedding arrives in time has no PgVectorStore equivalent.
+ */
+@Repository
+@Slf4j
+public class CvVectorRepository {
+
+    private static final String SIMILAR_CV_CHUNKS_SQL = """
+        SELECT id, content, metadata, embedding <=> ? AS distance
+        FROM vector_store
+        WHERE embedding <=> ? < ?
+          AND metadata::jsonb ->> 'document_category' = 'cv'
+        ORDER BY distance
+        LIMIT ?
+        """;
+
+    // Fallback when no query embedding is available in time: chunks containing any of the query
+    // words, ranked by cover density; the rank (normalized to 0..1) stands in for the similarity
+    private static final String FULL_TEXT_CV_CHUNKS_SQL = """
+        SELECT id, content, metadata, 1 - ts_rank_cd(to_tsvector('simple', content), query, 32) AS distance
+        FROM vector_store, to_tsquery('simple', ?) query
+        WHERE to_tsvector('simple', content) @@ query
+          AND metadata::jsonb ->> 'document_category' = 'cv'
+        ORDER BY distance
+        LIMIT ?
+        """;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Similarity searches of the MCP tools go to the read pool (a replica when configured)
+    @Autowired
+    @Qualifier(DataSourceConfig.READ_JDBC_TEMPLATE)
+    private JdbcTemplate readJdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CvSearchCache cvSearchCache;
+
+    private final RowMapper<Document> documentRowMapper = (rs, rowNum) -> {
+        Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+        double distance = rs.getDouble("distance");
+        metadata.put("distance", distance);
+
+        return Document.builder()
+                .id(rs.getString("id"))
+                .text(rs.getString("content"))
+                .metadata(metadata)
+                .score(1.0 - distance)
+                .build();
+    };
+
+    /**
+     * Nearest CV chunks by cosine distance, same semantics as VectorStore.similaritySearch
+     * with filter document_category == 'cv'. Served from the semantic cache when a close enough
+     * query was searched before. Cancelled by the database with a QueryTimeoutException when it
+     * takes longer than the timeout (null = no timeout).
+     */
+    public List<Document> findSimilarCvChunks(float[] queryEmbedding, int topK, double similarityThreshold, Duration timeout) {
+        return cvSearchCache.get(queryEmbedding, topK, similarityThreshold, () -> {
+            PGvector vector = new PGvector(queryEmbedding);
+            return query(SIMILAR_CV_CHUNKS_SQL, timeout, vector, vector, 1.0 - similarityThreshold, topK);
+        });
+    }
+
+    /**
+     * CV chunks containing any word of the text, best matches first, for when there is no query
+     * embedding in time. The distance in the metadata is 1 - the normalized text rank.
+     */
+    public List<Document> findCvChunksByText(String text, int topK, Duration timeout) {
+        String query = NON_WORD.splitAsStream(text.toLowerCase(Locale.ROOT))
+                .filter(word -> word.length() > 1)
+                .distinct()
+                .collect(Collectors.joining(" | "));
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return query(FULL_TEXT_CV_CHUNKS_SQL, timeout, query, topK);
+    }
+
+    /**
+     * Index for findCvChunksByText; without it the fallback scans all chunks, which is fine for a
+     * few CVs. Created after the CV table exists.
+     */
+    public void ensureFullTextIndex() {
+        try {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_vector_store_content_fts "
+                    + "ON vector_store USING gin (to_tsvector('simple', content))");
+        } catch (DataAccessException e) {
+            log.warn("Could not create the full-text index on vector_store: {}", e.getMessage());
+        }
+    }
+
+    private List<Document> query(String sql, Duration timeout, Object... params) {
+        return readJdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            if (timeout != null) {
+                // Millisecond precision, java.sql.Statement only takes whole seconds
+                statement.unwrap(PgStatement.class).setQueryTimeoutMs(Math.max(1, timeout.toMillis()));
+            }
+            new ArgumentPreparedStatementSetter(params).setValues(statement);
+            return statement;
+        }, documentRowMapper);
+    }
+
+    /**
+     * The filtered similarity search as it is run by findSimilarCvChunks, for EXPLAIN diagnostics
+     */
+    public QueryShape similarCvChunksShape(float[] queryEmbedding, int topK, double similarityThreshold) {
+        PGvector vector = new PGvector(queryEmbedding);
+        return new QueryShape("findSimilarCvChunks", SIMILAR_CV_CHUNKS_SQL, vector, vector, 1.0 - similarityThreshold, topK);
+    }
+
+    /**
+     * Embedding of an arbitrary stored CV chunk, usable as a realistic query vector
+     */
+    public Optional<float[]> findSampleCvEmbedding() {
+        String sql = """
+            SELECT embedding::text FROM vector_store
+            WHERE metadata::jsonb ->> 'document_category' = 'cv'
+            LIMIT 1
+            """;
+
+        List<float[]> embeddings = readJdbcTemplate.query(sql, (rs, rowNum) -> parseVector(rs.getString(1)));
+        return embeddings.stream().findFirst();
+    }
+
+    // Text form of a pgvector value: [0.1,0.2,...]
+    private static float[] parseVector(String text) {
+        String[] values = text.substring(1, text.length() - 1).split(",");
+        float[] vector = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vector[i] = Float.parseFloat(values[i]);
+        }
+        return vector;
+    }
+
+    /**
+     * Checksums of the CV files whose chunks are all stored, keyed by source file name.
+     * Files that were only partially written are left out, so they get ingested again.
+     * Read from the primary, as it decides what ingestion writes.
+     */
+    public Map<String, String> findCompleteCvFileChecksums() {
+        String sql = """
+            SELECT metadata::jsonb ->> 'source_file' AS source_file,
+                   MAX(metadata::jsonb ->> 'source_checksum') AS source_checksum
+            FROM vector_store
+            WHERE metadata::jsonb ->> 'document_category' = 'cv'
+            GROUP BY metadata::jsonb ->> 'source_file'
+            HAVING COUNT(*) = MAX((metadata::jsonb ->> 'total_chunks')::int)
+               AND COUNT(DISTINCT metadata::jsonb ->> 'source_checksum') = 1
+            """;
+
+        Map<String, String> checksums = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            checksums.put(rs.getString("source_file"), rs.getString("source_checksum"));
+        });
+        return checksums;
+    }
+
+    private Map<String, Object> parseMetadata(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not parse vector_store metadata: {}", e.getMessage());
+            return new HashMap<>();
+        }
+    }
+}
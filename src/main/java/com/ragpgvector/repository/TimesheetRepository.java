@@ -1,17 +1,41 @@
 package com.ragpgvector.repository;
 
-import com.ragpgvector.model.TimesheetRecord;
+import com.ragpgvector.config.DataSourceConfig;
+import com.ragpgvector.model.DuplicateTimesheetRows;
+import com.ragpgvector.model.Findings;
+import com.ragpgvector.model.HoursAggregate;
+import com.ragpgvector.model.HoursCriterion;
+import com.ragpgvector.model.HoursOutlier;
+import com.ragpgvector.model.MonthYear;
+import com.ragpgvector.model.ProjectHoursComparison;
+import com.ragpgvector.model.QueryShape;
+import com.ragpgvector.model.TimesheetGap;
+import com.ragpgvector.model.TimesheetQuery;
+import com.ragpgvector.model.TimesheetRow;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Array;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Repository for accessing timesheet data from the relational database
@@ -20,182 +44,512 @@ import java.util.Map;
 @Slf4j
 public class TimesheetRepository {
 
+    // The columns the tools use; created_at and updated_at are never read
+    private static final String TIMESHEET_COLUMNS = "id, month_year, assignment_name, typecode, hours";
+
+    // Rows fetched per round trip by the streaming queries
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String SEARCH_BY_TEXT_SQL = """
+        SELECT id, month_year, assignment_name, typecode, hours FROM timesheets
+        WHERE LOWER(month_year) LIKE LOWER(?) 
+           OR LOWER(assignment_name) LIKE LOWER(?) 
+           OR LOWER(typecode) LIKE LOWER(?)
+        ORDER BY month_year, assignment_name
+        """;
+
+    private static final String ALL_TIMESHEETS_SQL = "SELECT " + TIMESHEET_COLUMNS + " FROM timesheets ORDER BY month_year, assignment_name";
+
+    private static final String SUMMARY_SQL = """
+        SELECT 
+            COUNT(*) as total_records,
+            COUNT(DISTINCT assignment_name) as unique_projects,
+            COUNT(DISTINCT SPLIT_PART(month_year, ' ', 2)) as unique_years,
+            COUNT(DISTINCT month_year) as unique_periods,
+            MIN(SPLIT_PART(month_year, ' ', 2)) as earliest_year,
+            MAX(SPLIT_PART(month_year, ' ', 2)) as latest_year,
+            SUM(hours) as total_hours,
+            AVG(hours) as average_hours
+        FROM timesheets
+        """;
+
+    private static final String DISTINCT_PROJECTS_SQL = "SELECT DISTINCT assignment_name FROM timesheets ORDER BY assignment_name";
+
+    private static final String DISTINCT_TYPECODES_SQL = "SELECT DISTINCT typecode FROM timesheets ORDER BY typecode";
+
+    private static final String DISTINCT_YEARS_SQL = "SELECT DISTINCT SPLIT_PART(month_year, ' ', 2) as year FROM timesheets ORDER BY year";
+
+    // One row per criterion in the VALUES list; the rows, an optional period bound and the
+    // grouping are filled in by buildAggregateQuery
+    private static final String AGGREGATE_HOURS_SQL = """
+        WITH criteria (criterion, project, typecode, period_from, period_to, month_from, month_to) AS (
+            VALUES %s
+        )
+        SELECT c.criterion, %s AS period, COUNT(t.id) AS records, COALESCE(SUM(t.hours), 0) AS hours
+        FROM criteria c
+        LEFT JOIN timesheets t
+               ON (c.project IS NULL OR LOWER(t.assignment_name) LIKE LOWER(c.project))
+              AND (c.typecode IS NULL OR LOWER(t.typecode) = LOWER(c.typecode))
+              AND (c.period_from IS NULL OR t.period >= c.period_from)
+              AND (c.period_to IS NULL OR t.period < c.period_to)
+              AND (c.month_from IS NULL OR EXTRACT(MONTH FROM t.period) BETWEEN c.month_from AND c.month_to)%s
+        GROUP BY %s
+        ORDER BY c.criterion, period NULLS FIRST
+        """;
+
+    // Totals per criterion plus, for matched months only, one row per month
+    private static final String BY_MONTH_GROUPING = """
+        GROUPING SETS ((c.criterion), (c.criterion, t.period))
+        HAVING GROUPING(t.period) = 1 OR t.period IS NOT NULL""";
+
+    private static final String CRITERION_ROW = "(?::int, ?::text, ?::text, ?::date, ?::date, ?::int, ?::int)";
+
+    // The data quality checks below report their total with COUNT(*) OVER () and only return the
+    // first rows; %s is an optional project filter
+
+    // Months without rows between the first and last month of each project, as ranges of
+    // consecutive months (a month minus its rank is the same for every month of one range)
+    private static final String MISSING_MONTHS_SQL = """
+        WITH spans AS (
+            SELECT assignment_name, MIN(period) AS first_period, MAX(period) AS last_period
+            FROM timesheets
+            WHERE period IS NOT NULL%s
+            GROUP BY assignment_name
+        ), missing AS (
+            SELECT s.assignment_name, m.period::date AS period
+            FROM spans s
+            CROSS JOIN LATERAL generate_series(s.first_period, s.last_period, interval '1 month') AS m(period)
+            WHERE NOT EXISTS (SELECT 1 FROM timesheets t
+                              WHERE t.assignment_name = s.assignment_name AND t.period = m.period::date)
+        ), gaps AS (
+            SELECT assignment_name, MIN(period) AS gap_from, MAX(period) AS gap_to, COUNT(*) AS months
+            FROM (SELECT assignment_name, period,
+                         period - ROW_NUMBER() OVER (PARTITION BY assignment_name ORDER BY period) * interval '1 month' AS island
+                  FROM missing) m
+            GROUP BY assignment_name, island
+        )
+        SELECT assignment_name, gap_from, gap_to, months, COUNT(*) OVER () AS total
+        FROM gaps
+        ORDER BY months DESC, assignment_name, gap_from
+        LIMIT ?
+        """;
+
+    private static final String DUPLICATE_ROWS_SQL = """
+        SELECT period, assignment_name, typecode, COUNT(*) AS row_count, SUM(hours) AS hours,
+               COUNT(DISTINCT hours) = 1 AS identical, COUNT(*) OVER () AS total
+        FROM timesheets
+        WHERE period IS NOT NULL%s
+        GROUP BY period, assignment_name, typecode
+        HAVING COUNT(*) > 1
+        ORDER BY period, assignment_name, typecode
+        LIMIT ?
+        """;
+
+    // Monthly hours compared with the average of the preceding calendar months of the same
+    // project and typecode. The spread is at least 10% of that average (and one hour), so a
+    // steady history does not turn every small change into an outlier.
+    private static final String HOUR_OUTLIERS_SQL = """
+        WITH monthly AS (
+            SELECT assignment_name, typecode, period, SUM(hours) AS hours
+            FROM timesheets
+            WHERE period IS NOT NULL%s
+            GROUP BY assignment_name, typecode, period
+        ), rolling AS (
+            SELECT assignment_name, typecode, period, hours,
+                   AVG(hours) OVER w AS rolling_average,
+                   GREATEST(STDDEV_SAMP(hours) OVER w, AVG(hours) OVER w * 0.1, 1) AS spread,
+                   COUNT(*) OVER w AS history
+            FROM monthly
+            WINDOW w AS (PARTITION BY assignment_name, typecode ORDER BY period
+                         RANGE BETWEEN make_interval(months => ?) PRECEDING AND interval '1 month' PRECEDING)
+        )
+        SELECT period, assignment_name, typecode, hours, rolling_average,
+               (hours - rolling_average) / spread AS deviation, COUNT(*) OVER () AS total
+        FROM rolling
+        WHERE history >= ? AND ABS(hours - rolling_average) > ? * spread
+        ORDER BY ABS(hours - rolling_average) / spread DESC, period
+        LIMIT ?
+        """;
+
+    // Every project over the same months (the given range, or all months of the selected
+    // projects), months without hours counted as zero
+    private static final String COMPARE_PROJECTS_SQL = """
+        WITH selected AS (
+            SELECT assignment_name, typecode, period, hours
+            FROM timesheets
+            WHERE period IS NOT NULL%s
+        ), bounds AS (
+            SELECT COALESCE(?::date, MIN(period)) AS period_from, COALESCE(?::date, MAX(period)) AS period_to
+            FROM selected
+        ), months AS (
+            SELECT m.period::date AS period
+            FROM bounds b
+            CROSS JOIN LATERAL generate_series(b.period_from, b.period_to, interval '1 month') AS m(period)
+        ), monthly AS (
+            SELECT p.assignment_name, m.period, COALESCE(SUM(s.hours), 0) AS hours
+            FROM (SELECT DISTINCT assignment_name FROM selected) p
+            CROSS JOIN months m
+            LEFT JOIN selected s ON s.assignment_name = p.assignment_name AND s.period = m.period
+            GROUP BY p.assignment_name, m.period
+        ), typecodes AS (
+            SELECT s.assignment_name, s.typecode, SUM(s.hours) AS hours
+            FROM selected s
+            JOIN bounds b ON s.period BETWEEN b.period_from AND b.period_to
+            GROUP BY s.assignment_name, s.typecode
+        )
+        SELECT m.assignment_name, MIN(m.period) AS period_from, MAX(m.period) AS period_to, COUNT(*) AS months,
+               COUNT(*) FILTER (WHERE m.hours > 0) AS months_with_hours, SUM(m.hours) AS total_hours,
+               AVG(m.hours) AS average_monthly_hours, MAX(m.hours) AS peak_monthly_hours,
+               (SELECT array_agg(t.typecode ORDER BY t.typecode) FROM typecodes t WHERE t.assignment_name = m.assignment_name) AS typecodes,
+               (SELECT array_agg(t.hours ORDER BY t.typecode) FROM typecodes t WHERE t.assignment_name = m.assignment_name) AS typecode_hours
+        FROM monthly m
+        GROUP BY m.assignment_name
+        ORDER BY total_hours DESC, m.assignment_name
+        """;
+
+    private static final String PROJECT_FILTER = "\n      AND assignment_name = ANY (?)";
+
+    // Months of history an outlier is compared with, at least
+    private static final int MIN_OUTLIER_HISTORY = 3;
+
+    // Only reads, so all queries use the read pool (a replica when configured)
     @Autowired
+    @Qualifier(DataSourceConfig.READ_JDBC_TEMPLATE)
     private JdbcTemplate jdbcTemplate;
 
-    private final RowMapper<TimesheetRecord> timesheetRowMapper = new RowMapper<TimesheetRecord>() {
-        @Override
-        public TimesheetRecord mapRow(ResultSet rs, int rowNum) throws SQLException {
-            TimesheetRecord record = new TimesheetRecord();
-            record.setId(rs.getLong("id"));
-            record.setMonthYear(rs.getString("month_year"));
-            record.setAssignmentName(rs.getString("assignment_name"));
-            record.setTypecode(rs.getString("typecode"));
-            record.setHours(rs.getInt("hours"));
-
-            // Handle timestamps that might be null
-            if (rs.getTimestamp("created_at") != null) {
-                record.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-            }
-            if (rs.getTimestamp("updated_at") != null) {
-                record.setUpdatedAt(rs.getTimestamp("updated_at").toLocalDateTime());
-            }
+    @Autowired
+    @Qualifier(DataSourceConfig.READ_TRANSACTION_MANAGER)
+    private PlatformTransactionManager transactionManager;
 
-            return record;
-        }
-    };
+    /**
+     * Every query shape this repository runs, with representative parameters, for EXPLAIN diagnostics
+     */
+    public List<QueryShape> queryShapes(String sampleProject, String sampleMonthYear, String sampleTypecode) {
+        String[] period = sampleMonthYear.split(" ");
+        String sampleMonth = period[0];
+        String sampleYear = period.length > 1 ? period[1] : "";
+
+        return List.of(
+                new QueryShape("streamTimesheetsByText", SEARCH_BY_TEXT_SQL,
+                        "%" + sampleProject + "%", "%" + sampleProject + "%", "%" + sampleProject + "%"),
+                new QueryShape("streamTimesheetsByText(all)", ALL_TIMESHEETS_SQL),
+                buildFilterQuery(new TimesheetQuery(Set.of(sampleProject), Set.of(sampleTypecode),
+                        MonthYear.parseYear(sampleYear).map(Set::of).orElse(Set.of()),
+                        MonthYear.parseMonth(sampleMonth).map(Set::of).orElse(Set.of()), null, null)),
+                buildAggregateQuery(List.of(
+                        new HoursCriterion(null, sampleProject, sampleTypecode, MonthYear.parseYear(sampleYear).orElse(2020), "January", "March"),
+                        new HoursCriterion(null, sampleProject, null, MonthYear.parseYear(sampleYear).orElse(2020), null, null)), true),
+                qualityCheckQuery("findMissingMonths", MISSING_MONTHS_SQL, Set.of(sampleProject), List.of(), 50),
+                qualityCheckQuery("findDuplicateRows", DUPLICATE_ROWS_SQL, Set.of(), List.of(), 50),
+                qualityCheckQuery("findHourOutliers", HOUR_OUTLIERS_SQL, Set.of(),
+                        List.of(6, MIN_OUTLIER_HISTORY, 2.0), 50),
+                buildCompareQuery(Set.of(), null, null),
+                new QueryShape("getTimesheetSummary", SUMMARY_SQL),
+                new QueryShape("getDistinctProjects", DISTINCT_PROJECTS_SQL),
+                new QueryShape("getDistinctTypecodes", DISTINCT_TYPECODES_SQL),
+                new QueryShape("getDistinctYears", DISTINCT_YEARS_SQL)
+        );
+    }
 
     /**
-     * Search timesheets based on flexible criteria
+     * Stream the timesheets matching a typed query to the consumer. Every criterion is an exact
+     * predicate on an indexed column: project and typecode lists become = ANY, years and months
+     * become a list of periods. Rows are fetched in batches and not kept, so any number of rows
+     * fits in constant memory.
      */
-    public List<TimesheetRecord> searchTimesheets(String monthYear, String assignmentName, String typecode, String year, String month) {
-        StringBuilder sql = new StringBuilder("SELECT * FROM timesheets WHERE 1=1");
+    public void streamTimesheets(TimesheetQuery query, Consumer<TimesheetRow> consumer) {
+        QueryShape shape = buildFilterQuery(query);
+
+        log.debug("Streaming typed timesheet query: {}", shape.sql());
+
+        stream(shape, consumer);
+    }
 
-        if (monthYear != null && !monthYear.trim().isEmpty()) {
-            sql.append(" AND LOWER(month_year) LIKE LOWER(?)");
+    /**
+     * Stream the timesheets whose month, project or typecode contains the text to the consumer,
+     * or all timesheets when the text is empty
+     */
+    public void streamTimesheetsByText(String searchText, Consumer<TimesheetRow> consumer) {
+        if (searchText == null || searchText.trim().isEmpty()) {
+            stream(new QueryShape("streamTimesheetsByText(all)", ALL_TIMESHEETS_SQL), consumer);
+            return;
         }
-        if (assignmentName != null && !assignmentName.trim().isEmpty()) {
-            sql.append(" AND LOWER(assignment_name) LIKE LOWER(?)");
+
+        String searchPattern = "%" + searchText.trim() + "%";
+        stream(new QueryShape("streamTimesheetsByText", SEARCH_BY_TEXT_SQL, searchPattern, searchPattern, searchPattern), consumer);
+    }
+
+    private void stream(QueryShape query, Consumer<TimesheetRow> consumer) {
+        // The PostgreSQL driver only fetches in batches, instead of reading the whole result,
+        // when auto-commit is off
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query.sql());
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            new ArgumentPreparedStatementSetter(query.params()).setValues(statement);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(toTimesheetRow(rs))));
+    }
+
+    // By position, in TIMESHEET_COLUMNS order; package-private so the JMH benchmarks can call it
+    static TimesheetRow toTimesheetRow(ResultSet rs) throws SQLException {
+        return new TimesheetRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5));
+    }
+
+    private QueryShape buildFilterQuery(TimesheetQuery query) {
+        StringBuilder sql = new StringBuilder("SELECT " + TIMESHEET_COLUMNS + " FROM timesheets WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        if (!query.projects().isEmpty()) {
+            sql.append(" AND assignment_name = ANY (?)");
+            params.add(query.projects().toArray(String[]::new));
         }
-        if (typecode != null && !typecode.trim().isEmpty()) {
-            sql.append(" AND LOWER(typecode) = LOWER(?)");
+        if (!query.typecodes().isEmpty()) {
+            sql.append(" AND typecode = ANY (?)");
+            params.add(query.typecodes().toArray(String[]::new));
         }
-        if (year != null && !year.trim().isEmpty()) {
-            sql.append(" AND SPLIT_PART(month_year, ' ', 2) = ?");
+        if (!query.years().isEmpty()) {
+            // Every month of the given years (or only the given months), as period values, so
+            // the period index and partition pruning apply
+            Set<Month> months = query.months().isEmpty() ? Set.of(Month.values()) : query.months();
+            List<String> periods = new ArrayList<>();
+            for (int year : query.years()) {
+                for (Month month : months) {
+                    periods.add(LocalDate.of(year, month, 1).toString());
+                }
+            }
+            sql.append(" AND period = ANY (?::date[])");
+            params.add(periods.toArray(String[]::new));
+        } else if (!query.months().isEmpty()) {
+            sql.append(" AND EXTRACT(MONTH FROM period)::int = ANY (?)");
+            params.add(query.months().stream().map(Month::getValue).toArray(Integer[]::new));
         }
-        if (month != null && !month.trim().isEmpty()) {
-            sql.append(" AND LOWER(SPLIT_PART(month_year, ' ', 1)) = LOWER(?)");
+        if (query.from() != null) {
+            sql.append(" AND period >= ?");
+            params.add(query.from());
+        }
+        if (query.to() != null) {
+            sql.append(" AND period < ?");
+            params.add(query.to());
         }
 
-        sql.append(" ORDER BY month_year, assignment_name");
-
-        log.debug("Executing timesheet search query: {}", sql);
-
-        // Build parameters dynamically
-        Object[] params = buildParams(monthYear, assignmentName, typecode, year, month);
+        sql.append(" ORDER BY period, assignment_name, typecode");
+        return new QueryShape("streamTimesheets", sql.toString(), params.toArray());
+    }
 
-        return jdbcTemplate.query(sql.toString(), timesheetRowMapper, params);
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
     }
 
     /**
-     * Search timesheets with text-based query (for natural language queries)
+     * Hours and record counts for many criteria in a single statement: the criteria are joined
+     * as a VALUES list, so N questions cost one round trip instead of N searches. With byMonth
+     * every criterion also gets a per-month breakdown (GROUPING SETS) next to its total.
      */
-    public List<TimesheetRecord> searchTimesheetsByText(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            return getAllTimesheets();
+    public List<HoursAggregate> aggregateHours(List<HoursCriterion> criteria, boolean byMonth) {
+        QueryShape query = buildAggregateQuery(criteria, byMonth);
+
+        log.debug("Executing batch hours query for {} criteria", criteria.size());
+
+        return jdbcTemplate.query(query.sql(), (rs, rowNum) -> new HoursAggregate(
+                rs.getInt("criterion"),
+                rs.getObject("period", LocalDate.class),
+                rs.getLong("records"),
+                rs.getLong("hours")), query.params());
+    }
+
+    private QueryShape buildAggregateQuery(List<HoursCriterion> criteria, boolean byMonth) {
+        List<String> rows = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        LocalDate earliest = LocalDate.MAX;
+        LocalDate latest = LocalDate.MIN;
+        boolean bounded = !criteria.isEmpty();
+
+        for (int i = 0; i < criteria.size(); i++) {
+            HoursCriterion criterion = criteria.get(i);
+            Optional<Month> fromMonth = parseCriterionMonth(criterion.fromMonth(), i);
+            Optional<Month> toMonth = parseCriterionMonth(criterion.toMonth(), i);
+            Month first = fromMonth.orElse(toMonth.isPresent() ? Month.JANUARY : null);
+            Month last = toMonth.orElse(fromMonth.orElse(null));
+            if (first != null && first.compareTo(last) > 0) {
+                throw new IllegalArgumentException("Criterion " + (i + 1) + ": " + first + " comes after " + last);
+            }
+
+            LocalDate from = null;
+            LocalDate to = null;
+            if (criterion.year() != null) {
+                from = LocalDate.of(criterion.year(), first != null ? first : Month.JANUARY, 1);
+                to = LocalDate.of(criterion.year(), last != null ? last : Month.DECEMBER, 1).plusMonths(1);
+                earliest = from.isBefore(earliest) ? from : earliest;
+                latest = to.isAfter(latest) ? to : latest;
+            } else {
+                // An open-ended criterion means the whole table has to be considered
+                bounded = false;
+            }
+
+            rows.add(CRITERION_ROW);
+            params.add(i);
+            params.add(hasText(criterion.project()) ? "%" + criterion.project().trim() + "%" : null);
+            params.add(hasText(criterion.typecode()) ? criterion.typecode().trim() : null);
+            params.add(from);
+            params.add(to);
+            // Months without a year match that month range in every year
+            params.add(criterion.year() == null && first != null ? first.getValue() : null);
+            params.add(criterion.year() == null && last != null ? last.getValue() : null);
         }
 
-        String sql = """
-            SELECT * FROM timesheets 
-            WHERE LOWER(month_year) LIKE LOWER(?) 
-               OR LOWER(assignment_name) LIKE LOWER(?) 
-               OR LOWER(typecode) LIKE LOWER(?)
-            ORDER BY month_year, assignment_name
-            """;
+        // When every criterion has a year, bound the join by the overall range so partitions
+        // outside it are pruned
+        String envelope = "";
+        if (bounded) {
+            envelope = "\n      AND t.period >= ? AND t.period < ?";
+            params.add(earliest);
+            params.add(latest);
+        }
 
-        String searchPattern = "%" + searchText.trim() + "%";
-        log.debug("Executing text search for: {}", searchText);
+        String sql = AGGREGATE_HOURS_SQL.formatted(String.join(",\n        ", rows),
+                byMonth ? "t.period" : "NULL::date", envelope,
+                byMonth ? BY_MONTH_GROUPING : "c.criterion");
+        return new QueryShape("aggregateHours(" + criteria.size() + " criteria" + (byMonth ? ", by month" : "") + ")",
+                sql, params.toArray());
+    }
 
-        return jdbcTemplate.query(sql, timesheetRowMapper, searchPattern, searchPattern, searchPattern);
+    private static Optional<Month> parseCriterionMonth(String month, int index) {
+        if (!hasText(month)) {
+            return Optional.empty();
+        }
+        Optional<Month> parsed = MonthYear.parseMonth(month);
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("Criterion " + (index + 1) + ": '" + month + "' is not an English month name");
+        }
+        return parsed;
+    }
+
+    /**
+     * Ranges of months without hours inside each project's active period, longest first
+     */
+    public Findings<TimesheetGap> findMissingMonths(Set<String> projects, int limit) {
+        QueryShape query = qualityCheckQuery("findMissingMonths", MISSING_MONTHS_SQL, projects, List.of(), limit);
+        return findings(query, (rs, rowNum) -> new TimesheetGap(rs.getString("assignment_name"),
+                rs.getObject("gap_from", LocalDate.class), rs.getObject("gap_to", LocalDate.class), rs.getLong("months")));
     }
 
     /**
-     * Get all timesheets
+     * Months with more than one row for the same project and typecode
      */
-    public List<TimesheetRecord> getAllTimesheets() {
-        String sql = "SELECT * FROM timesheets ORDER BY month_year, assignment_name";
-        return jdbcTemplate.query(sql, timesheetRowMapper);
+    public Findings<DuplicateTimesheetRows> findDuplicateRows(Set<String> projects, int limit) {
+        QueryShape query = qualityCheckQuery("findDuplicateRows", DUPLICATE_ROWS_SQL, projects, List.of(), limit);
+        return findings(query, (rs, rowNum) -> new DuplicateTimesheetRows(rs.getObject("period", LocalDate.class),
+                rs.getString("assignment_name"), rs.getString("typecode"), rs.getLong("row_count"), rs.getLong("hours"),
+                rs.getBoolean("identical")));
     }
 
     /**
-     * Get timesheets for a specific project and period
+     * Monthly hours more than threshold spreads away from the average of the previous
+     * windowMonths months of the same project and typecode, largest deviation first
      */
-    public List<TimesheetRecord> getTimesheetsForProjectAndPeriod(String project, String monthYear) {
-        String sql = """
-            SELECT * FROM timesheets 
-            WHERE LOWER(assignment_name) LIKE LOWER(?) 
-            AND LOWER(month_year) LIKE LOWER(?)
-            ORDER BY month_year, typecode
-            """;
+    public Findings<HoursOutlier> findHourOutliers(Set<String> projects, int windowMonths, double threshold, int limit) {
+        QueryShape query = qualityCheckQuery("findHourOutliers", HOUR_OUTLIERS_SQL, projects,
+                List.of(windowMonths, MIN_OUTLIER_HISTORY, threshold), limit);
+        return findings(query, (rs, rowNum) -> new HoursOutlier(rs.getObject("period", LocalDate.class),
+                rs.getString("assignment_name"), rs.getString("typecode"), rs.getLong("hours"),
+                rs.getDouble("rolling_average"), rs.getDouble("deviation")));
+    }
 
-        String projectPattern = "%" + (project != null ? project : "") + "%";
-        String periodPattern = "%" + (monthYear != null ? monthYear : "") + "%";
+    private QueryShape qualityCheckQuery(String name, String sql, Set<String> projects, List<Object> checkParams, int limit) {
+        List<Object> params = new ArrayList<>();
+        if (!projects.isEmpty()) {
+            params.add(projects.toArray(String[]::new));
+        }
+        params.addAll(checkParams);
+        params.add(limit);
+        return new QueryShape(name, sql.formatted(projects.isEmpty() ? "" : PROJECT_FILTER), params.toArray());
+    }
 
-        return jdbcTemplate.query(sql, timesheetRowMapper, projectPattern, periodPattern);
+    private <T> Findings<T> findings(QueryShape query, RowMapper<T> rowMapper) {
+        log.debug("Executing {}", query.name());
+        long[] total = new long[1];
+        List<T> items = jdbcTemplate.query(query.sql(), (rs, rowNum) -> {
+            total[0] = rs.getLong("total");
+            return rowMapper.mapRow(rs, rowNum);
+        }, query.params());
+        return new Findings<>(total[0], items);
+    }
+
+    /**
+     * Hours of each project over the same months, from and to inclusive; without a range, all
+     * months of the selected projects (all projects when none are given). Largest total first.
+     */
+    public List<ProjectHoursComparison> compareProjectHours(Set<String> projects, LocalDate from, LocalDate to) {
+        QueryShape query = buildCompareQuery(projects, from, to);
+
+        log.debug("Comparing hours of {} projects", projects.isEmpty() ? "all" : projects.size());
+
+        return jdbcTemplate.query(query.sql(), (rs, rowNum) -> {
+            Map<String, Long> hoursByTypecode = new LinkedHashMap<>();
+            Array typecodes = rs.getArray("typecodes");
+            Array typecodeHours = rs.getArray("typecode_hours");
+            if (typecodes != null && typecodeHours != null) {
+                String[] codes = (String[]) typecodes.getArray();
+                Object[] hours = (Object[]) typecodeHours.getArray();
+                for (int i = 0; i < codes.length; i++) {
+                    hoursByTypecode.put(codes[i], ((Number) hours[i]).longValue());
+                }
+            }
+            return new ProjectHoursComparison(rs.getString("assignment_name"),
+                    rs.getObject("period_from", LocalDate.class), rs.getObject("period_to", LocalDate.class),
+                    rs.getLong("months"), rs.getLong("months_with_hours"), rs.getLong("total_hours"),
+                    rs.getDouble("average_monthly_hours"), rs.getLong("peak_monthly_hours"), hoursByTypecode);
+        }, query.params());
+    }
+
+    private QueryShape buildCompareQuery(Set<String> projects, LocalDate from, LocalDate to) {
+        StringBuilder filter = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        if (!projects.isEmpty()) {
+            filter.append(PROJECT_FILTER);
+            params.add(projects.toArray(String[]::new));
+        }
+        // Also bounds the scan, so a partitioned table only reads the compared months
+        if (from != null) {
+            filter.append("\n      AND period >= ?");
+            params.add(from);
+        }
+        if (to != null) {
+            filter.append("\n      AND period <= ?");
+            params.add(to);
+        }
+        params.add(from);
+        params.add(to);
+        return new QueryShape("compareProjectHours", COMPARE_PROJECTS_SQL.formatted(filter), params.toArray());
     }
 
     /**
      * Get summary statistics
      */
     public Map<String, Object> getTimesheetSummary() {
-        String sql = """
-            SELECT 
-                COUNT(*) as total_records,
-                COUNT(DISTINCT assignment_name) as unique_projects,
-                COUNT(DISTINCT SPLIT_PART(month_year, ' ', 2)) as unique_years,
-                COUNT(DISTINCT month_year) as unique_periods,
-                MIN(SPLIT_PART(month_year, ' ', 2)) as earliest_year,
-                MAX(SPLIT_PART(month_year, ' ', 2)) as latest_year,
-                SUM(hours) as total_hours,
-                AVG(hours) as average_hours
-            FROM timesheets
-            """;
-
-        return jdbcTemplate.queryForMap(sql);
+        return jdbcTemplate.queryForMap(SUMMARY_SQL);
     }
 
     /**
      * Get distinct project names
      */
     public List<String> getDistinctProjects() {
-        String sql = "SELECT DISTINCT assignment_name FROM timesheets ORDER BY assignment_name";
-        return jdbcTemplate.queryForList(sql, String.class);
+        return jdbcTemplate.queryForList(DISTINCT_PROJECTS_SQL, String.class);
     }
 
     /**
-     * Get distinct years
+     * Get distinct typecodes
      */
-    public List<String> getDistinctYears() {
-        String sql = "SELECT DISTINCT SPLIT_PART(month_year, ' ', 2) as year FROM timesheets ORDER BY year";
-        return jdbcTemplate.queryForList(sql, String.class);
+    public List<String> getDistinctTypecodes() {
+        return jdbcTemplate.queryForList(DISTINCT_TYPECODES_SQL, String.class);
     }
 
     /**
-     * Get total hours for a specific project
+     * Get distinct years
      */
-    public Integer getTotalHoursForProject(String projectName) {
-        String sql = "SELECT COALESCE(SUM(hours), 0) FROM timesheets WHERE LOWER(assignment_name) LIKE LOWER(?)";
-        String projectPattern = "%" + (projectName != null ? projectName : "") + "%";
-        return jdbcTemplate.queryForObject(sql, Integer.class, projectPattern);
-    }
-
-    private Object[] buildParams(String monthYear, String assignmentName, String typecode, String year, String month) {
-        int paramCount = 0;
-        if (monthYear != null && !monthYear.trim().isEmpty()) paramCount++;
-        if (assignmentName != null && !assignmentName.trim().isEmpty()) paramCount++;
-        if (typecode != null && !typecode.trim().isEmpty()) paramCount++;
-        if (year != null && !year.trim().isEmpty()) paramCount++;
-        if (month != null && !month.trim().isEmpty()) paramCount++;
-
-        Object[] params = new Object[paramCount];
-        int index = 0;
-
-        if (monthYear != null && !monthYear.trim().isEmpty()) {
-            params[index++] = "%" + monthYear.trim() + "%";
-        }
-        if (assignmentName != null && !assignmentName.trim().isEmpty()) {
-            params[index++] = "%" + assignmentName.trim() + "%";
-        }
-        if (typecode != null && !typecode.trim().isEmpty()) {
-            params[index++] = typecode.trim();
-        }
-        if (year != null && !year.trim().isEmpty()) {
-            params[index++] = year.trim();
-        }
-        if (month != null && !month.trim().isEmpty()) {
-            params[index++] = month.trim();
-        }
-
-        return params;
+    public List<String> getDistinctYears() {
+        return jdbcTemplate.queryForList(DISTINCT_YEARS_SQL, String.class);
     }
 }
@@ -0,0 +1,13 @@
+package com.ragpgvector.service;
+
+/**
+ * A tool call ran out of its latency budget
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,15 +1,28 @@
 package com.ragpgvector.service;
 
+import com.ragpgvector.config.QueryBudgetProperties;
+import com.ragpgvector.dataIngestion.IngestionStatusService;
+import com.ragpgvector.metrics.ToolMetrics;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.Deadline;
+import com.ragpgvector.repository.CvVectorRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpPrompt;
+import org.springaicommunity.mcp.annotation.McpToolParam;
 import org.springframework.ai.document.Document;
-import org.springframework.ai.vectorstore.SearchRequest;
-import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -20,8 +33,35 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CVMcpService {
 
+    // Facets per searchCVFacets call, and the chunks returned per facet by default and at most
+    static final int MAX_FACETS = 8;
+    private static final int DEFAULT_FACET_TOP_K = 4;
+    private static final int MAX_FACET_TOP_K = 10;
+
+    // Vector searches of all searchCVFacets calls share these threads, and so hold at most this
+    // many pooled connections at a time
+    private static final int FACET_SEARCH_THREADS = 4;
+
+    private final ExecutorService facetSearchExecutor = Executors.newFixedThreadPool(FACET_SEARCH_THREADS,
+            Thread.ofPlatform().name("cv-facet-search-", 0).daemon(true).factory());
+
+    @Autowired
+    private QueryEmbedder queryEmbedder;
+
+    @Autowired
+    private QueryBudgetProperties queryBudgetProperties;
+
     @Autowired
-    private VectorStore vectorStore;
+    private CvVectorRepository cvVectorRepository;
+
+    @Autowired
+    private ToolMetrics toolMetrics;
+
+    @Autowired
+    private IngestionStatusService ingestionStatusService;
+
+    @Autowired
+    private CvResponseBuilder cvResponseBuilder;
 
     /**
      * Search CV information using vector similarity search
@@ -34,18 +74,19 @@ public class CVMcpService {
                     "Returns relevant CV sections with context about the candidate's background."
     )
     public Map<String, Object> searchCVInformation(String query) {
+        return toolMetrics.observe("searchCVInformation", "sections_found",
+                () -> ingestionStatusService.whenReady(DatasetSource.CV, () -> doSearchCVInformation(query)));
+    }
+
+    private Map<String, Object> doSearchCVInformation(String query) {
         log.info("MCP tool searchCVInformation called with query: {}", query);
+        String tool = "searchCVInformation";
 
         try {
             // Filter specifically for CV documents and perform similarity search
-            List<Document> results = vectorStore.similaritySearch(
-                    SearchRequest.builder()
-                            .query(query)
-                            .topK(6) // Get more results for better coverage
-                            .similarityThreshold(0.5) // Lower threshold for better recall
-                            .filterExpression("document_category == 'cv'") // Only search CV documents
-                            .build()
-            );
+            // topK 6 for better coverage, threshold 0.5 for better recall
+            Retrieval retrieval = retrieve(tool, List.of(query), 6, 0.5);
+            List<Document> results = retrieval.results().getFirst();
 
             log.info("Found {} CV document chunks matching query", results.size());
 
@@ -54,47 +95,164 @@ public class CVMcpService {
                         "Try broader terms like 'experience', 'skills', 'education', 'projects', or specific technologies");
             }
 
-            // Extract candidate info (should be consistent across all chunks)
-            String candidateName = results.stream()
-                    .map(doc -> (String) doc.getMetadata().get("candidate_name"))
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .orElse("Berend Botje");
+            return retrieval.report(toolMetrics.stage(tool, ToolMetrics.STAGE_POST_PROCESSING, () -> buildSearchResponse(query, results)));
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("candidate_name", candidateName);
-            response.put("query", query);
-            response.put("sections_found", results.size());
+        } catch (Exception e) {
+            log.error("Error in searchCVInformation: {}", e.getMessage(), e);
+            return createErrorResponse("Error searching CV information: " + e.getMessage(),
+                    "Please try again with a different query");
+        }
+    }
 
-            // Format the CV content sections
-            List<Map<String, Object>> contentSections = formatCVSections(results);
-            response.put("relevant_sections", contentSections);
+    private Map<String, Object> buildSearchResponse(String query, List<Document> results) {
+        // Extract candidate info (should be consistent across all chunks)
+        String candidateName = results.stream()
+                .map(doc -> (String) doc.getMetadata().get("candidate_name"))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("Berend Botje");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("candidate_name", candidateName);
+        response.put("query", query);
+        response.put("sections_found", results.size());
+
+        // The CV content sections, fitted into the response budget
+        CvSections sections = cvResponseBuilder.forSearch(results);
+        response.put("relevant_sections", sections);
+        if (sections.omitted() > 0) {
+            response.put("sections_omitted", sections.omitted());
+        }
 
-            // Extract and consolidate skills mentioned in the results
-            Set<String> skillsFound = extractSkillsFromResults(results);
-            response.put("skills_mentioned", skillsFound);
+        // Extract and consolidate skills mentioned in the results
+        Set<String> skillsFound = extractSkillsFromResults(results);
+        response.put("skills_mentioned", skillsFound);
 
-            // Extract and consolidate hobbies mentioned in the results
-            Set<String> hobbiesFound = extractHobbiesFromResults(results);
-            response.put("hobbies_mentioned", hobbiesFound);
+        // Extract and consolidate hobbies mentioned in the results
+        Set<String> hobbiesFound = extractHobbiesFromResults(results);
+        response.put("hobbies_mentioned", hobbiesFound);
 
-            // Categorize the content types found
-            Set<String> contentTypes = extractChunkTypes(results);
-            response.put("content_types_covered", contentTypes);
+        // Categorize the content types found
+        Set<String> contentTypes = extractChunkTypes(results);
+        response.put("content_types_covered", contentTypes);
 
-            // Calculate relevance summary
-            response.put("relevance_summary", generateRelevanceSummary(results, query));
+        // Calculate relevance summary
+        response.put("relevance_summary", generateRelevanceSummary(results, query));
 
-            return response;
+        return response;
+    }
+
+    /**
+     * Search several aspects of the CV at once: one embedding request for all facets, and the
+     * vector searches run concurrently, so the call takes about as long as the slowest search
+     */
+    @McpTool(
+            name = "searchCVFacets",
+            description = "Search Berend Botje's CV for several aspects in one call, e.g. ['Java and Spring Boot skills', " +
+                    "'work experience and roles', 'education', 'notable projects']. Use this instead of several searchCVInformation " +
+                    "calls when analyzing the CV for a role or extracting highlights. Returns the relevant sections per facet; " +
+                    "a section relevant to several facets is returned once, under the facet it matches best."
+    )
+    public Map<String, Object> searchCVFacets(
+            @McpToolParam(description = "The aspects to search for, at most " + MAX_FACETS) List<String> facets,
+            @McpToolParam(description = "Sections per facet, default " + DEFAULT_FACET_TOP_K + ", at most " + MAX_FACET_TOP_K,
+                    required = false) Integer topK) {
+        return toolMetrics.observe("searchCVFacets", "sections_found",
+                () -> ingestionStatusService.whenReady(DatasetSource.CV, () -> doSearchCVFacets(facets, topK)));
+    }
+
+    private Map<String, Object> doSearchCVFacets(List<String> requestedFacets, Integer requestedTopK) {
+        log.info("MCP tool searchCVFacets called with facets: {}", requestedFacets);
+        String tool = "searchCVFacets";
+
+        try {
+            List<String> facets = requestedFacets == null ? List.of() : requestedFacets.stream()
+                    .filter(facet -> facet != null && !facet.isBlank())
+                    .map(String::trim)
+                    .distinct()
+                    .toList();
+            if (facets.isEmpty() || facets.size() > MAX_FACETS) {
+                return createErrorResponse("Expected 1 to " + MAX_FACETS + " facets but got " + facets.size(),
+                        "Pass aspects like 'skills', 'work experience', 'education' and 'projects'");
+            }
+            int topK = requestedTopK == null ? DEFAULT_FACET_TOP_K : Math.max(1, Math.min(requestedTopK, MAX_FACET_TOP_K));
+
+            Retrieval retrieval = retrieve(tool, facets, topK, 0.5);
+            List<List<Document>> resultsPerFacet = retrieval.results();
+
+            return retrieval.report(toolMetrics.stage(tool, ToolMetrics.STAGE_POST_PROCESSING, () -> buildFacetResponse(facets, resultsPerFacet)));
 
         } catch (Exception e) {
-            log.error("Error in searchCVInformation: {}", e.getMessage(), e);
-            return createErrorResponse("Error searching CV information: " + e.getMessage(),
-                    "Please try again with a different query");
+            log.error("Error in searchCVFacets: {}", e.getMessage(), e);
+            return createErrorResponse("Error searching CV facets: " + e.getMessage(),
+                    "Please try again with fewer or different facets");
         }
     }
 
+    private Map<String, Object> buildFacetResponse(List<String> facets, List<List<Document>> resultsPerFacet) {
+        // Each chunk goes to the facet it is closest to; the other facets only reference it
+        Map<String, Integer> bestFacet = new HashMap<>();
+        Map<String, Double> bestDistance = new HashMap<>();
+        Map<String, Set<String>> relevantTo = new HashMap<>();
+        for (int i = 0; i < facets.size(); i++) {
+            for (Document doc : resultsPerFacet.get(i)) {
+                double distance = (Double) doc.getMetadata().getOrDefault("distance", 1.0);
+                relevantTo.computeIfAbsent(doc.getId(), id -> new LinkedHashSet<>()).add(facets.get(i));
+                if (distance < bestDistance.getOrDefault(doc.getId(), Double.MAX_VALUE)) {
+                    bestDistance.put(doc.getId(), distance);
+                    bestFacet.put(doc.getId(), i);
+                }
+            }
+        }
+
+        List<List<Document>> docsPerFacet = new ArrayList<>();
+        List<Document> uniqueDocs = new ArrayList<>();
+        Map<String, Set<String>> alsoRelevantTo = new HashMap<>();
+        for (int i = 0; i < facets.size(); i++) {
+            List<Document> facetDocs = new ArrayList<>();
+            for (Document doc : resultsPerFacet.get(i)) {
+                if (bestFacet.get(doc.getId()) != i) {
+                    continue;
+                }
+                facetDocs.add(doc);
+                Set<String> others = new LinkedHashSet<>(relevantTo.get(doc.getId()));
+                others.remove(facets.get(i));
+                alsoRelevantTo.put(doc.getId(), others);
+            }
+            docsPerFacet.add(facetDocs);
+            uniqueDocs.addAll(facetDocs);
+        }
+
+        // One budget for all facets, shared by relevance
+        CvSections fitted = cvResponseBuilder.forSearch(uniqueDocs);
+        List<Map<String, Object>> facetResults = new ArrayList<>();
+        for (int i = 0; i < facets.size(); i++) {
+            CvSections sections = fitted.select(docsPerFacet.get(i), alsoRelevantTo);
+            Map<String, Object> facetResult = new LinkedHashMap<>();
+            facetResult.put("facet", facets.get(i));
+            facetResult.put("matches", resultsPerFacet.get(i).size());
+            facetResult.put("sections", sections);
+            if (sections.omitted() > 0) {
+                facetResult.put("sections_omitted", sections.omitted());
+            }
+            facetResults.add(facetResult);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("candidate_name", uniqueDocs.stream()
+                .map(doc -> (String) doc.getMetadata().get("candidate_name"))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("Berend Botje"));
+        response.put("sections_found", uniqueDocs.size());
+        response.put("facets", facetResults);
+        response.put("skills_mentioned", extractSkillsFromResults(uniqueDocs));
+        response.put("hobbies_mentioned", extractHobbiesFromResults(uniqueDocs));
+        return response;
+    }
+
     /**
      * Generate a comprehensive summary of Berend Botje's CV
      * Best for getting a complete overview of the candidate's profile
@@ -103,21 +261,24 @@ public class CVMcpService {
             name = "getCVSummary",
             description = "Generate a comprehensive summary of Berend Botje's CV including complete profile, skills, experience, education, hobbies, interests, and key highlights. " +
                     "Use this for general overview questions or when you want to understand the candidate's complete background including personal interests. " +
-                    "Returns a structured profile with all key information from the CV."
+                    "Returns a structured profile with all key information from the CV and its dataset_version; pass that " +
+                    "as ifVersionNot on a later call to get only {\"unchanged\": true} while the CV data has not changed."
     )
-    public Map<String, Object> getCVSummary() {
+    public Map<String, Object> getCVSummary(
+            @McpToolParam(description = "dataset_version of a previous response", required = false) Long ifVersionNot) {
+        return toolMetrics.observe("getCVSummary", "total_cv_sections",
+                () -> ingestionStatusService.whenChanged(DatasetSource.CV, ifVersionNot, this::doGetCVSummary));
+    }
+
+    private Map<String, Object> doGetCVSummary() {
         log.info("MCP tool getCVSummary called");
+        String tool = "getCVSummary";
 
         try {
-            // Get comprehensive CV content using a broad query
-            List<Document> allCvContent = vectorStore.similaritySearch(
-                    SearchRequest.builder()
-                            .query("experience education skills projects qualifications background") // Broad query for complete coverage
-                            .topK(20) // Get many chunks to ensure completeness
-                            .similarityThreshold(0.3) // Lower threshold for comprehensive coverage
-                            .filterExpression("document_category == 'cv'")
-                            .build()
-            );
+            // Get comprehensive CV content using a broad query, with many chunks (topK 20) and a
+            // low threshold (0.3) for comprehensive coverage
+            Retrieval retrieval = retrieve(tool, List.of("experience education skills projects qualifications background"), 20, 0.3);
+            List<Document> allCvContent = retrieval.results().getFirst();
 
             log.info("Found {} CV content sections for comprehensive summary", allCvContent.size());
 
@@ -126,44 +287,7 @@ public class CVMcpService {
                         "Please ensure Berend Botje's CV has been properly processed");
             }
 
-            // Extract candidate name
-            String candidateName = allCvContent.stream()
-                    .map(doc -> (String) doc.getMetadata().get("candidate_name"))
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .orElse("Berend Botje");
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("candidate_name", candidateName);
-            response.put("total_cv_sections", allCvContent.size());
-
-            // Generate comprehensive profile
-            Map<String, Object> profile = generateCompleteProfile(allCvContent);
-            response.put("profile", profile);
-
-            // Organize content by type
-            Map<String, List<Document>> contentByType = allCvContent.stream()
-                    .collect(Collectors.groupingBy(doc ->
-                        (String) doc.getMetadata().getOrDefault("chunk_type", "general")));
-
-            Map<String, Object> organizedContent = new HashMap<>();
-            for (Map.Entry<String, List<Document>> entry : contentByType.entrySet()) {
-                String contentType = entry.getKey();
-                List<Document> docs = entry.getValue();
-
-                String consolidatedContent = docs.stream()
-                        .map(Document::getFormattedContent)
-                        .collect(Collectors.joining("\n\n"));
-
-                organizedContent.put(contentType, Map.of(
-                        "section_count", docs.size(),
-                        "content", consolidatedContent
-                ));
-            }
-            response.put("cv_sections", organizedContent);
-
-            return response;
+            return retrieval.report(toolMetrics.stage(tool, ToolMetrics.STAGE_POST_PROCESSING, () -> buildSummaryResponse(allCvContent)));
 
         } catch (Exception e) {
             log.error("Error in getCVSummary: {}", e.getMessage(), e);
@@ -172,6 +296,33 @@ public class CVMcpService {
         }
     }
 
+    private Map<String, Object> buildSummaryResponse(List<Document> allCvContent) {
+        // Extract candidate name
+        String candidateName = allCvContent.stream()
+                .map(doc -> (String) doc.getMetadata().get("candidate_name"))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse("Berend Botje");
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("candidate_name", candidateName);
+        response.put("total_cv_sections", allCvContent.size());
+
+        // Generate comprehensive profile
+        Map<String, Object> profile = generateCompleteProfile(allCvContent);
+        response.put("profile", profile);
+
+        // Content organized by type, fitted into the summary budget; the only copy of the CV text
+        CvSections sections = cvResponseBuilder.forSummary(allCvContent);
+        response.put("cv_sections", sections.byType());
+        if (sections.omitted() > 0) {
+            response.put("sections_omitted", sections.omitted());
+        }
+
+        return response;
+    }
+
     // MCP Prompts for CV analysis
 
     @McpPrompt(
@@ -213,8 +364,9 @@ public class CVMcpService {
                    - Experience validation questions to ask
                    - Skill demonstration opportunities to request
                 
-                Use searchCVInformation to gather specific details about his background and skills.
                 Use getCVSummary to get a complete overview of his profile first.
+                Then use searchCVFacets once with facets for the required skills, relevant experience,
+                leadership and education, instead of a separate searchCVInformation call per aspect.
                 """,
                 jobTitle != null ? jobTitle : "[Job Title Not Specified]",
                 requiredSkills != null ? requiredSkills : "[Skills Not Specified]",
@@ -267,12 +419,91 @@ public class CVMcpService {
                 
                 **Format the response as a professional summary** suitable for executive review or client presentation.
                 
-                Use searchCVInformation for targeted searches on specific areas.
+                Use searchCVFacets once with a facet per category above (technical expertise, achievements,
+                education, career progression) for the specific details.
                 Use getCVSummary for comprehensive background information.
                 """,
                 focusArea != null ? focusArea : "overall professional profile");
     }
 
+    /**
+     * Embed the queries and run their vector searches within the tool's latency budget. When the
+     * budget runs out or the embedding model fails, the chunks come from a full-text search instead.
+     */
+    private Retrieval retrieve(String tool, List<String> queries, int topK, double similarityThreshold) {
+        Deadline deadline = Deadline.after(queryBudgetProperties.budgetFor(tool));
+
+        List<float[]> embeddings;
+        try {
+            embeddings = toolMetrics.stage(tool, ToolMetrics.STAGE_EMBEDDING, () -> queryEmbedder.embed(queries, deadline));
+        } catch (BudgetExceededException e) {
+            return fallback(tool, queries, topK, "embedding_timeout", e);
+        } catch (RuntimeException e) {
+            return fallback(tool, queries, topK, "embedding_failed", e);
+        }
+
+        try {
+            return new Retrieval(toolMetrics.stage(tool, ToolMetrics.STAGE_VECTOR_SEARCH,
+                    () -> vectorSearch(embeddings, topK, similarityThreshold, deadline)), null);
+        } catch (BudgetExceededException | QueryTimeoutException e) {
+            return fallback(tool, queries, topK, "search_timeout", e);
+        }
+    }
+
+    // One search runs on the calling thread; several run concurrently on the facet search threads
+    private List<List<Document>> vectorSearch(List<float[]> embeddings, int topK, double similarityThreshold, Deadline deadline) {
+        if (deadline.isExpired()) {
+            throw new BudgetExceededException("No time left for the vector search");
+        }
+        if (embeddings.size() == 1) {
+            return List.of(cvVectorRepository.findSimilarCvChunks(embeddings.getFirst(), topK, similarityThreshold, deadline.remaining()));
+        }
+        List<CompletableFuture<List<Document>>> searches = embeddings.stream()
+                .map(embedding -> CompletableFuture.supplyAsync(() -> cvVectorRepository.findSimilarCvChunks(
+                        embedding, topK, similarityThreshold, deadline.remaining()), facetSearchExecutor))
+                .toList();
+        try {
+            CompletableFuture.allOf(searches.toArray(CompletableFuture[]::new))
+                    .get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new BudgetExceededException("Vector searches did not finish within the budget");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException("Interrupted during the vector searches");
+        }
+        return searches.stream().map(CompletableFuture::join).toList();
+    }
+
+    private Retrieval fallback(String tool, List<String> queries, int topK, String reason, RuntimeException cause) {
+        if (!queryBudgetProperties.isFullTextFallback()) {
+            throw cause;
+        }
+        log.warn("{} falls back to full-text search ({}): {}", tool, reason, cause.getMessage());
+        toolMetrics.countDegraded(tool, reason);
+        Deadline deadline = Deadline.after(queryBudgetProperties.getFallbackTimeout());
+        List<List<Document>> results = toolMetrics.stage(tool, ToolMetrics.STAGE_FULL_TEXT_SEARCH, () -> queries.stream()
+                .map(query -> cvVectorRepository.findCvChunksByText(query, topK, deadline.remaining()))
+                .toList());
+        return new Retrieval(results, reason);
+    }
+
+    /**
+     * The chunks per query, and why they came from the full-text fallback (null when they did not)
+     */
+    private record Retrieval(List<List<Document>> results, String degradedReason) {
+
+        Map<String, Object> report(Map<String, Object> response) {
+            if (degradedReason != null && Boolean.TRUE.equals(response.get("success"))) {
+                response.put("degraded", true);
+                response.put("degraded_reason", degradedReason);
+                response.put("search_mode", "full_text");
+            }
+            return response;
+        }
+    }
+
     // Helper methods
 
     private Map<String, Object> createErrorResponse(String message, String suggestion) {
@@ -283,19 +514,6 @@ public class CVMcpService {
         return response;
     }
 
-    private List<Map<String, Object>> formatCVSections(List<Document> docs) {
-        return docs.stream()
-                .map(doc -> {
-                    Map<String, Object> section = new HashMap<>();
-                    section.put("content", doc.getFormattedContent());
-                    section.put("content_type", doc.getMetadata().getOrDefault("chunk_type", "general"));
-                    section.put("source_file", doc.getMetadata().getOrDefault("source_file", "unknown"));
-                    section.put("relevance_score", doc.getMetadata().getOrDefault("distance", 0.8));
-                    return section;
-                })
-                .collect(Collectors.toList());
-    }
-
     private Set<String> extractSkillsFromResults(List<Document> docs) {
         Set<String> allSkills = new HashSet<>();
         for (Document doc : docs) {
@@ -342,12 +560,10 @@ public class CVMcpService {
                 .min(Comparator.comparing(doc -> (Double) doc.getMetadata().getOrDefault("distance", 1.0)))
                 .orElse(null);
 
+        // Its content is the first of relevant_sections
         if (mostRelevant != null) {
             summary.put("most_relevant_section", Map.of(
-                    "content_type", mostRelevant.getMetadata().getOrDefault("chunk_type", "general"),
-                    "content_preview", mostRelevant.getFormattedContent().length() > 200 ?
-                            mostRelevant.getFormattedContent().substring(0, 200) + "..." :
-                            mostRelevant.getFormattedContent()
+                    "content_type", mostRelevant.getMetadata().getOrDefault("chunk_type", "general")
             ));
         }
 
@@ -394,18 +610,17 @@ public class CVMcpService {
         Set<String> contentTypes = extractChunkTypes(allContent);
         profile.put("cv_sections_available", contentTypes);
 
-        // Create a comprehensive content overview
-        String fullContent = allContent.stream()
-                .map(Document::getFormattedContent)
-                .collect(Collectors.joining("\n\n"));
-
-        profile.put("content_length", fullContent.length());
+        // The content itself is in cv_sections
+        profile.put("content_length", allContent.stream()
+                .mapToInt(doc -> doc.getText() != null ? doc.getText().length() : 0)
+                .sum());
         profile.put("total_sections", allContent.size());
 
-        // Provide content summary
-        profile.put("content_summary", fullContent.length() > 2000 ?
-                fullContent.substring(0, 2000) + "... [truncated]" : fullContent);
-
         return profile;
     }
+
+    @PreDestroy
+    void shutdown() {
+        facetSearchExecutor.shutdownNow();
+    }
 }
@@ -0,0 +1,255 @@
+package com.ragpgvector.service;
+
+import com.ragpgvector.config.CvResponseProperties;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fits the CV chunks of a tool response into a token budget. Each chunk is returned once, with
+ * its text only (no metadata) and whitespace runs collapsed; text a chunk repeats from the
+ * previous chunk of the same file is cut off. The budget is shared by relevance: chunks closer
+ * to the query get a larger share, short chunks leave what they do not need to the others, and a
+ * chunk whose share would be too small to be useful is left out.
+ */
+@Component
+public class CvResponseBuilder {
+
+    // Estimate for English text; close enough to keep a response within its size
+    static final int CHARS_PER_TOKEN = 4;
+
+    // A shorter repeat between consecutive chunks is more likely a coincidence than overlap
+    private static final int MIN_OVERLAP_CHARS = 20;
+
+    // Longest overlap looked for; the splitter repeats at most a few sentences
+    private static final int MAX_OVERLAP_CHARS = 1000;
+
+    // Even a barely relevant chunk keeps some weight in the budget
+    private static final double MIN_WEIGHT = 0.05;
+
+    private static final String ELLIPSIS = " …";
+
+    private final CvResponseProperties properties;
+
+    public CvResponseBuilder(CvResponseProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Sections for searchCVInformation and searchCVFacets
+     */
+    public CvSections forSearch(List<Document> chunks) {
+        return fit(chunks, properties.getSearchTokenBudget());
+    }
+
+    /**
+     * Sections for getCVSummary
+     */
+    public CvSections forSummary(List<Document> chunks) {
+        return fit(chunks, properties.getSummaryTokenBudget());
+    }
+
+    CvSections fit(List<Document> chunks, int tokenBudget) {
+        List<Document> ranked = new ArrayList<>(chunks);
+        ranked.sort(Comparator.comparingDouble(CvResponseBuilder::distance));
+
+        // The same chunk, or the same text in another chunk, only once
+        List<Document> documents = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Set<String> seenIds = new HashSet<>();
+        Set<String> seenTexts = new HashSet<>();
+        for (Document document : ranked) {
+            String text = compact(document.getText());
+            if (!text.isEmpty() && seenIds.add(document.getId()) && seenTexts.add(text)) {
+                documents.add(document);
+                texts.add(text);
+            }
+        }
+        stripOverlap(documents, texts);
+
+        int[] allocation = allocate(documents, texts, tokenBudget * CHARS_PER_TOKEN,
+                properties.getMinSectionTokens() * CHARS_PER_TOKEN);
+
+        List<CvSections.Section> sections = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            if (allocation[i] > 0) {
+                String text = texts.get(i);
+                boolean truncated = allocation[i] < text.length();
+                sections.add(new CvSections.Section(documents.get(i), truncated ? truncate(text, allocation[i]) : text, truncated));
+            }
+        }
+        return new CvSections(sections, chunks.size() - sections.size());
+    }
+
+    /**
+     * Characters per chunk (0 = left out). Chunks are in order of relevance.
+     */
+    static int[] allocate(List<Document> documents, List<String> texts, int budget, int minSection) {
+        int count = documents.size();
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = Math.max(1.0 - distance(documents.get(i)), MIN_WEIGHT);
+        }
+
+        int[] allocation = new int[count];
+        boolean[] left = new boolean[count];
+        while (true) {
+            // Water filling: chunks shorter than their share get their length, and the rest of
+            // the budget is shared again among the others
+            boolean[] settled = left.clone();
+            double remaining = budget;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                double totalWeight = totalWeight(weights, settled);
+                double available = remaining;
+                for (int i = 0; i < count; i++) {
+                    if (!settled[i] && texts.get(i).length() <= available * weights[i] / totalWeight) {
+                        settled[i] = true;
+                        allocation[i] = texts.get(i).length();
+                        remaining -= allocation[i];
+                        changed = true;
+                    }
+                }
+            }
+            int tooShort = -1;
+            for (int i = 0; i < count; i++) {
+                if (!settled[i]) {
+                    allocation[i] = (int) (remaining * weights[i] / totalWeight(weights, settled));
+                    if (allocation[i] < minSection) {
+                        tooShort = i;
+                    }
+                }
+            }
+
+            // The least relevant chunk that would be cut too short is left out, and its share
+            // goes to the others
+            if (tooShort < 0) {
+                return allocation;
+            }
+            left[tooShort] = true;
+            allocation[tooShort] = 0;
+        }
+    }
+
+    private static double totalWeight(double[] weights, boolean[] settled) {
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += settled[i] ? 0 : weights[i];
+        }
+        return total;
+    }
+
+    /**
+     * Cut the start of a chunk that repeats the end of the previous chunk of the same file
+     */
+    private static void stripOverlap(List<Document> documents, List<String> texts) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            String key = chunkKey(documents.get(i), 0);
+            if (key != null) {
+                positions.put(key, i);
+            }
+        }
+        List<String> original = List.copyOf(texts);
+        for (int i = 0; i < documents.size(); i++) {
+            String previousKey = chunkKey(documents.get(i), -1);
+            Integer previous = previousKey != null ? positions.get(previousKey) : null;
+            if (previous == null) {
+                continue;
+            }
+            String text = original.get(i);
+            int overlap = overlap(original.get(previous), text);
+            if (overlap >= MIN_OVERLAP_CHARS && overlap < text.length()) {
+                texts.set(i, text.substring(overlap).strip());
+            }
+        }
+    }
+
+    private static String chunkKey(Document document, int offset) {
+        Object index = document.getMetadata().get("chunk_index");
+        if (!(index instanceof Number number)) {
+            return null;
+        }
+        return document.getMetadata().get("source_file") + "#" + (number.intValue() + offset);
+    }
+
+    /**
+     * Length of the longest start of next that is also the end of previous, in linear time with
+     * the KMP failure function of next followed by the end of previous
+     */
+    static int overlap(String previous, String next) {
+        int length = Math.min(Math.min(previous.length(), next.length()), MAX_OVERLAP_CHARS);
+        String tail = previous.substring(previous.length() - length);
+        int[] failure = new int[length];
+        for (int i = 1, k = 0; i < length; i++) {
+            while (k > 0 && next.charAt(i) != next.charAt(k)) {
+                k = failure[k - 1];
+            }
+            if (next.charAt(i) == next.charAt(k)) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        int matched = 0;
+        for (int i = 0; i < length; i++) {
+            while (matched > 0 && (matched == length || tail.charAt(i) != next.charAt(matched))) {
+                matched = failure[matched - 1];
+            }
+            if (tail.charAt(i) == next.charAt(matched)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Collapse runs of spaces into one space and runs of line breaks into one line break
+     */
+    static String compact(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder compacted = new StringBuilder(text.length());
+        boolean space = false;
+        boolean newline = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                newline = true;
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (!compacted.isEmpty() && (newline || space)) {
+                    compacted.append(newline ? '\n' : ' ');
+                }
+                compacted.append(c);
+                space = false;
+                newline = false;
+            }
+        }
+        return compacted.toString();
+    }
+
+    private static String truncate(String text, int limit) {
+        int end = Math.max(limit - ELLIPSIS.length(), 0);
+        int wordEnd = text.lastIndexOf(' ', end);
+        if (wordEnd > end / 2) {
+            end = wordEnd;
+        } else if (end > 0 && Character.isHighSurrogate(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(0, end).strip() + ELLIPSIS;
+    }
+
+    private static double distance(Document document) {
+        return document.getMetadata().get("distance") instanceof Number distance ? distance.doubleValue() : 1.0;
+    }
+}
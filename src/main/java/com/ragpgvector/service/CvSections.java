@@ -0,0 +1,159 @@
+package com.ragpgvector.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CV sections of a tool response, fitted into its budget by {@link CvResponseBuilder}.
+ * Written straight to the JSON output as an array of sections, without building a map per section.
+ */
+public final class CvSections implements JsonSerializable {
+
+    /**
+     * One chunk in the response, with its text as returned (compacted, maybe shortened)
+     */
+    public record Section(Document document, String content, boolean truncated) {
+
+        public String contentType() {
+            return (String) document.getMetadata().getOrDefault("chunk_type", "general");
+        }
+
+        Object sourceFile() {
+            return document.getMetadata().getOrDefault("source_file", "unknown");
+        }
+
+        int chunkIndex() {
+            return document.getMetadata().get("chunk_index") instanceof Number index ? index.intValue() : 0;
+        }
+    }
+
+    // Reading order within a CV
+    private static final Comparator<Section> READING_ORDER = Comparator
+            .comparing((Section section) -> String.valueOf(section.sourceFile()))
+            .thenComparingInt(Section::chunkIndex);
+
+    private final List<Section> sections;
+    private final int omitted;
+    private final Map<String, Set<String>> alsoRelevantTo;
+
+    CvSections(List<Section> sections, int omitted) {
+        this(sections, omitted, Map.of());
+    }
+
+    private CvSections(List<Section> sections, int omitted, Map<String, Set<String>> alsoRelevantTo) {
+        this.sections = sections;
+        this.omitted = omitted;
+        this.alsoRelevantTo = alsoRelevantTo;
+    }
+
+    public List<Section> sections() {
+        return sections;
+    }
+
+    /**
+     * Chunks left out because the budget ran out
+     */
+    public int omitted() {
+        return omitted;
+    }
+
+    public int size() {
+        return sections.size();
+    }
+
+    /**
+     * The sections of these chunks (those that fit in the budget), in this order, each listing the
+     * other facets it is relevant to
+     */
+    public CvSections select(List<Document> documents, Map<String, Set<String>> alsoRelevantTo) {
+        Map<String, Section> byId = new HashMap<>();
+        sections.forEach(section -> byId.put(section.document().getId(), section));
+
+        List<Section> selected = new ArrayList<>();
+        for (Document document : documents) {
+            Section section = byId.get(document.getId());
+            if (section != null) {
+                selected.add(section);
+            }
+        }
+        return new CvSections(selected, documents.size() - selected.size(), alsoRelevantTo);
+    }
+
+    /**
+     * The sections per chunk type, most relevant type first, as {type: {section_count, content}}
+     * with the content of a type in reading order
+     */
+    public JsonSerializable byType() {
+        Map<String, List<Section>> byType = new LinkedHashMap<>();
+        sections.forEach(section -> byType.computeIfAbsent(section.contentType(), type -> new ArrayList<>()).add(section));
+        byType.values().forEach(typeSections -> typeSections.sort(READING_ORDER));
+
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                gen.writeStartObject();
+                for (Map.Entry<String, List<Section>> entry : byType.entrySet()) {
+                    gen.writeObjectFieldStart(entry.getKey());
+                    gen.writeNumberField("section_count", entry.getValue().size());
+                    StringBuilder content = new StringBuilder();
+                    for (Section section : entry.getValue()) {
+                        if (!content.isEmpty()) {
+                            content.append("\n\n");
+                        }
+                        content.append(section.content());
+                    }
+                    gen.writeStringField("content", content.toString());
+                    gen.writeEndObject();
+                }
+                gen.writeEndObject();
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+                serialize(gen, serializers);
+            }
+        };
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartArray();
+        for (Section section : sections) {
+            gen.writeStartObject();
+            gen.writeStringField("content", section.content());
+            gen.writeStringField("content_type", section.contentType());
+            gen.writeObjectField("source_file", section.sourceFile());
+            gen.writeObjectField("relevance_score", section.document().getMetadata().getOrDefault("distance", 0.8));
+            if (section.truncated()) {
+                gen.writeBooleanField("truncated", true);
+            }
+            Set<String> others = alsoRelevantTo.get(section.document().getId());
+            if (others != null && !others.isEmpty()) {
+                gen.writeArrayFieldStart("also_relevant_to");
+                for (String other : others) {
+                    gen.writeString(other);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -1,23 +1,49 @@
  package com.ragpgvector.service;
 
+import com.ragpgvector.model.QueryShape;
+import com.ragpgvector.repository.CvVectorRepository;
+import com.ragpgvector.repository.TimesheetRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
- * Database diagnostic service to help troubleshoot connection and table issues
+ * Database diagnostic service to help troubleshoot connection and table issues.
+ * Besides the startup checks it offers on-demand tuning diagnostics (slow statements,
+ * query plans, index sizes, bloat and index usage), exposed through the dbdiagnostics
+ * actuator endpoint.
  */
 @Component
 @Slf4j
 public class DatabaseDiagnosticService {
 
+    private static final List<String> APPLICATION_TABLES = List.of("timesheets", "vector_store");
+
+    // Used when the timesheets table is still empty
+    private static final String DEFAULT_SAMPLE_PROJECT = "Devops";
+    private static final String DEFAULT_SAMPLE_MONTH_YEAR = "January 2024";
+    private static final String DEFAULT_SAMPLE_TYPECODE = "DEV";
+
+    // Same parameters as CVMcpService.searchCVInformation
+    private static final int SAMPLE_TOP_K = 6;
+    private static final double SAMPLE_SIMILARITY_THRESHOLD = 0.5;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private CvVectorRepository cvVectorRepository;
+
     public void runDiagnostics() {
         log.info("=== DATABASE DIAGNOSTICS ===");
 
@@ -150,4 +176,303 @@ public class DatabaseDiagnosticService {
             log.error("✗ Could not check timesheets table: {}", e.getMessage());
         }
     }
+
+    /**
+     * Full on-demand diagnostics report
+     */
+    public Map<String, Object> runTuningDiagnostics(int topStatementLimit) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("top_statements", getTopStatements(topStatementLimit));
+        report.put("query_plans", explainQueryShapes());
+        report.put("vector_index", getVectorIndexReport());
+        report.put("table_bloat", getTableBloat());
+        report.put("index_usage", getIndexUsage());
+        return report;
+    }
+
+    /**
+     * Most expensive statements of this database by total execution time, from pg_stat_statements
+     */
+    public Map<String, Object> getTopStatements(int limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (!isExtensionInstalled("pg_stat_statements")) {
+            response.put("success", false);
+            response.put("error", "pg_stat_statements extension is not installed");
+            response.put("suggestion", "Add pg_stat_statements to shared_preload_libraries and run CREATE EXTENSION pg_stat_statements");
+            return response;
+        }
+
+        String sql = """
+            SELECT queryid,
+                   calls,
+                   ROUND(total_exec_time::numeric, 2) AS total_exec_ms,
+                   ROUND(mean_exec_time::numeric, 3) AS mean_exec_ms,
+                   ROUND(stddev_exec_time::numeric, 3) AS stddev_exec_ms,
+                   rows,
+                   shared_blks_hit,
+                   shared_blks_read,
+                   ROUND(100.0 * shared_blks_hit / NULLIF(shared_blks_hit + shared_blks_read, 0), 2) AS cache_hit_pct,
+                   temp_blks_written,
+                   LEFT(query, 1000) AS query
+            FROM pg_stat_statements
+            WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database())
+            ORDER BY total_exec_time DESC
+            LIMIT ?
+            """;
+
+        try {
+            List<Map<String, Object>> statements = jdbcTemplate.queryForList(sql, limit);
+            response.put("success", true);
+            response.put("statements", statements);
+        } catch (Exception e) {
+            // Extension created but library not preloaded
+            log.warn("Could not read pg_stat_statements: {}", e.getMessage());
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            response.put("suggestion", "Add pg_stat_statements to shared_preload_libraries and restart PostgreSQL");
+        }
+        return response;
+    }
+
+    /**
+     * Reset pg_stat_statements, e.g. before measuring a load test
+     */
+    public Map<String, Object> resetStatementStatistics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            jdbcTemplate.execute("SELECT pg_stat_statements_reset()");
+            response.put("success", true);
+            response.put("message", "pg_stat_statements has been reset");
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * EXPLAIN (ANALYZE, BUFFERS) for every TimesheetRepository query shape and the filtered vector search.
+     * Parameters are taken from existing data, so the plans reflect realistic selectivity.
+     */
+    public Map<String, Object> explainQueryShapes() {
+        List<QueryShape> shapes = new ArrayList<>(sampleTimesheetShapes());
+        Map<String, Object> response = new LinkedHashMap<>();
+
+        try {
+            Optional<float[]> sampleEmbedding = cvVectorRepository.findSampleCvEmbedding();
+            if (sampleEmbedding.isPresent()) {
+                shapes.add(cvVectorRepository.similarCvChunksShape(sampleEmbedding.get(), SAMPLE_TOP_K, SAMPLE_SIMILARITY_THRESHOLD));
+            } else {
+                response.put("vector_search_skipped", "No CV chunks in vector_store to take a sample embedding from");
+            }
+        } catch (Exception e) {
+            response.put("vector_search_skipped", e.getMessage());
+        }
+
+        List<Map<String, Object>> plans = new ArrayList<>();
+        for (QueryShape shape : shapes) {
+            plans.add(explain(shape));
+        }
+        response.put("success", true);
+        response.put("plans", plans);
+        return response;
+    }
+
+    /**
+     * Size of the vector_store indexes (HNSW) compared to shared_buffers and, if pg_buffercache
+     * is installed, how much of each index is currently cached
+     */
+    public Map<String, Object> getVectorIndexReport() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            Map<String, Object> settings = jdbcTemplate.queryForMap("""
+                SELECT current_setting('shared_buffers') AS shared_buffers,
+                       pg_size_bytes(current_setting('shared_buffers')) AS shared_buffers_bytes,
+                       current_setting('effective_cache_size') AS effective_cache_size,
+                       current_setting('maintenance_work_mem') AS maintenance_work_mem,
+                       current_setting('hnsw.ef_search', true) AS hnsw_ef_search
+                """);
+            long sharedBuffersBytes = ((Number) settings.get("shared_buffers_bytes")).longValue();
+
+            List<Map<String, Object>> indexes = jdbcTemplate.queryForList("""
+                SELECT c.relname AS index_name,
+                       am.amname AS index_type,
+                       pg_relation_size(i.indexrelid) AS index_bytes,
+                       pg_size_pretty(pg_relation_size(i.indexrelid)) AS index_size
+                FROM pg_index i
+                JOIN pg_class c ON c.oid = i.indexrelid
+                JOIN pg_am am ON am.oid = c.relam
+                WHERE i.indrelid = to_regclass('vector_store')
+                ORDER BY pg_relation_size(i.indexrelid) DESC
+                """);
+
+            boolean bufferCacheAvailable = isExtensionInstalled("pg_buffercache");
+            for (Map<String, Object> index : indexes) {
+                long indexBytes = ((Number) index.get("index_bytes")).longValue();
+                index.put("shared_buffers_ratio", Math.round(10000.0 * indexBytes / sharedBuffersBytes) / 10000.0);
+                index.put("fits_in_shared_buffers", indexBytes <= sharedBuffersBytes);
+                if (bufferCacheAvailable) {
+                    index.put("cached_bytes", getCachedBytes((String) index.get("index_name")));
+                }
+            }
+
+            response.put("success", true);
+            response.put("settings", settings);
+            response.put("indexes", indexes);
+            if (!bufferCacheAvailable) {
+                response.put("suggestion", "CREATE EXTENSION pg_buffercache to also see how much of each index is cached");
+            }
+        } catch (Exception e) {
+            log.warn("Could not build vector index report: {}", e.getMessage());
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Dead tuples and vacuum history of the application tables, including the timesheets partitions.
+     * The full CSV reload deletes and re-inserts all timesheet rows, so dead tuples pile up until
+     * autovacuum catches up.
+     */
+    public Map<String, Object> getTableBloat() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            String sql = """
+                SELECT relname AS table_name,
+                       n_live_tup,
+                       n_dead_tup,
+                       ROUND(100.0 * n_dead_tup / NULLIF(n_live_tup + n_dead_tup, 0), 2) AS dead_tuple_pct,
+                       pg_total_relation_size(relid) AS total_bytes,
+                       pg_size_pretty(pg_total_relation_size(relid)) AS total_size,
+                       n_tup_ins,
+                       n_tup_del,
+                       n_mod_since_analyze,
+                       last_vacuum::text AS last_vacuum,
+                       last_autovacuum::text AS last_autovacuum,
+                       last_autoanalyze::text AS last_autoanalyze,
+                       autovacuum_count,
+                       (SELECT relkind = 'p' FROM pg_class WHERE oid = relid) AS partitioned
+                FROM pg_stat_user_tables
+                WHERE schemaname = current_schema()
+                  AND (relname = ANY (?) OR relid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass('timesheets')))
+                ORDER BY relname
+                """;
+            List<Map<String, Object>> tables = jdbcTemplate.queryForList(sql, (Object) APPLICATION_TABLES.toArray(new String[0]));
+
+            // pgstattuple_approx scans the visibility map, exact enough and much cheaper than pgstattuple
+            if (isExtensionInstalled("pgstattuple")) {
+                for (Map<String, Object> table : tables) {
+                    if (Boolean.TRUE.equals(table.get("partitioned"))) {
+                        // The partitions are listed separately
+                        continue;
+                    }
+                    table.put("pgstattuple", jdbcTemplate.queryForMap("""
+                        SELECT table_len, approx_free_percent, dead_tuple_percent
+                        FROM pgstattuple_approx(?::regclass)
+                        """, table.get("table_name")));
+                }
+            }
+
+            response.put("success", true);
+            response.put("tables", tables);
+        } catch (Exception e) {
+            log.warn("Could not read table bloat statistics: {}", e.getMessage());
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Scan counts per index and sequential versus index scans per table
+     */
+    public Map<String, Object> getIndexUsage() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        try {
+            Object tableNames = APPLICATION_TABLES.toArray(new String[0]);
+            List<Map<String, Object>> tables = jdbcTemplate.queryForList("""
+                SELECT relname AS table_name, seq_scan, seq_tup_read, idx_scan, idx_tup_fetch
+                FROM pg_stat_user_tables
+                WHERE schemaname = current_schema()
+                  AND (relname = ANY (?) OR relid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass('timesheets')))
+                ORDER BY relname
+                """, tableNames);
+            List<Map<String, Object>> indexes = jdbcTemplate.queryForList("""
+                SELECT relname AS table_name,
+                       indexrelname AS index_name,
+                       idx_scan,
+                       idx_tup_read,
+                       idx_tup_fetch,
+                       pg_relation_size(indexrelid) AS index_bytes,
+                       pg_size_pretty(pg_relation_size(indexrelid)) AS index_size
+                FROM pg_stat_user_indexes
+                WHERE schemaname = current_schema()
+                  AND (relname = ANY (?) OR relid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass('timesheets')))
+                ORDER BY relname, idx_scan DESC
+                """, tableNames);
+
+            response.put("success", true);
+            response.put("tables", tables);
+            response.put("indexes", indexes);
+            response.put("unused_indexes", indexes.stream()
+                    .filter(index -> ((Number) index.get("idx_scan")).longValue() == 0)
+                    .map(index -> index.get("index_name"))
+                    .toList());
+        } catch (Exception e) {
+            log.warn("Could not read index usage statistics: {}", e.getMessage());
+            response.put("success", false);
+            response.put("error", e.getMessage());
+        }
+        return response;
+    }
+
+    private List<QueryShape> sampleTimesheetShapes() {
+        List<Map<String, Object>> sample = jdbcTemplate.queryForList(
+                "SELECT assignment_name, month_year, typecode FROM timesheets ORDER BY id LIMIT 1");
+        if (sample.isEmpty()) {
+            return timesheetRepository.queryShapes(DEFAULT_SAMPLE_PROJECT, DEFAULT_SAMPLE_MONTH_YEAR, DEFAULT_SAMPLE_TYPECODE);
+        }
+
+        Map<String, Object> row = sample.get(0);
+        // First word of the assignment, the way users usually refer to a project
+        String project = ((String) row.get("assignment_name")).trim().split("\\s+")[0];
+        return timesheetRepository.queryShapes(project, (String) row.get("month_year"), (String) row.get("typecode"));
+    }
+
+    private Map<String, Object> explain(QueryShape shape) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", shape.name());
+        try {
+            List<String> plan = jdbcTemplate.queryForList(
+                    "EXPLAIN (ANALYZE, BUFFERS) " + shape.sql(), String.class, shape.params());
+            result.put("success", true);
+            plan.stream()
+                    .filter(line -> line.startsWith("Execution Time:"))
+                    .findFirst()
+                    .ifPresent(line -> result.put("execution_time", line.substring("Execution Time:".length()).trim()));
+            result.put("plan", plan);
+        } catch (Exception e) {
+            log.warn("Could not explain {}: {}", shape.name(), e.getMessage());
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    private long getCachedBytes(String relationName) {
+        String sql = """
+            SELECT COUNT(*) * current_setting('block_size')::bigint
+            FROM pg_buffercache
+            WHERE relfilenode = pg_relation_filenode(?::regclass)
+              AND reldatabase = (SELECT oid FROM pg_database WHERE datname = current_database())
+            """;
+        Long cached = jdbcTemplate.queryForObject(sql, Long.class, relationName);
+        return cached != null ? cached : 0L;
+    }
+
+    private boolean isExtensionInstalled(String extension) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_extension WHERE extname = ?", Integer.class, extension);
+        return count != null && count > 0;
+    }
 }
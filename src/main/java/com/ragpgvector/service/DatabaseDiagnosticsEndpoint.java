@@ -0,0 +1,57 @@
+package com.ragpgvector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admin endpoint for tuning the database without attaching psql.
+ * GET /actuator/dbdiagnostics returns the full report, GET /actuator/dbdiagnostics/{section}
+ * a single section (statements, plans, vector-index, bloat, index-usage) and
+ * DELETE /actuator/dbdiagnostics resets pg_stat_statements.
+ * Only exposed with the admin profile, which serves actuator on a separate port bound to localhost.
+ */
+@Component
+@Endpoint(id = "dbdiagnostics")
+public class DatabaseDiagnosticsEndpoint {
+
+    private static final int DEFAULT_STATEMENT_LIMIT = 20;
+
+    @Autowired
+    private DatabaseDiagnosticService diagnosticService;
+
+    @ReadOperation
+    public Map<String, Object> diagnostics(@Nullable Integer limit) {
+        return diagnosticService.runTuningDiagnostics(limit != null ? limit : DEFAULT_STATEMENT_LIMIT);
+    }
+
+    @ReadOperation
+    public Map<String, Object> section(@Selector String section, @Nullable Integer limit) {
+        return switch (section) {
+            case "statements" -> diagnosticService.getTopStatements(limit != null ? limit : DEFAULT_STATEMENT_LIMIT);
+            case "plans" -> diagnosticService.explainQueryShapes();
+            case "vector-index" -> diagnosticService.getVectorIndexReport();
+            case "bloat" -> diagnosticService.getTableBloat();
+            case "index-usage" -> diagnosticService.getIndexUsage();
+            default -> {
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("success", false);
+                response.put("error", "Unknown diagnostics section: " + section);
+                response.put("suggestion", "Use one of: statements, plans, vector-index, bloat, index-usage");
+                yield response;
+            }
+        };
+    }
+
+    @DeleteOperation
+    public Map<String, Object> resetStatements() {
+        return diagnosticService.resetStatementStatistics();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ragpgvector.service;
+
+import com.ragpgvector.config.QueryBudgetProperties;
+import com.ragpgvector.model.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Embeds the queries of the CV tools within the deadline of the call. The embedding model has no
+ * per-request timeout, so the request runs on its own thread and the caller stops waiting at the
+ * deadline. When a request takes longer than the recent p95 latency, a second (hedged) request is
+ * sent and the first answer is used; hedges are counted in "ragpgvector.embedding.hedges"
+ * (outcome=won|lost).
+ */
+@Component
+@Slf4j
+public class QueryEmbedder {
+
+    // Recent latencies the p95 is taken from, and how many are needed before hedging
+    private static final int LATENCY_WINDOW = 128;
+    private static final int MIN_SAMPLES = 20;
+
+    private final EmbeddingModel embeddingModel;
+    private final QueryBudgetProperties properties;
+    private final Counter hedgesWon;
+    private final Counter hedgesLost;
+
+    // Blocking remote calls, abandoned ones keep running until the model answers
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("query-embedding-", 0).factory());
+
+    // Guarded by this
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int samples;
+
+    public QueryEmbedder(EmbeddingModel embeddingModel, QueryBudgetProperties properties, MeterRegistry meterRegistry) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.hedgesWon = meterRegistry.counter("ragpgvector.embedding.hedges", "outcome", "won");
+        this.hedgesLost = meterRegistry.counter("ragpgvector.embedding.hedges", "outcome", "lost");
+    }
+
+    public float[] embed(String text, Deadline deadline) {
+        return call(() -> embeddingModel.embed(text), deadline);
+    }
+
+    public List<float[]> embed(List<String> texts, Deadline deadline) {
+        return call(() -> embeddingModel.embed(texts), deadline);
+    }
+
+    <T> T call(Supplier<T> request, Deadline deadline) {
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(timed(request), executor);
+        try {
+            Duration hedgeDelay = hedgeDelay();
+            if (hedgeDelay == null || hedgeDelay.compareTo(deadline.remaining()) >= 0) {
+                return primary.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            try {
+                return primary.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.debug("Embedding slower than {} ms, sending a hedged request", hedgeDelay.toMillis());
+            }
+
+            CompletableFuture<T> hedge = CompletableFuture.supplyAsync(timed(request), executor);
+            T result = firstSuccessful(primary, hedge).get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+            (primary.isDone() && !primary.isCompletedExceptionally() ? hedgesLost : hedgesWon).increment();
+            return result;
+        } catch (TimeoutException e) {
+            throw new BudgetExceededException("Embedding did not finish within the budget");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BudgetExceededException("Interrupted while embedding");
+        }
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> future : List.of(first, second)) {
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private <T> Supplier<T> timed(Supplier<T> request) {
+        return () -> {
+            long started = System.nanoTime();
+            T result = request.get();
+            record(System.nanoTime() - started);
+            return result;
+        };
+    }
+
+    private synchronized void record(long nanos) {
+        latencies[samples % LATENCY_WINDOW] = nanos;
+        samples++;
+    }
+
+    /**
+     * p95 of the recent embedding latencies, or null when hedging is off or there are too few
+     */
+    synchronized Duration hedgeDelay() {
+        if (!properties.isHedgeEmbedding() || samples < MIN_SAMPLES) {
+            return null;
+        }
+        long[] recent = Arrays.copyOf(latencies, Math.min(samples, LATENCY_WINDOW));
+        Arrays.sort(recent);
+        long p95 = recent[(int) Math.ceil(recent.length * 0.95) - 1];
+        return Duration.ofNanos(Math.max(p95, properties.getMinHedgeDelay().toNanos()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
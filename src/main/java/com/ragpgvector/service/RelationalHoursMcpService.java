@@ -1,14 +1,33 @@
 package com.ragpgvector.service;
 
-import com.ragpgvector.model.TimesheetRecord;
+import com.ragpgvector.dataIngestion.IngestionStatusService;
+import com.ragpgvector.dataIngestion.TimesheetDictionary;
+import com.ragpgvector.metrics.ToolMetrics;
+import com.ragpgvector.model.DatasetSource;
+import com.ragpgvector.model.DuplicateTimesheetRows;
+import com.ragpgvector.model.Findings;
+import com.ragpgvector.model.HoursAggregate;
+import com.ragpgvector.model.HoursCriterion;
+import com.ragpgvector.model.HoursOutlier;
+import com.ragpgvector.model.MonthYear;
+import com.ragpgvector.model.ProjectHoursComparison;
+import com.ragpgvector.model.TimesheetGap;
+import com.ragpgvector.model.TimesheetQuery;
+import com.ragpgvector.model.TimesheetRow;
 import com.ragpgvector.repository.TimesheetRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpPrompt;
+import org.springaicommunity.mcp.annotation.McpToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -20,9 +39,48 @@ import java.util.regex.Pattern;
 @Slf4j
 public class RelationalHoursMcpService {
 
+    // Upper bound for one batch, so a single call cannot build an unbounded VALUES list
+    static final int MAX_BATCH_CRITERIA = 100;
+
+    // Records listed in a search response; the summary still covers every matching record
+    static final int MAX_RESULT_RECORDS = 500;
+
+    // Findings listed per data quality check; the total is always reported
+    static final int MAX_FINDINGS = 50;
+
+    static final int DEFAULT_OUTLIER_WINDOW_MONTHS = 6;
+    static final double DEFAULT_OUTLIER_THRESHOLD = 2.0;
+
+    private static final String IF_VERSION_NOT_DESCRIPTION = "The response has a dataset_version; pass it as ifVersionNot " +
+            "on a later call to get only {\"unchanged\": true} while the timesheet data has not changed.";
+
+    private static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+    // Free-text tokenizer for dates: the query is lowercased once and split into words in a single
+    // pass; projects and typecodes are matched by the TimesheetDictionary
+    private static final Pattern WORD = Pattern.compile("[a-z0-9]+");
+
+    private static final Map<String, Month> MONTH_WORDS = new HashMap<>();
+
+    static {
+        for (Month month : Month.values()) {
+            MONTH_WORDS.put(month.name().toLowerCase(Locale.ROOT), month);
+        }
+    }
+
     @Autowired
     private TimesheetRepository timesheetRepository;
 
+    @Autowired
+    private ToolMetrics toolMetrics;
+
+    @Autowired
+    private IngestionStatusService ingestionStatusService;
+
+    // Package-private so tests and the JMH benchmarks can supply a dictionary
+    @Autowired
+    TimesheetDictionary timesheetDictionary;
+
     /**
      * Search timesheets using the relational database - replacement for searchUren
      */
@@ -37,6 +95,11 @@ public class RelationalHoursMcpService {
                     " - Provides accurate data directly from the relational database"
     )
     public Map<String, Object> searchTimesheetsDB(String query) {
+        return toolMetrics.observe("searchTimesheetsDB", "total_records",
+                () -> ingestionStatusService.whenReady(DatasetSource.TIMESHEETS, () -> doSearchTimesheetsDB(query)));
+    }
+
+    private Map<String, Object> doSearchTimesheetsDB(String query) {
         log.info("MCP tool searchTimesheetsDB called with query: {}", query);
 
         try {
@@ -44,53 +107,227 @@ public class RelationalHoursMcpService {
             SearchCriteria criteria = parseQuery(query);
             log.debug("Parsed search criteria: {}", criteria);
 
-            List<TimesheetRecord> results = performSearch(criteria, query);
-            log.info("Found {} timesheet records matching query", results.size());
+            SearchResults results = new SearchResults(MAX_RESULT_RECORDS);
+            performSearch(criteria, query, results);
+            log.info("Found {} timesheet records matching query", results.totalRecords());
 
-            if (results.isEmpty()) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("message", "No timesheet records found for query: " + query);
-                errorResponse.put("suggestion", "Try searching for 'Devops', 'Standby', specific years like '2021', or months like 'October'");
-                errorResponse.put("available_projects", timesheetRepository.getDistinctProjects());
-                errorResponse.put("available_years", timesheetRepository.getDistinctYears());
-                errorResponse.put("results", List.of());
-                return errorResponse;
+            return buildSearchResponse(results, query);
+
+        } catch (Exception e) {
+            log.error("Error in searchTimesheetsDB: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            errorResponse.put("query", query);
+            return errorResponse;
+        }
+    }
+
+    /**
+     * Search timesheets with typed criteria, so no free text has to be interpreted
+     */
+    @McpTool(
+            name = "queryTimesheets",
+            description = "Search the timesheet database with exact, typed criteria instead of a free-text question. " +
+                    "All parameters are optional and combine with AND; values within a list are alternatives. " +
+                    " - projects: full assignment names, e.g. ['Devops ClientReporting', 'Standby ClientReporting']" +
+                    " - typecodes: e.g. ['DEV', 'STBL', 'STBH']" +
+                    " - from / to: inclusive month range like 'January 2021' and 'March 2021'" +
+                    " Returns the same summary and records as searchTimesheetsDB."
+    )
+    public Map<String, Object> queryTimesheets(
+            @McpToolParam(description = "Exact assignment names", required = false) List<String> projects,
+            @McpToolParam(description = "Type codes such as DEV, STBL or STBH", required = false) List<String> typecodes,
+            @McpToolParam(description = "First month, e.g. 'January 2021'", required = false) String from,
+            @McpToolParam(description = "Last month (inclusive), e.g. 'March 2021'", required = false) String to) {
+        return toolMetrics.observe("queryTimesheets", "total_records",
+                () -> ingestionStatusService.whenReady(DatasetSource.TIMESHEETS,
+                        () -> doQueryTimesheets(projects, typecodes, from, to)));
+    }
+
+    private Map<String, Object> doQueryTimesheets(List<String> projects, List<String> typecodes, String from, String to) {
+        log.info("MCP tool queryTimesheets called with projects={}, typecodes={}, from={}, to={}", projects, typecodes, from, to);
+
+        try {
+            TimesheetQuery query = new TimesheetQuery(
+                    trimmed(projects, false),
+                    trimmed(typecodes, true),
+                    Set.of(),
+                    Set.of(),
+                    parseMonthYear("from", from),
+                    Optional.ofNullable(parseMonthYear("to", to)).map(date -> date.plusMonths(1)).orElse(null));
+
+            SearchResults results = new SearchResults(MAX_RESULT_RECORDS);
+            timesheetRepository.streamTimesheets(query, results);
+            log.info("Found {} timesheet records matching typed query", results.totalRecords());
+
+            return buildSearchResponse(results, query.toString());
+
+        } catch (Exception e) {
+            log.error("Error in queryTimesheets: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return errorResponse;
+        }
+    }
+
+    private static Set<String> trimmed(List<String> values, boolean upperCase) {
+        if (values == null) {
+            return Set.of();
+        }
+        return values.stream()
+                .filter(value -> value != null && !value.isBlank())
+                .map(value -> upperCase ? value.trim().toUpperCase(Locale.ROOT) : value.trim())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static LocalDate parseMonthYear(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return MonthYear.parse(value)
+                .orElseThrow(() -> new IllegalArgumentException(name + " must be a month and year like 'January 2021', got '" + value + "'"));
+    }
+
+    private Map<String, Object> buildSearchResponse(SearchResults results, String query) {
+        if (results.totalRecords() == 0) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "No timesheet records found for query: " + query);
+            errorResponse.put("suggestion", "Try searching for 'Devops', 'Standby', specific years like '2021', or months like 'October'");
+            errorResponse.put("available_projects", timesheetDictionary.getProjects());
+            errorResponse.put("available_years", timesheetRepository.getDistinctYears());
+            errorResponse.put("results", List.of());
+            return errorResponse;
+        }
+
+        // Format results with summary information
+        Map<String, Object> summary = results.summary();
+        List<Map<String, Object>> formattedResults = formatResults(results.rows());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("query", query);
+        response.put("total_records", results.totalRecords());
+        response.put("summary", summary);
+        response.put("results", formattedResults);
+        response.put("raw_data", results.rows().stream()
+                .map(this::convertToMap)
+                .collect(Collectors.toList()));
+        if (results.totalRecords() > results.rows().size()) {
+            response.put("records_listed", results.rows().size());
+            response.put("suggestion", "Only the first " + results.rows().size() + " records are listed; the summary covers all "
+                    + results.totalRecords() + ". Narrow the search or use searchTimesheetsBatch for totals.");
+        }
+        return response;
+    }
+
+    /**
+     * Answer many structured hour questions with one query, instead of one searchTimesheetsDB call each
+     */
+    @McpTool(
+            name = "searchTimesheetsBatch",
+            description = "Answer several timesheet questions in one call, e.g. hours for DEV in January, February and March 2021, " +
+                    "or the same period for several projects. Pass one criterion per question (project, typecode, year, month range); " +
+                    "empty fields do not filter. Returns only total hours and record count per criterion, in the same order, " +
+                    "plus hours per month when byMonth is true. Prefer this over repeated searchTimesheetsDB calls."
+    )
+    public Map<String, Object> searchTimesheetsBatch(
+            @McpToolParam(description = "The questions to answer, at most " + MAX_BATCH_CRITERIA) List<HoursCriterion> criteria,
+            @McpToolParam(description = "Also return the hours per month of every criterion", required = false) Boolean byMonth) {
+        return toolMetrics.observe("searchTimesheetsBatch", "total_criteria",
+                () -> ingestionStatusService.whenReady(DatasetSource.TIMESHEETS,
+                        () -> doSearchTimesheetsBatch(criteria, Boolean.TRUE.equals(byMonth))));
+    }
+
+    // Package-private so tests can call it without the readiness gate
+    Map<String, Object> doSearchTimesheetsBatch(List<HoursCriterion> criteria, boolean byMonth) {
+        log.info("MCP tool searchTimesheetsBatch called with {} criteria (byMonth={})",
+                criteria != null ? criteria.size() : 0, byMonth);
+
+        try {
+            if (criteria == null || criteria.isEmpty()) {
+                throw new IllegalArgumentException("At least one criterion is required");
+            }
+            if (criteria.size() > MAX_BATCH_CRITERIA) {
+                throw new IllegalArgumentException("At most " + MAX_BATCH_CRITERIA + " criteria per call, got " + criteria.size());
             }
 
-            // Format results with summary information
-            Map<String, Object> summary = generateSummary(results, query);
-            List<Map<String, Object>> formattedResults = formatResults(results);
+            // Keyed by criterion index, so the answer does not depend on the order of the rows
+            Map<Integer, Map<String, Object>> results = new TreeMap<>();
+            Map<Integer, Map<String, Long>> hoursByMonth = new HashMap<>();
+            for (HoursAggregate aggregate : timesheetRepository.aggregateHours(criteria, byMonth)) {
+                if (aggregate.period() == null) {
+                    results.put(aggregate.criterion(), summarizeCriterion(criteria.get(aggregate.criterion()), aggregate));
+                } else {
+                    hoursByMonth.computeIfAbsent(aggregate.criterion(), criterion -> new LinkedHashMap<>())
+                            .put(aggregate.period().format(MONTH_YEAR), aggregate.hours());
+                }
+            }
+            if (byMonth) {
+                results.forEach((criterion, result) ->
+                        result.put("hours_by_month", hoursByMonth.getOrDefault(criterion, Map.of())));
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("query", query);
-            response.put("total_records", results.size());
-            response.put("summary", summary);
-            response.put("results", formattedResults);
-            response.put("raw_data", results.stream()
-                    .map(this::convertToMap)
-                    .collect(Collectors.toList()));
+            response.put("total_criteria", criteria.size());
+            response.put("results", new ArrayList<>(results.values()));
             return response;
 
         } catch (Exception e) {
-            log.error("Error in searchTimesheetsDB: {}", e.getMessage(), e);
+            log.error("Error in searchTimesheetsBatch: {}", e.getMessage(), e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("error", e.getMessage());
-            errorResponse.put("query", query);
             return errorResponse;
         }
     }
 
+    // Only the criterion's label and its aggregates, to keep the answer small
+    private Map<String, Object> summarizeCriterion(HoursCriterion criterion, HoursAggregate aggregate) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("criterion", criterion.label() != null && !criterion.label().isBlank()
+                ? criterion.label() : describeCriterion(criterion));
+        result.put("total_hours", aggregate.hours());
+        result.put("records", aggregate.records());
+        return result;
+    }
+
+    String describeCriterion(HoursCriterion criterion) {
+        StringJoiner description = new StringJoiner(", ");
+        if (criterion.project() != null && !criterion.project().isBlank()) {
+            description.add(criterion.project().trim());
+        }
+        if (criterion.typecode() != null && !criterion.typecode().isBlank()) {
+            description.add(criterion.typecode().trim());
+        }
+        String from = criterion.fromMonth() != null && !criterion.fromMonth().isBlank() ? criterion.fromMonth().trim() : null;
+        String to = criterion.toMonth() != null && !criterion.toMonth().isBlank() ? criterion.toMonth().trim() : null;
+        String months = from != null && to != null && !from.equalsIgnoreCase(to) ? from + "-" + to
+                : from != null ? from : to;
+        if (months != null || criterion.year() != null) {
+            description.add(((months != null ? months : "") + " " + (criterion.year() != null ? criterion.year() : "")).trim());
+        }
+        return description.length() > 0 ? description.toString() : "all hours";
+    }
+
     /**
      * Get comprehensive timesheet statistics
      */
     @McpTool(
             name = "getTimesheetStatistics",
-            description = "Get comprehensive statistics about all timesheet data including total hours, projects, years covered, and summaries by project"
+            description = "Get comprehensive statistics about all timesheet data including total hours, projects, years covered, and summaries by project. " +
+                    IF_VERSION_NOT_DESCRIPTION
     )
-    public Map<String, Object> getTimesheetStatistics() {
+    public Map<String, Object> getTimesheetStatistics(
+            @McpToolParam(description = "dataset_version of a previous response", required = false) Long ifVersionNot) {
+        return toolMetrics.observe("getTimesheetStatistics", null,
+                () -> ingestionStatusService.whenChanged(DatasetSource.TIMESHEETS, ifVersionNot, this::doGetTimesheetStatistics));
+    }
+
+    private Map<String, Object> doGetTimesheetStatistics() {
         log.info("Getting comprehensive timesheet statistics");
 
         try {
@@ -98,19 +335,15 @@ public class RelationalHoursMcpService {
             List<String> projects = timesheetRepository.getDistinctProjects();
             List<String> years = timesheetRepository.getDistinctYears();
 
-            // Get hours by project
+            // Hours per project and records per year in one streamed pass over all records
             Map<String, Integer> hoursByProject = new HashMap<>();
-            for (String project : projects) {
-                Integer totalHours = timesheetRepository.getTotalHoursForProject(project);
-                hoursByProject.put(project, totalHours);
-            }
-
-            // Get sample records for each year
             Map<String, Integer> recordsByYear = new HashMap<>();
-            for (String year : years) {
-                List<TimesheetRecord> yearRecords = timesheetRepository.searchTimesheets(null, null, null, year, null);
-                recordsByYear.put(year, yearRecords.size());
-            }
+            timesheetRepository.streamTimesheetsByText(null, row -> {
+                hoursByProject.merge(row.assignmentName(), row.hours(), Integer::sum);
+                if (row.year() != null) {
+                    recordsByYear.merge(row.year(), 1, Integer::sum);
+                }
+            });
 
             Map<String, Object> response = new HashMap<>();
             response.put("database_summary", dbSummary);
@@ -135,49 +368,217 @@ public class RelationalHoursMcpService {
      */
     @McpTool(
             name = "getProjectInformation",
-            description = "Retrieve detailed information about all projects including valid project codes, typecodes, and total hours"
+            description = "Retrieve detailed information about all projects including valid project codes, typecodes, and total hours. " +
+                    IF_VERSION_NOT_DESCRIPTION
     )
-    public Map<String, Object> getProjectInformation() {
+    public Map<String, Object> getProjectInformation(
+            @McpToolParam(description = "dataset_version of a previous response", required = false) Long ifVersionNot) {
+        return toolMetrics.observe("getProjectInformation", "total_projects",
+                () -> ingestionStatusService.whenChanged(DatasetSource.TIMESHEETS, ifVersionNot, this::doGetProjectInformation));
+    }
+
+    private Map<String, Object> doGetProjectInformation() {
         log.info("Getting detailed project information");
 
         try {
-            List<String> projects = timesheetRepository.getDistinctProjects();
+            // Totals of every project in one streamed pass over all records
+            Map<String, ProjectTotals> totals = new TreeMap<>();
+            timesheetRepository.streamTimesheetsByText(null,
+                    row -> totals.computeIfAbsent(row.assignmentName(), project -> new ProjectTotals()).add(row));
+
             Map<String, Object> projectDetails = new HashMap<>();
+            totals.forEach((project, projectTotals) -> {
+                Map<String, Object> projectInfo = new HashMap<>();
+                projectInfo.put("total_hours", projectTotals.hours);
+                projectInfo.put("typecodes", projectTotals.typecodes);
+                projectInfo.put("years_active", List.copyOf(projectTotals.years));
+                projectInfo.put("total_records", projectTotals.records);
 
-            for (String project : projects) {
-                List<TimesheetRecord> projectRecords = timesheetRepository.searchTimesheets(null, project, null, null, null);
+                projectDetails.put(project, projectInfo);
+            });
 
-                Set<String> typecodes = projectRecords.stream()
-                    .map(TimesheetRecord::getTypecode)
-                    .collect(Collectors.toSet());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("project_details", projectDetails);
+            response.put("standard_projects", timesheetDictionary.getProjects());
+            response.put("total_projects", totals.size());
+            return response;
 
-                Integer totalHours = projectRecords.stream()
-                    .mapToInt(TimesheetRecord::getHours)
-                    .sum();
+        } catch (Exception e) {
+            log.error("Error getting project information: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return errorResponse;
+        }
+    }
 
-                Set<String> years = projectRecords.stream()
-                    .map(TimesheetRecord::getYear)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
+    /**
+     * Data quality checks run in the database, so only the findings reach the agent
+     */
+    @McpTool(
+            name = "validateTimesheetQuality",
+            description = "Check the timesheet data for quality problems without reading the records: " +
+                    " - missing_months: ranges of months without hours between a project's first and last month" +
+                    " - duplicate_rows: months with several rows for the same project and typecode" +
+                    " - outliers: monthly hours far from the average of the previous months of the same project and typecode" +
+                    " Every check returns its total and at most " + MAX_FINDINGS + " findings. Optionally limit it to some projects."
+    )
+    public Map<String, Object> validateTimesheetQuality(
+            @McpToolParam(description = "Exact assignment names; all projects when empty", required = false) List<String> projects,
+            @McpToolParam(description = "Previous months an outlier is compared with, default " + DEFAULT_OUTLIER_WINDOW_MONTHS, required = false) Integer windowMonths,
+            @McpToolParam(description = "Standard deviations from that average that make an outlier, default " + DEFAULT_OUTLIER_THRESHOLD, required = false) Double threshold) {
+        return toolMetrics.observe("validateTimesheetQuality", "total_findings",
+                () -> ingestionStatusService.whenReady(DatasetSource.TIMESHEETS,
+                        () -> doValidateTimesheetQuality(projects, windowMonths, threshold)));
+    }
 
-                Map<String, Object> projectInfo = new HashMap<>();
-                projectInfo.put("total_hours", totalHours);
-                projectInfo.put("typecodes", typecodes);
-                projectInfo.put("years_active", years.stream().sorted().collect(Collectors.toList()));
-                projectInfo.put("total_records", projectRecords.size());
+    private Map<String, Object> doValidateTimesheetQuality(List<String> projects, Integer windowMonths, Double threshold) {
+        log.info("MCP tool validateTimesheetQuality called with projects={}, windowMonths={}, threshold={}",
+                projects, windowMonths, threshold);
 
-                projectDetails.put(project, projectInfo);
+        try {
+            int window = windowMonths != null ? windowMonths : DEFAULT_OUTLIER_WINDOW_MONTHS;
+            double deviations = threshold != null ? threshold : DEFAULT_OUTLIER_THRESHOLD;
+            if (window < 1 || window > 36) {
+                throw new IllegalArgumentException("windowMonths must be between 1 and 36, got " + window);
+            }
+            if (deviations <= 0) {
+                throw new IllegalArgumentException("threshold must be positive, got " + deviations);
             }
+            Set<String> selected = trimmed(projects, false);
+
+            Findings<TimesheetGap> gaps = timesheetRepository.findMissingMonths(selected, MAX_FINDINGS);
+            Findings<DuplicateTimesheetRows> duplicates = timesheetRepository.findDuplicateRows(selected, MAX_FINDINGS);
+            Findings<HoursOutlier> outliers = timesheetRepository.findHourOutliers(selected, window, deviations, MAX_FINDINGS);
+
+            Map<String, Object> outlierCheck = check(outliers, outlier -> {
+                Map<String, Object> finding = new LinkedHashMap<>();
+                finding.put("period", outlier.period().format(MONTH_YEAR));
+                finding.put("project", outlier.project());
+                finding.put("typecode", outlier.typecode());
+                finding.put("hours", outlier.hours());
+                finding.put("rolling_average", oneDecimal(outlier.rollingAverage()));
+                finding.put("deviation", oneDecimal(outlier.deviation()));
+                return finding;
+            });
+            outlierCheck.put("window_months", window);
+            outlierCheck.put("threshold", deviations);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            if (!selected.isEmpty()) {
+                response.put("projects", selected);
+            }
+            response.put("total_findings", gaps.total() + duplicates.total() + outliers.total());
+            response.put("missing_months", check(gaps, gap -> {
+                Map<String, Object> finding = new LinkedHashMap<>();
+                finding.put("project", gap.project());
+                finding.put("from", gap.from().format(MONTH_YEAR));
+                finding.put("to", gap.to().format(MONTH_YEAR));
+                finding.put("months", gap.months());
+                return finding;
+            }));
+            response.put("duplicate_rows", check(duplicates, duplicate -> {
+                Map<String, Object> finding = new LinkedHashMap<>();
+                finding.put("period", duplicate.period().format(MONTH_YEAR));
+                finding.put("project", duplicate.project());
+                finding.put("typecode", duplicate.typecode());
+                finding.put("rows", duplicate.rows());
+                finding.put("hours", duplicate.hours());
+                finding.put("identical", duplicate.identical());
+                return finding;
+            }));
+            response.put("outliers", outlierCheck);
+            return response;
 
-            Map<String, Object> response = new HashMap<>();
+        } catch (Exception e) {
+            log.error("Error in validateTimesheetQuality: {}", e.getMessage(), e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            return errorResponse;
+        }
+    }
+
+    private static <T> Map<String, Object> check(Findings<T> findings, Function<T, Map<String, Object>> format) {
+        Map<String, Object> check = new LinkedHashMap<>();
+        check.put("total", findings.total());
+        check.put("findings", findings.items().stream().map(format).toList());
+        if (findings.total() > findings.items().size()) {
+            check.put("findings_listed", findings.items().size());
+        }
+        return check;
+    }
+
+    /**
+     * Compare projects over the same months in one query, instead of a search per project
+     */
+    @McpTool(
+            name = "compareProjectHours",
+            description = "Compare the hours of projects over the same months, with months without hours counted as zero. " +
+                    "Per project: total hours, months with hours, average and peak monthly hours, hours per typecode and " +
+                    "share of all hours. from / to default to the months covered by the compared projects."
+    )
+    public Map<String, Object> compareProjectHours(
+            @McpToolParam(description = "Exact assignment names; all projects when empty", required = false) List<String> projects,
+            @McpToolParam(description = "First month, e.g. 'January 2021'", required = false) String from,
+            @McpToolParam(description = "Last month (inclusive), e.g. 'December 2021'", required = false) String to) {
+        return toolMetrics.observe("compareProjectHours", "total_projects",
+                () -> ingestionStatusService.whenReady(DatasetSource.TIMESHEETS,
+                        () -> doCompareProjectHours(projects, from, to)));
+    }
+
+    private Map<String, Object> doCompareProjectHours(List<String> projects, String from, String to) {
+        log.info("MCP tool compareProjectHours called with projects={}, from={}, to={}", projects, from, to);
+
+        try {
+            LocalDate first = parseMonthYear("from", from);
+            LocalDate last = parseMonthYear("to", to);
+            if (first != null && last != null && first.isAfter(last)) {
+                throw new IllegalArgumentException(from + " comes after " + to);
+            }
+
+            List<ProjectHoursComparison> comparison = timesheetRepository.compareProjectHours(trimmed(projects, false), first, last);
+            if (comparison.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("success", false);
+                errorResponse.put("message", "No hours found for these projects and months");
+                errorResponse.put("available_projects", timesheetDictionary.getProjects());
+                return errorResponse;
+            }
+
+            long totalHours = comparison.stream().mapToLong(ProjectHoursComparison::totalHours).sum();
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (ProjectHoursComparison project : comparison) {
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("project", project.project());
+                result.put("total_hours", project.totalHours());
+                result.put("share_percent", totalHours > 0 ? oneDecimal(100.0 * project.totalHours() / totalHours) : 0.0);
+                result.put("months_with_hours", project.monthsWithHours());
+                result.put("average_monthly_hours", oneDecimal(project.averageMonthlyHours()));
+                result.put("peak_monthly_hours", project.peakMonthlyHours());
+                result.put("hours_by_typecode", project.hoursByTypecode());
+                results.add(result);
+            }
+
+            // Every project covers the same months
+            ProjectHoursComparison most = comparison.getFirst();
+            Map<String, Object> response = new LinkedHashMap<>();
             response.put("success", true);
-            response.put("project_details", projectDetails);
-            response.put("standard_projects", List.of("Devops ClientReporting", "Standby ClientReporting"));
-            response.put("total_projects", projects.size());
+            response.put("from", most.from().format(MONTH_YEAR));
+            response.put("to", most.to().format(MONTH_YEAR));
+            response.put("months", most.months());
+            response.put("total_projects", comparison.size());
+            response.put("total_hours", totalHours);
+            response.put("average_hours_per_project", oneDecimal((double) totalHours / comparison.size()));
+            response.put("most_hours", most.project());
+            response.put("least_hours", comparison.getLast().project());
+            response.put("projects", results);
             return response;
 
         } catch (Exception e) {
-            log.error("Error getting project information: {}", e.getMessage(), e);
+            log.error("Error in compareProjectHours: {}", e.getMessage(), e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("error", e.getMessage());
@@ -185,6 +586,10 @@ public class RelationalHoursMcpService {
         }
     }
 
+    private static double oneDecimal(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
     // MCP Prompts - reused from original with updates for relational data
 
     @McpPrompt(
@@ -238,7 +643,8 @@ public class RelationalHoursMcpService {
                 - Total hours across all projects
                 - Average hours per project
                 
-                Use the searchTimesheetsDB and getProjectInformation tools to gather the data.
+                Use the compareProjectHours tool (with from and to for the period) to get these figures in one call;
+                use searchTimesheetsBatch only for breakdowns it does not return.
                 """,
                 period != null ? period : "the most recent period available");
 
@@ -272,159 +678,180 @@ public class RelationalHoursMcpService {
                    - Average hours per month by project
                    - Projects with most/least activity
                 
-                Use the getTimesheetStatistics and searchTimesheetsDB tools to gather comprehensive data.
+                Use the validateTimesheetQuality tool for gaps, duplicate rows and unusual hours, and the
+                getTimesheetStatistics and compareProjectHours tools for the summary statistics.
+                Do not read the individual records with searchTimesheetsDB for these checks.
                 """;
 
         log.debug("Generated prompt template for data quality validation");
         return prompt;
     }
 
-    // Helper methods
+    // Helper methods (package-private so the JMH benchmarks can call them)
 
-    private SearchCriteria parseQuery(String query) {
+    SearchCriteria parseQuery(String query) {
         SearchCriteria criteria = new SearchCriteria();
 
         if (query == null) return criteria;
 
-        String lowerQuery = query.toLowerCase();
+        // Whole words only, so "maybe" is not May and "devops" does not imply typecode DEV
+        Matcher words = WORD.matcher(query.toLowerCase(Locale.ROOT));
+        while (words.find()) {
+            String word = words.group();
 
-        // Extract year patterns
-        Pattern yearPattern = Pattern.compile("\\b(20[0-2][0-9])\\b");
-        Matcher yearMatcher = yearPattern.matcher(query);
-        if (yearMatcher.find()) {
-            criteria.year = yearMatcher.group(1);
-        }
-
-        // Extract month patterns
-        String[] months = {"january", "february", "march", "april", "may", "june",
-                          "july", "august", "september", "october", "november", "december"};
-        for (String month : months) {
-            if (lowerQuery.contains(month)) {
-                criteria.month = month;
-                break;
+            Month month = MONTH_WORDS.get(word);
+            if (month != null) {
+                criteria.months.add(month);
+            } else if (isYear(word)) {
+                criteria.years.add(Integer.parseInt(word));
             }
         }
 
-        // Extract project patterns
-        if (lowerQuery.contains("devops")) {
-            criteria.projectName = "Devops ClientReporting";
-        } else if (lowerQuery.contains("standby")) {
-            criteria.projectName = "Standby ClientReporting";
-        }
-
-        // Extract typecode patterns
-        if (lowerQuery.contains("dev")) {
-            criteria.typecode = "DEV";
-        } else if (lowerQuery.contains("stbl") || lowerQuery.contains("standby low")) {
-            criteria.typecode = "STBL";
-        } else if (lowerQuery.contains("stbh") || lowerQuery.contains("standby high")) {
-            criteria.typecode = "STBH";
-        }
+        TimesheetDictionary.Matches matches = timesheetDictionary.match(query);
+        criteria.projects.addAll(matches.projects());
+        criteria.typecodes.addAll(matches.typecodes());
 
         return criteria;
     }
 
-    private List<TimesheetRecord> performSearch(SearchCriteria criteria, String originalQuery) {
-        List<TimesheetRecord> results;
+    // 2000-2029, as the former \b(20[0-2][0-9])\b pattern
+    private static boolean isYear(String word) {
+        return word.length() == 4 && word.startsWith("20") && word.charAt(2) >= '0' && word.charAt(2) <= '2'
+                && Character.isDigit(word.charAt(3));
+    }
 
+    private void performSearch(SearchCriteria criteria, String originalQuery, SearchResults results) {
         // Try structured search first if we have specific criteria
         if (criteria.hasSpecificCriteria()) {
-            String monthYear = null;
-            if (criteria.month != null && criteria.year != null) {
-                monthYear = criteria.month + " " + criteria.year;
-            }
-
-            results = timesheetRepository.searchTimesheets(
-                monthYear,
-                criteria.projectName,
-                criteria.typecode,
-                criteria.year,
-                criteria.month
-            );
-        } else {
-            // Fall back to text search
-            results = timesheetRepository.searchTimesheetsByText(originalQuery);
+            timesheetRepository.streamTimesheets(criteria.toQuery(), results);
+            return;
         }
-
-        return results;
+        // Fall back to text search
+        timesheetRepository.streamTimesheetsByText(originalQuery, results);
     }
 
-    private Map<String, Object> generateSummary(List<TimesheetRecord> results, String query) {
-        int totalHours = results.stream().mapToInt(TimesheetRecord::getHours).sum();
-
-        Map<String, Integer> hoursByProject = results.stream()
-            .collect(Collectors.groupingBy(
-                TimesheetRecord::getAssignmentName,
-                Collectors.summingInt(TimesheetRecord::getHours)
-            ));
-
-        Map<String, Integer> hoursByYear = results.stream()
-            .filter(r -> r.getYear() != null)
-            .collect(Collectors.groupingBy(
-                TimesheetRecord::getYear,
-                Collectors.summingInt(TimesheetRecord::getHours)
-            ));
-
-        Map<String, Long> recordsByMonth = results.stream()
-            .collect(Collectors.groupingBy(
-                TimesheetRecord::getMonthYear,
-                Collectors.counting()
-            ));
-
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("total_hours", totalHours);
-        summary.put("total_records", results.size());
-        summary.put("hours_by_project", hoursByProject);
-        summary.put("hours_by_year", hoursByYear);
-        summary.put("records_by_month", recordsByMonth);
-        return summary;
+    Map<String, Object> generateSummary(List<TimesheetRow> results, String query) {
+        SearchResults summary = new SearchResults(0);
+        results.forEach(summary);
+        return summary.summary();
     }
 
-    private List<Map<String, Object>> formatResults(List<TimesheetRecord> results) {
+    List<Map<String, Object>> formatResults(List<TimesheetRow> results) {
         return results.stream()
             .map(record -> {
                 Map<String, Object> map = new HashMap<>();
-                map.put("period", record.getMonthYear());
-                map.put("project", record.getAssignmentName());
-                map.put("typecode", record.getTypecode());
-                map.put("hours", record.getHours());
+                map.put("period", record.monthYear());
+                map.put("project", record.assignmentName());
+                map.put("typecode", record.typecode());
+                map.put("hours", record.hours());
                 map.put("formatted", String.format("%s: %d hours for %s (%s)",
-                    record.getMonthYear(),
-                    record.getHours(),
-                    record.getAssignmentName(),
-                    record.getTypecode()));
+                    record.monthYear(),
+                    record.hours(),
+                    record.assignmentName(),
+                    record.typecode()));
                 return map;
             })
             .collect(Collectors.toList());
     }
 
-    private Map<String, Object> convertToMap(TimesheetRecord record) {
+    private Map<String, Object> convertToMap(TimesheetRow record) {
         Map<String, Object> map = new HashMap<>();
-        map.put("id", record.getId());
-        map.put("monthYear", record.getMonthYear());
-        map.put("assignmentName", record.getAssignmentName());
-        map.put("typecode", record.getTypecode());
-        map.put("hours", record.getHours());
-        map.put("year", record.getYear() != null ? record.getYear() : "");
-        map.put("month", record.getMonth() != null ? record.getMonth() : "");
+        map.put("id", record.id());
+        map.put("monthYear", record.monthYear());
+        map.put("assignmentName", record.assignmentName());
+        map.put("typecode", record.typecode());
+        map.put("hours", record.hours());
+        map.put("year", record.year() != null ? record.year() : "");
+        map.put("month", record.month() != null ? record.month() : "");
         return map;
     }
 
-    // Helper class for search criteria
-    private static class SearchCriteria {
-        String year;
-        String month;
-        String projectName;
-        String typecode;
+    /**
+     * Summary of a streamed search plus its first records: memory depends on the number of
+     * projects, years and months, not on the number of records
+     */
+    static class SearchResults implements Consumer<TimesheetRow> {
+        private final int maxRows;
+        private final List<TimesheetRow> rows = new ArrayList<>();
+        private final Map<String, Integer> hoursByProject = new HashMap<>();
+        private final Map<String, Integer> hoursByYear = new HashMap<>();
+        private final Map<String, Long> recordsByMonth = new HashMap<>();
+        private int totalHours;
+        private int totalRecords;
+
+        SearchResults(int maxRows) {
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public void accept(TimesheetRow row) {
+            totalRecords++;
+            totalHours += row.hours();
+            hoursByProject.merge(row.assignmentName(), row.hours(), Integer::sum);
+            if (row.year() != null) {
+                hoursByYear.merge(row.year(), row.hours(), Integer::sum);
+            }
+            recordsByMonth.merge(row.monthYear(), 1L, Long::sum);
+            if (rows.size() < maxRows) {
+                rows.add(row);
+            }
+        }
+
+        int totalRecords() {
+            return totalRecords;
+        }
+
+        List<TimesheetRow> rows() {
+            return rows;
+        }
+
+        Map<String, Object> summary() {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("total_hours", totalHours);
+            summary.put("total_records", totalRecords);
+            summary.put("hours_by_project", hoursByProject);
+            summary.put("hours_by_year", hoursByYear);
+            summary.put("records_by_month", recordsByMonth);
+            return summary;
+        }
+    }
+
+    // Totals of one project for getProjectInformation
+    private static class ProjectTotals {
+        final Set<String> typecodes = new TreeSet<>();
+        final Set<String> years = new TreeSet<>();
+        int hours;
+        int records;
+
+        void add(TimesheetRow row) {
+            typecodes.add(row.typecode());
+            if (row.year() != null) {
+                years.add(row.year());
+            }
+            hours += row.hours();
+            records++;
+        }
+    }
+
+    // Helper class for search criteria; every year, month, project and typecode in the query is kept
+    static class SearchCriteria {
+        final Set<Integer> years = new TreeSet<>();
+        final Set<Month> months = EnumSet.noneOf(Month.class);
+        final Set<String> projects = new LinkedHashSet<>();
+        final Set<String> typecodes = new LinkedHashSet<>();
 
         boolean hasSpecificCriteria() {
-            return year != null || month != null || projectName != null || typecode != null;
+            return !years.isEmpty() || !months.isEmpty() || !projects.isEmpty() || !typecodes.isEmpty();
+        }
+
+        TimesheetQuery toQuery() {
+            return new TimesheetQuery(projects, typecodes, years, months, null, null);
         }
 
         @Override
         public String toString() {
-            return String.format("SearchCriteria{year='%s', month='%s', projectName='%s', typecode='%s'}",
-                year, month, projectName, typecode);
+            return String.format("SearchCriteria{years=%s, months=%s, projects=%s, typecodes=%s}",
+                years, months, projects, typecodes);
         }
     }
 }
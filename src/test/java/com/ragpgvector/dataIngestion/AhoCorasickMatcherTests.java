@@ -0,0 +1,44 @@
+package com.ragpgvector.dataIngestion;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AhoCorasickMatcherTests {
+
+	@Test
+	void findsOverlappingKeywordsAsWholeWords() {
+		assertThat(match(Map.of("he", "he", "she", "she", "hers", "hers", "his", "his"), "ushers she his hers"))
+				.containsExactly("she", "his", "hers");
+	}
+
+	@Test
+	void foldsCaseAndWhitespace() {
+		assertThat(match(Map.of("years experience", "senior", "node.js", "node"), "Ten YEARS\n\t Experience with Node.JS."))
+				.containsExactly("senior", "node");
+	}
+
+	@Test
+	void matchesPrefixKeywords() {
+		assertThat(match(Map.of("skill*", "skills", "work*", "work"), "Skilled in teamwork, networking and working remotely"))
+				.containsExactly("skills", "work");
+	}
+
+	@Test
+	void matchesKeywordsWithNonAsciiCharacters() {
+		assertThat(match(Map.of("café", "cafe", "git", "git"), "Café owner, GitHub and git"))
+				.containsExactly("cafe", "git");
+	}
+
+	private static List<String> match(Map<String, String> keywords, String text) {
+		List<String> found = new ArrayList<>();
+		new AhoCorasickMatcher<>(new LinkedHashMap<>(keywords)).match(text, found::add);
+		return found;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.ragpgvector.dataIngestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadLetterFileTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void extractsTheFileNameFromLocations() {
+		assertThat(DeadLetterFile.fileName("classpath:hoursheets/Hoursheets.csv")).isEqualTo("Hoursheets.csv");
+		assertThat(DeadLetterFile.fileName("/data/teamA/hours.csv")).isEqualTo("hours.csv");
+		assertThat(DeadLetterFile.fileName("file:/data/teamA/hours.csv")).isEqualTo("hours.csv");
+		assertThat(DeadLetterFile.fileName("C:\\data\\teamA\\hours.csv")).isEqualTo("hours.csv");
+	}
+
+	@Test
+	void keepsEquallyNamedFilesFromDifferentDirectoriesApart() throws IOException {
+		try (DeadLetterFile teamA = new DeadLetterFile(directory, "/data/teamA/hours.csv");
+			 DeadLetterFile teamB = new DeadLetterFile(directory, "/data/teamB/hours.csv")) {
+			teamA.reject(2, "bad hours", "January 2020;A;DEV;x");
+			teamB.reject(3, "bad hours", "January 2020;B;DEV;y");
+
+			assertThat(teamA.getPath()).isNotEqualTo(teamB.getPath());
+			assertThat(teamA.getPath().getFileName().toString()).startsWith("hours.csv.");
+		}
+	}
+
+	@Test
+	void neverReusesAnExistingFileForTheSameSource() throws IOException {
+		try (DeadLetterFile first = new DeadLetterFile(directory, "/data/hours.csv");
+			 DeadLetterFile second = new DeadLetterFile(directory, "/data/hours.csv")) {
+			first.reject(2, "bad hours", "a");
+			second.reject(2, "bad hours", "b");
+
+			assertThat(first.getPath()).isNotEqualTo(second.getPath());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.ragpgvector.dataIngestion;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimesheetCsvParserTests {
+
+	private static final String BOM = "﻿";
+	private static final String HEADER = "Month Year;Assignment Name;Typecode;Hours\n";
+
+	private final List<TimesheetCsvParser.Row> rows = new ArrayList<>();
+	private final List<String> rejects = new ArrayList<>();
+
+	@Test
+	void skipsBomAndHeaderAndTrimsFields() throws IOException {
+		TimesheetCsvParser.Result result = parse(BOM + HEADER
+				+ "January 2020;Devops ClientReporting;DEV;144\r\n"
+				+ "\r\n"
+				+ " February 2020 ; Devops ClientReporting ;DEV; 152 \n");
+
+		assertThat(result.rows()).isEqualTo(2);
+		assertThat(rows).containsExactly(
+				new TimesheetCsvParser.Row("January 2020", LocalDate.of(2020, 1, 1), "Devops ClientReporting", "DEV", 144, 2),
+				new TimesheetCsvParser.Row("February 2020", LocalDate.of(2020, 2, 1), "Devops ClientReporting", "DEV", 152, 4));
+		assertThat(rejects).isEmpty();
+	}
+
+	@Test
+	void handlesQuotedFields() throws IOException {
+		parse(HEADER
+				+ "March 2020;\"Payments; \"\"Phase 2\"\"\";DEV;\"8\"\n"
+				+ "April 2020;\"Multi\nline\";DEV;16");
+
+		assertThat(rows).extracting(TimesheetCsvParser.Row::assignmentName)
+				.containsExactly("Payments; \"Phase 2\"", "Multi\nline");
+		assertThat(rows).extracting(TimesheetCsvParser.Row::hours).containsExactly(8, 16);
+		assertThat(rows).extracting(TimesheetCsvParser.Row::lineNumber).containsExactly(2L, 3L);
+	}
+
+	@Test
+	void rejectsInvalidRecordsWithLineNumbers() throws IOException {
+		TimesheetCsvParser.Result result = parse(HEADER
+				+ "May 2020;Devops;DEV;many\n"
+				+ "June 2020;Devops;DEV\n"
+				+ "July 2020;Devops;DEVELOPMENT;8\n"
+				+ "August 2020;Devops;DEV;99999999999\n"
+				+ "September 2020;Devops;DEV;40\n"
+				+ "Q4 2020;Devops;DEV;8\n"
+				+ "October 2020;\"Devops\"x;DEV;8\n"
+				+ "November 2020;\"Devops;DEV;8\n");
+
+		assertThat(result.rows()).isEqualTo(1);
+		assertThat(result.rejected()).isEqualTo(7);
+		assertThat(rejects).containsExactly(
+				"2|Hours is not an integer|May 2020;Devops;DEV;many",
+				"3|Expected 4 fields but found 3|June 2020;Devops;DEV",
+				"4|Typecode is longer than 10 characters|July 2020;Devops;DEVELOPMENT;8",
+				"5|Hours is not an integer|August 2020;Devops;DEV;99999999999",
+				"7|Month year is not a month name and year|Q4 2020;Devops;DEV;8",
+				"8|Unexpected character after closing quote in field 2|October 2020;\"Devops\"x;DEV;8",
+				"9|Unterminated quoted field|November 2020;\"Devops;DEV;8\n");
+	}
+
+	@Test
+	void parsesRecordsAcrossChunkBoundaries(@TempDir Path directory) throws IOException {
+		StringBuilder csv = new StringBuilder(BOM + HEADER);
+		for (int i = 0; i < 500; i++) {
+			csv.append("December ").append(2000 + i % 100).append(";\"Assignment ").append(i % 7).append("\";TC;").append(i).append("\r\n");
+		}
+		Path file = Files.writeString(directory.resolve("hours.csv"), csv);
+
+		TimesheetCsvParser.Result mapped = newParser(64).parse(file);
+		List<TimesheetCsvParser.Row> mappedRows = new ArrayList<>(rows);
+		rows.clear();
+		TimesheetCsvParser.Result streamed = newParser(64).parse(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(mapped.rows()).isEqualTo(500);
+		assertThat(streamed).isEqualTo(mapped);
+		assertThat(rows).isEqualTo(mappedRows);
+		assertThat(rows.get(499)).isEqualTo(new TimesheetCsvParser.Row("December 2099", LocalDate.of(2099, 12, 1), "Assignment 2", "TC", 499, 501));
+	}
+
+	private TimesheetCsvParser.Result parse(String csv) throws IOException {
+		return newParser(TimesheetCsvParser.DEFAULT_CHUNK_SIZE)
+				.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private TimesheetCsvParser newParser(int chunkSize) {
+		return new TimesheetCsvParser(3, chunkSize, rows::addAll,
+				(line, reason, record) -> rejects.add(line + "|" + reason + "|" + record));
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.ragpgvector.embedding;
+
+import com.ragpgvector.config.OfflineEmbeddingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class OfflineEmbeddingModelTests {
+
+	private final OfflineEmbeddingModel model = new OfflineEmbeddingModel(new OfflineEmbeddingProperties());
+
+	@Test
+	void producesNormalizedVectorsOfConfiguredSize() {
+		float[] vector = model.embed("Java and Spring Boot experience");
+
+		assertThat(vector).hasSize(768);
+		double norm = 0.0;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		assertThat(norm).isCloseTo(1.0, within(1e-4));
+	}
+
+	@Test
+	void isDeterministic() {
+		assertThat(model.embed("Kubernetes")).containsExactly(model.embed("Kubernetes"));
+	}
+
+	@Test
+	void relatedTextsAreCloserThanUnrelatedOnes() {
+		List<float[]> vectors = model.embed(List.of(
+				"Java experience", "experience with Java", "playing tennis and chess"));
+
+		assertThat(cosine(vectors.get(0), vectors.get(1)))
+				.isGreaterThan(cosine(vectors.get(0), vectors.get(2)));
+	}
+
+	@Test
+	void injectsFailures() {
+		OfflineEmbeddingProperties properties = new OfflineEmbeddingProperties();
+		properties.setFailureRate(1.0);
+		OfflineEmbeddingModel failing = new OfflineEmbeddingModel(properties);
+
+		assertThatThrownBy(() -> failing.embed("anything"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("Injected");
+	}
+
+	private static double cosine(float[] a, float[] b) {
+		double dot = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+		}
+		return dot;
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.ragpgvector.repository;
+
+import com.ragpgvector.config.CvSearchCacheProperties;
+import com.ragpgvector.config.ReadDataSourceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvSearchCacheTests {
+
+	private final CvSearchCacheProperties properties = new CvSearchCacheProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger searches = new AtomicInteger();
+
+	@Test
+	void reusesResultsOfSimilarQueryWithSameFilter() {
+		properties.setVerificationRate(0.0);
+		CvSearchCache cache = new CvSearchCache(properties, new ReadDataSourceProperties(), meterRegistry);
+
+		List<Document> first = cache.get(new float[] {1f, 0f, 0f}, 4, 0.5, search("a"));
+		List<Document> similar = cache.get(new float[] {2f, 0.1f, 0f}, 4, 0.5, search("b"));
+		List<Document> otherTopK = cache.get(new float[] {1f, 0f, 0f}, 6, 0.5, search("c"));
+		List<Document> otherQuery = cache.get(new float[] {0f, 1f, 0f}, 4, 0.5, search("d"));
+
+		assertThat(similar).isEqualTo(first);
+		assertThat(otherTopK).extracting(Document::getText).containsExactly("c");
+		assertThat(otherQuery).extracting(Document::getText).containsExactly("d");
+		assertThat(searches).hasValue(3);
+		assertThat(meterRegistry.counter("ragpgvector.cv.search.cache.requests", "result", "hit").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void searchesAgainAfterInvalidate() {
+		CvSearchCache cache = new CvSearchCache(properties, new ReadDataSourceProperties(), meterRegistry);
+
+		cache.get(new float[] {1f, 0f}, 4, 0.5, search("old"));
+		cache.invalidate();
+		List<Document> results = cache.get(new float[] {1f, 0f}, 4, 0.5, search("new"));
+
+		assertThat(results).extracting(Document::getText).containsExactly("new");
+		assertThat(searches).hasValue(2);
+	}
+
+	@Test
+	void verifiedFalseHitReturnsAndCachesFreshResults() {
+		properties.setVerificationRate(1.0);
+		CvSearchCache cache = new CvSearchCache(properties, new ReadDataSourceProperties(), meterRegistry);
+
+		cache.get(new float[] {1f, 0f}, 4, 0.5, search("old"));
+		List<Document> verified = cache.get(new float[] {1f, 0f}, 4, 0.5, search("new"));
+
+		assertThat(verified).extracting(Document::getText).containsExactly("new");
+		assertThat(meterRegistry.counter("ragpgvector.cv.search.cache.false_hits").count()).isEqualTo(1.0);
+	}
+
+	private Supplier<List<Document>> search(String text) {
+		return () -> {
+			searches.incrementAndGet();
+			return List.of(Document.builder().id(text).text(text).build());
+		};
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.ragpgvector.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragpgvector.config.CvSearchCacheProperties;
+import com.ragpgvector.config.OfflineEmbeddingProperties;
+import com.ragpgvector.config.ReadDataSourceProperties;
+import com.ragpgvector.embedding.OfflineEmbeddingModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * CvVectorRepository against a real pgvector database, reading chunks written by Spring AI's
+ * PgVectorStore and compared with its similarity search. Skipped when Docker is not available.
+ */
+class CvVectorRepositoryTests {
+
+	private static PostgreSQLContainer<?> postgres;
+	private static JdbcTemplate jdbcTemplate;
+	private static PgVectorStore vectorStore;
+
+	private final EmbeddingModel embeddingModel = new OfflineEmbeddingModel(new OfflineEmbeddingProperties());
+	private CvVectorRepository repository;
+
+	@BeforeAll
+	static void startDatabase() throws Exception {
+		assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is needed for pgvector");
+		postgres = new PostgreSQLContainer<>(DockerImageName.parse("pgvector/pgvector:pg16")
+				.asCompatibleSubstituteFor("postgres"));
+		postgres.start();
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+		// The schema as the application creates it
+		vectorStore = PgVectorStore.builder(jdbcTemplate, new OfflineEmbeddingModel(new OfflineEmbeddingProperties()))
+				.dimensions(768)
+				.distanceType(PgVectorStore.PgDistanceType.COSINE_DISTANCE)
+				.indexType(PgVectorStore.PgIndexType.HNSW)
+				.initializeSchema(true)
+				.build();
+		vectorStore.afterPropertiesSet();
+	}
+
+	@AfterAll
+	static void stopDatabase() {
+		if (postgres != null) {
+			postgres.stop();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE vector_store");
+		CvSearchCacheProperties cacheProperties = new CvSearchCacheProperties();
+		cacheProperties.setEnabled(false);
+
+		repository = new CvVectorRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(repository, "readJdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(repository, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(repository, "cvSearchCache",
+				new CvSearchCache(cacheProperties, new ReadDataSourceProperties(), new SimpleMeterRegistry()));
+	}
+
+	@Test
+	void findsTheSameChunksAsPgVectorStore() {
+		List<Document> chunks = List.of(
+				chunk("a.pdf", "Java and Spring Boot microservices on Kubernetes"),
+				chunk("a.pdf", "Sailing, chess and cooking in the weekend"),
+				chunk("b.pdf", "PostgreSQL performance tuning and pgvector"),
+				Document.builder().text("Java Spring Boot hour sheet").metadata(Map.of("document_category", "timesheet")).build());
+		vectorStore.add(chunks);
+
+		String query = "Spring Boot Java experience";
+		List<Document> expected = vectorStore.similaritySearch(SearchRequest.builder()
+				.query(query)
+				.topK(3)
+				.similarityThreshold(0.0)
+				.filterExpression("document_category == 'cv'")
+				.build());
+		List<Document> actual = repository.findSimilarCvChunks(embeddingModel.embed(query), 3, 0.0, null);
+
+		assertThat(actual).extracting(Document::getId).containsExactlyElementsOf(expected.stream().map(Document::getId).toList());
+		assertThat(actual).extracting(Document::getScore)
+				.usingElementComparator((a, b) -> Math.abs(a - b) < 1e-6 ? 0 : Double.compare(a, b))
+				.containsExactlyElementsOf(expected.stream().map(Document::getScore).toList());
+		assertThat(actual.getFirst().getMetadata()).containsEntry("source_file", "a.pdf");
+	}
+
+	@Test
+	void findsChecksumsOfCompletelyStoredFilesOnly() {
+		vectorStore.add(List.of(
+				chunk("a.pdf", "first chunk of a", "sum-a", 2),
+				chunk("a.pdf", "second chunk of a", "sum-a", 2),
+				chunk("b.pdf", "only chunk of b that was stored", "sum-b", 3)));
+
+		assertThat(repository.findCompleteCvFileChecksums()).containsExactly(Map.entry("a.pdf", "sum-a"));
+	}
+
+	@Test
+	void findsChunksByTextWithoutEmbedding() {
+		List<Document> chunks = List.of(chunk("a.pdf", "Kubernetes operator in Go"), chunk("a.pdf", "Sailing and chess"));
+		vectorStore.add(chunks);
+		repository.ensureFullTextIndex();
+
+		List<Document> found = repository.findCvChunksByText("which Kubernetes work?", 5, null);
+
+		assertThat(found).extracting(Document::getText).containsExactly("Kubernetes operator in Go");
+	}
+
+	private static Document chunk(String sourceFile, String text) {
+		return Document.builder()
+				.text(text)
+				.metadata(Map.of("document_category", "cv", "source_file", sourceFile))
+				.build();
+	}
+
+	private static Document chunk(String sourceFile, String text, String checksum, int totalChunks) {
+		return Document.builder()
+				.text(text)
+				.metadata(Map.of("document_category", "cv", "source_file", sourceFile,
+						"source_checksum", checksum, "total_chunks", totalChunks))
+				.build();
+	}
+}
@@ -0,0 +1,219 @@
+package com.ragpgvector.repository;
+
+import com.ragpgvector.model.DuplicateTimesheetRows;
+import com.ragpgvector.model.Findings;
+import com.ragpgvector.model.HoursAggregate;
+import com.ragpgvector.model.HoursCriterion;
+import com.ragpgvector.model.HoursOutlier;
+import com.ragpgvector.model.ProjectHoursComparison;
+import com.ragpgvector.model.TimesheetGap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The SQL of TimesheetRepository against a real PostgreSQL database, on small hour sheets made
+ * for each case. Skipped when Docker is not available.
+ */
+class TimesheetRepositoryTests {
+
+	private static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH);
+
+	private static PostgreSQLContainer<?> postgres;
+	private static JdbcTemplate jdbcTemplate;
+
+	private TimesheetRepository repository;
+
+	@BeforeAll
+	static void startDatabase() {
+		assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Docker is needed for PostgreSQL");
+		postgres = new PostgreSQLContainer<>(DockerImageName.parse("pgvector/pgvector:pg16")
+				.asCompatibleSubstituteFor("postgres"));
+		postgres.start();
+		jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+		// The unpartitioned table as init.sql creates it
+		jdbcTemplate.execute("""
+				CREATE TABLE timesheets (
+				    id SERIAL PRIMARY KEY,
+				    month_year VARCHAR(50) NOT NULL,
+				    assignment_name VARCHAR(255) NOT NULL,
+				    typecode VARCHAR(10) NOT NULL,
+				    hours INTEGER NOT NULL,
+				    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+				    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+				    source_file VARCHAR(255),
+				    period DATE
+				)
+				""");
+	}
+
+	@AfterAll
+	static void stopDatabase() {
+		if (postgres != null) {
+			postgres.stop();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE timesheets");
+		repository = new TimesheetRepository();
+		ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+	}
+
+	@Test
+	void aggregatesEveryCriterionWithItsOwnMonths() {
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 10);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 2, 1), 20);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2022, 3, 1), 30);
+		insert("Standby ClientReporting", "STBL", LocalDate.of(2021, 2, 1), 5);
+		insert("Standby ClientReporting", "STBL", LocalDate.of(2022, 2, 1), 7);
+
+		List<HoursAggregate> aggregates = repository.aggregateHours(List.of(
+				new HoursCriterion(null, null, null, null, null, null),
+				new HoursCriterion(null, null, null, null, "February", null),
+				new HoursCriterion(null, "devops", "DEV", 2021, "January", "March"),
+				new HoursCriterion(null, "Payments", null, 2021, null, null)), true);
+
+		Map<Integer, List<HoursAggregate>> byCriterion = aggregates.stream()
+				.collect(Collectors.groupingBy(HoursAggregate::criterion));
+		assertThat(byCriterion).containsOnlyKeys(0, 1, 2, 3);
+
+		// Without any filter: every row, per month over all years
+		assertThat(total(byCriterion.get(0))).isEqualTo(new HoursAggregate(0, null, 5, 72));
+		assertThat(months(byCriterion.get(0))).containsExactly(
+				Map.entry(LocalDate.of(2021, 1, 1), 10L), Map.entry(LocalDate.of(2021, 2, 1), 25L),
+				Map.entry(LocalDate.of(2022, 2, 1), 7L), Map.entry(LocalDate.of(2022, 3, 1), 30L));
+
+		// A month without a year matches that month in every year
+		assertThat(total(byCriterion.get(1))).isEqualTo(new HoursAggregate(1, null, 3, 32));
+		assertThat(months(byCriterion.get(1))).containsExactly(
+				Map.entry(LocalDate.of(2021, 2, 1), 25L), Map.entry(LocalDate.of(2022, 2, 1), 7L));
+
+		assertThat(total(byCriterion.get(2))).isEqualTo(new HoursAggregate(2, null, 2, 30));
+		assertThat(months(byCriterion.get(2))).containsExactly(
+				Map.entry(LocalDate.of(2021, 1, 1), 10L), Map.entry(LocalDate.of(2021, 2, 1), 20L));
+
+		// Nothing matched: a zero total and no months
+		assertThat(byCriterion.get(3)).containsExactly(new HoursAggregate(3, null, 0, 0));
+	}
+
+	@Test
+	void aggregatesOnlyTotalsWithoutByMonth() {
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 10);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 2, 1), 20);
+
+		List<HoursAggregate> aggregates = repository.aggregateHours(List.of(
+				new HoursCriterion(null, null, null, null, null, null),
+				new HoursCriterion(null, null, null, 2021, "February", null)), false);
+
+		assertThat(aggregates).containsExactly(new HoursAggregate(0, null, 2, 30), new HoursAggregate(1, null, 1, 20));
+	}
+
+	@Test
+	void findsTheGapBetweenTheFirstAndLastMonthOfAProject() {
+		insert("Payments Platform Migration", "MIG", LocalDate.of(2021, 1, 1), 10);
+		insert("Payments Platform Migration", "MIG", LocalDate.of(2021, 2, 1), 10);
+		insert("Payments Platform Migration", "MIG", LocalDate.of(2021, 5, 1), 10);
+		insert("Payments Platform Migration", "DEV", LocalDate.of(2021, 6, 1), 10);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 10);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 2, 1), 10);
+
+		Findings<TimesheetGap> gaps = repository.findMissingMonths(Set.of(), 50);
+
+		assertThat(gaps.total()).isEqualTo(1);
+		assertThat(gaps.items()).containsExactly(new TimesheetGap("Payments Platform Migration",
+				LocalDate.of(2021, 3, 1), LocalDate.of(2021, 4, 1), 2));
+		assertThat(repository.findMissingMonths(Set.of("Devops ClientReporting"), 50).items()).isEmpty();
+	}
+
+	@Test
+	void findsRowsForTheSameMonthProjectAndTypecode() {
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 8);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 8);
+		insert("Devops ClientReporting", "STBL", LocalDate.of(2021, 1, 1), 8);
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 2, 1), 8);
+
+		Findings<DuplicateTimesheetRows> duplicates = repository.findDuplicateRows(Set.of(), 50);
+
+		assertThat(duplicates.total()).isEqualTo(1);
+		assertThat(duplicates.items()).containsExactly(new DuplicateTimesheetRows(LocalDate.of(2021, 1, 1),
+				"Devops ClientReporting", "DEV", 2, 16, true));
+	}
+
+	@Test
+	void findsASpikeAfterSteadyMonths() {
+		for (int month = 1; month <= 4; month++) {
+			insert("Devops ClientReporting", "DEV", LocalDate.of(2021, month, 1), 10);
+		}
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 5, 1), 100);
+
+		Findings<HoursOutlier> outliers = repository.findHourOutliers(Set.of(), 6, 2.0, 50);
+
+		// A steady history has a spread of one hour (10% of the average), so the spike is 90 spreads away
+		assertThat(outliers.total()).isEqualTo(1);
+		assertThat(outliers.items()).containsExactly(new HoursOutlier(LocalDate.of(2021, 5, 1),
+				"Devops ClientReporting", "DEV", 100, 10.0, 90.0));
+	}
+
+	@Test
+	void comparesProjectsWithDisjointMonthsOverTheSameRange() {
+		insert("Devops ClientReporting", "DEV", LocalDate.of(2021, 1, 1), 10);
+		insert("Devops ClientReporting", "MIG", LocalDate.of(2021, 2, 1), 20);
+		insert("Standby ClientReporting", "STBL", LocalDate.of(2021, 4, 1), 8);
+		insert("Standby ClientReporting", "STBL", LocalDate.of(2021, 5, 1), 8);
+
+		List<ProjectHoursComparison> all = repository.compareProjectHours(Set.of(), null, null);
+
+		assertThat(all).containsExactly(
+				new ProjectHoursComparison("Devops ClientReporting", LocalDate.of(2021, 1, 1), LocalDate.of(2021, 5, 1),
+						5, 2, 30, 6.0, 20, Map.of("DEV", 10L, "MIG", 20L)),
+				new ProjectHoursComparison("Standby ClientReporting", LocalDate.of(2021, 1, 1), LocalDate.of(2021, 5, 1),
+						5, 2, 16, 3.2, 8, Map.of("STBL", 16L)));
+
+		List<ProjectHoursComparison> range = repository.compareProjectHours(Set.of(), LocalDate.of(2021, 2, 1), LocalDate.of(2021, 4, 1));
+
+		assertThat(range).containsExactly(
+				new ProjectHoursComparison("Devops ClientReporting", LocalDate.of(2021, 2, 1), LocalDate.of(2021, 4, 1),
+						3, 1, 20, 20.0 / 3, 20, Map.of("MIG", 20L)),
+				new ProjectHoursComparison("Standby ClientReporting", LocalDate.of(2021, 2, 1), LocalDate.of(2021, 4, 1),
+						3, 1, 8, 8.0 / 3, 8, Map.of("STBL", 8L)));
+	}
+
+	private static HoursAggregate total(List<HoursAggregate> aggregates) {
+		List<HoursAggregate> totals = aggregates.stream().filter(aggregate -> aggregate.period() == null).toList();
+		assertThat(totals).hasSize(1);
+		return totals.getFirst();
+	}
+
+	private static List<Map.Entry<LocalDate, Long>> months(List<HoursAggregate> aggregates) {
+		return aggregates.stream()
+				.filter(aggregate -> aggregate.period() != null)
+				.map(aggregate -> Map.entry(aggregate.period(), aggregate.hours()))
+				.toList();
+	}
+
+	private static void insert(String project, String typecode, LocalDate period, int hours) {
+		jdbcTemplate.update("INSERT INTO timesheets (month_year, assignment_name, typecode, hours, period) VALUES (?, ?, ?, ?, ?)",
+				period.format(MONTH_YEAR), project, typecode, hours, period);
+	}
+}
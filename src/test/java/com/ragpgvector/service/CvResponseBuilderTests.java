@@ -0,0 +1,78 @@
+package com.ragpgvector.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ragpgvector.config.CvResponseProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CvResponseBuilderTests {
+
+	private final CvResponseProperties properties = new CvResponseProperties();
+	private final CvResponseBuilder builder = new CvResponseBuilder(properties);
+
+	@Test
+	void returnsEachTextOnceWithoutOverlapAndCompacted() throws Exception {
+		String first = "Senior Java developer   at Acme.\n\n\nBuilt payment services with Spring Boot";
+		String second = "payment services with Spring Boot and Kafka for ten years.";
+
+		CvSections sections = builder.forSearch(List.of(
+				chunk("b", second, 1, 0.3),
+				chunk("a", first, 0, 0.2),
+				chunk("c", first, 0, 0.4)));
+
+		assertThat(sections.sections()).extracting(CvSections.Section::content).containsExactly(
+				"Senior Java developer at Acme.\nBuilt payment services with Spring Boot",
+				"and Kafka for ten years.");
+		assertThat(sections.omitted()).isEqualTo(1);
+
+		JsonNode json = new ObjectMapper().valueToTree(sections.select(List.of(sections.sections().get(1).document()),
+				Map.of("b", Set.of("skills"))));
+		assertThat(json.get(0).get("content_type").asText()).isEqualTo("experience");
+		assertThat(json.get(0).get("also_relevant_to").get(0).asText()).isEqualTo("skills");
+	}
+
+	@Test
+	void sharesBudgetByRelevanceAndLeavesOutTinyShares() {
+		properties.setSearchTokenBudget(100);
+		properties.setMinSectionTokens(20);
+		String longText = "word ".repeat(200).strip();
+
+		CvSections sections = builder.forSearch(List.of(
+				chunk("close", longText + " close", 0, 0.1),
+				chunk("short", "Java, Spring, Kafka", 5, 0.5),
+				chunk("far", longText + " far", 10, 0.7),
+				chunk("farthest", longText + " farthest", 20, 0.95)));
+
+		assertThat(sections.sections()).extracting(section -> section.document().getId())
+				.containsExactly("close", "short", "far");
+		int total = sections.sections().stream().mapToInt(section -> section.content().length()).sum();
+		assertThat(total).isLessThanOrEqualTo(100 * CvResponseBuilder.CHARS_PER_TOKEN);
+		assertThat(sections.sections().get(0).content().length()).isGreaterThan(sections.sections().get(2).content().length());
+		assertThat(sections.sections().get(0).truncated()).isTrue();
+		assertThat(sections.sections().get(0).content()).endsWith(" …");
+		assertThat(sections.sections().get(1).truncated()).isFalse();
+	}
+
+	@Test
+	void findsLongestOverlap() {
+		assertThat(CvResponseBuilder.overlap("abcabcab", "abcabx")).isEqualTo(5);
+		assertThat(CvResponseBuilder.overlap("xyz", "abc")).isZero();
+		assertThat(CvResponseBuilder.overlap("", "abc")).isZero();
+	}
+
+	private static Document chunk(String id, String text, int chunkIndex, double distance) {
+		return Document.builder().id(id).text(text).metadata(Map.of(
+				"source_file", "CV.pdf",
+				"chunk_index", chunkIndex,
+				"chunk_type", "experience",
+				"distance", distance)).build();
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.ragpgvector.service;
+
+import com.ragpgvector.config.QueryBudgetProperties;
+import com.ragpgvector.model.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryEmbedderTests {
+
+	private final QueryBudgetProperties properties = new QueryBudgetProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final QueryEmbedder embedder = new QueryEmbedder(null, properties, meterRegistry);
+
+	@Test
+	void stopsWaitingAtTheDeadline() {
+		long started = System.nanoTime();
+
+		assertThatThrownBy(() -> embedder.call(() -> sleep(2000, "late"), Deadline.after(Duration.ofMillis(100))))
+				.isInstanceOf(BudgetExceededException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void hedgesARequestSlowerThanUsual() {
+		for (int i = 0; i < 20; i++) {
+			embedder.call(() -> "fast", Deadline.after(Duration.ofSeconds(1)));
+		}
+		AtomicInteger requests = new AtomicInteger();
+
+		String result = embedder.call(() -> requests.incrementAndGet() == 1 ? sleep(2000, "slow") : "hedged",
+				Deadline.after(Duration.ofSeconds(1)));
+
+		assertThat(result).isEqualTo("hedged");
+		assertThat(embedder.hedgeDelay()).isEqualTo(properties.getMinHedgeDelay());
+		assertThat(meterRegistry.counter("ragpgvector.embedding.hedges", "outcome", "won").count()).isEqualTo(1.0);
+	}
+
+	private static String sleep(long millis, String result) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return result;
+	}
+}
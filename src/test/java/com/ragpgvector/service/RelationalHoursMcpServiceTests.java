@@ -0,0 +1,92 @@
+package com.ragpgvector.service;
+
+import com.ragpgvector.dataIngestion.TimesheetDictionary;
+import com.ragpgvector.model.HoursAggregate;
+import com.ragpgvector.model.HoursCriterion;
+import com.ragpgvector.repository.TimesheetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RelationalHoursMcpServiceTests {
+
+	private final RelationalHoursMcpService service = new RelationalHoursMcpService();
+
+	@BeforeEach
+	void setUp() {
+		service.timesheetDictionary = new TimesheetDictionary();
+		service.timesheetDictionary.rebuild(
+				List.of("Devops ClientReporting", "Standby ClientReporting", "Payments Platform Migration"),
+				List.of("DEV", "STBL", "STBH", "MIG"));
+	}
+
+	@Test
+	void devopsDoesNotImplyTypecodeDev() {
+		RelationalHoursMcpService.SearchCriteria criteria = service.parseQuery("Hours for Devops in October 2021?");
+
+		assertThat(criteria.projects).containsExactly("Devops ClientReporting");
+		assertThat(criteria.typecodes).isEmpty();
+		assertThat(criteria.months).containsExactly(Month.OCTOBER);
+		assertThat(criteria.years).containsExactly(2021);
+	}
+
+	@Test
+	void keepsEveryMonthYearAndTypecode() {
+		RelationalHoursMcpService.SearchCriteria criteria =
+				service.parseQuery("DEV and standby high in January, February and March of 2021 and 2022");
+
+		assertThat(criteria.months).containsExactly(Month.JANUARY, Month.FEBRUARY, Month.MARCH);
+		assertThat(criteria.years).containsExactly(2021, 2022);
+		assertThat(criteria.typecodes).containsExactly("DEV", "STBH");
+		assertThat(criteria.projects).containsExactly("Standby ClientReporting");
+	}
+
+	@Test
+	void recognizesProjectsAndTypecodesFromTheData() {
+		RelationalHoursMcpService.SearchCriteria criteria =
+				service.parseQuery("MIG hours on   payments platform migration and on ClientReporting");
+
+		assertThat(criteria.projects).containsExactly("Payments Platform Migration");
+		assertThat(criteria.typecodes).containsExactly("MIG");
+	}
+
+	@Test
+	void ignoresWordsThatOnlyContainKeywords() {
+		RelationalHoursMcpService.SearchCriteria criteria = service.parseQuery("development in maybe 20215");
+
+		assertThat(criteria.hasSpecificCriteria()).isFalse();
+	}
+
+	@Test
+	void groupsMonthsByTheirCriterionWhateverTheRowOrder() {
+		List<HoursCriterion> criteria = List.of(
+				new HoursCriterion("all", null, null, null, null, null),
+				new HoursCriterion("none", "Payments", null, 2021, null, null));
+		ReflectionTestUtils.setField(service, "timesheetRepository", new TimesheetRepository() {
+			@Override
+			public List<HoursAggregate> aggregateHours(List<HoursCriterion> aggregated, boolean byMonth) {
+				return List.of(
+						new HoursAggregate(0, LocalDate.of(2021, 1, 1), 1, 10),
+						new HoursAggregate(1, null, 0, 0),
+						new HoursAggregate(0, null, 2, 30),
+						new HoursAggregate(0, LocalDate.of(2021, 2, 1), 1, 20));
+			}
+		});
+
+		Map<String, Object> response = service.doSearchTimesheetsBatch(criteria, true);
+
+		assertThat(response).containsEntry("success", true);
+		assertThat(response.get("results")).isEqualTo(List.of(
+				Map.of("criterion", "all", "total_hours", 30L, "records", 2L,
+						"hours_by_month", Map.of("January 2021", 10L, "February 2021", 20L)),
+				Map.of("criterion", "none", "total_hours", 0L, "records", 0L, "hours_by_month", Map.of())));
+	}
+
+}
@@ -0,0 +1,89 @@
+#!/bin/bash
+#
+# Compares the startup time of the MCP server in four modes:
+#   jar      - the executable jar (java -jar)
+#   cds      - extracted jar with the CDS archive of a training run
+#   aot      - extracted jar with Spring AOT initialization
+#   aot-cds  - Spring AOT and its own CDS archive
+#
+# Measures the time from launching the JVM until the first MCP request (tools/list) is answered,
+# and the startup time Spring Boot logs itself. Needs the database to be running and a build of
+#   ./mvnw -Pfast-startup package -DskipTests
+# with the same Spring profiles as used here.
+#
+# Usage: ./startup-benchmark.sh [runs]
+#   PROFILES=offline ./startup-benchmark.sh 10    (also build with -Dfast-startup.profiles=offline)
+#   EXTRA_ARGS="--spring.datasource.url=..."     (passed on to the application)
+
+RUNS=${1:-5}
+PROFILES=${PROFILES:-default}
+PORT=${PORT:-18085}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+EXEC_JAR=$(ls target/ragpgvector-*-exec.jar 2>/dev/null | head -1)
+APP_DIR=target/fast-startup
+LOG=target/startup-benchmark.log
+APP_LOG=logs/ragpgvector2.log   # see logback-spring.xml
+
+if [ -z "$EXEC_JAR" ] || [ ! -f "$APP_DIR/cds.jsa" ] || [ ! -f "$APP_DIR/aot-cds.jsa" ]; then
+    echo "✗ Build missing. Run: ./mvnw -Pfast-startup package -DskipTests -Dfast-startup.profiles=$PROFILES"
+    exit 1
+fi
+
+command_for() {
+    case $1 in
+        jar)     echo "$JAVA -jar $EXEC_JAR" ;;
+        cds)     echo "$JAVA -XX:SharedArchiveFile=$APP_DIR/cds.jsa -jar $APP_DIR/ragpgvector.jar" ;;
+        aot)     echo "$JAVA -Dspring.aot.enabled=true -jar $APP_DIR/ragpgvector.jar" ;;
+        aot-cds) echo "$JAVA -XX:SharedArchiveFile=$APP_DIR/aot-cds.jsa -Dspring.aot.enabled=true -jar $APP_DIR/ragpgvector.jar" ;;
+    esac
+}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+first_request_ok() {
+    curl -sf -o /dev/null -X POST "http://localhost:$PORT/mcp" \
+        -H 'Content-Type: application/json' \
+        -H 'Accept: application/json, text/event-stream' \
+        -d '{"jsonrpc":"2.0","id":1,"method":"tools/list","params":{}}'
+}
+
+# Runs one startup and prints "<ms until first request> <seconds logged by Spring Boot>"
+measure() {
+    local started pid elapsed
+    started=$(now_ms)
+    $(command_for "$1") --spring.profiles.active="$PROFILES" --server.port="$PORT" $EXTRA_ARGS > "$LOG" 2>&1 &
+    pid=$!
+
+    until first_request_ok; do
+        if ! kill -0 $pid 2>/dev/null; then
+            echo "✗ $1 exited during startup, see $LOG and $APP_LOG" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - started ))
+
+    kill $pid
+    wait $pid 2>/dev/null
+    echo "$elapsed $(grep -oE 'Started MCPRagVectorApplication in [0-9.]+' "$APP_LOG" | tail -1 | grep -oE '[0-9.]+$')"
+}
+
+echo "=== Startup benchmark: $RUNS runs per mode, profiles '$PROFILES' ==="
+printf "%-8s %14s %14s %14s %16s\n" "mode" "first req avg" "first req min" "first req max" "spring boot avg"
+
+for mode in jar cds aot aot-cds; do
+    measure "$mode" > /dev/null || exit 1   # warm up the OS file cache
+
+    total=0; min=; max=0; boot_total=0
+    for ((i = 1; i <= RUNS; i++)); do
+        read -r ms boot < <(measure "$mode") || exit 1
+        total=$(( total + ms ))
+        (( ms > max )) && max=$ms
+        [ -z "$min" ] || (( ms < min )) && min=$ms
+        boot_total=$(awk "BEGIN { print $boot_total + ${boot:-0} }")
+    done
+
+    printf "%-8s %11d ms %11d ms %11d ms %14.2f s\n" "$mode" $(( total / RUNS )) "$min" "$max" "$(awk "BEGIN { print $boot_total / $RUNS }")"
+done